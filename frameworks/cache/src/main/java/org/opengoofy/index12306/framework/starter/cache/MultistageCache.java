@@ -17,9 +17,21 @@
 
 package org.opengoofy.index12306.framework.starter.cache;
 
+import jakarta.validation.constraints.NotBlank;
+
 /**
  * 多级缓存
  * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
  */
 public interface MultistageCache extends Cache {
+
+    /**
+     * 失效本地缓存，并通知其它节点失效
+     */
+    void invalidate(@NotBlank String key);
+
+    /**
+     * 仅失效当前节点本地缓存
+     */
+    void invalidateLocal(@NotBlank String key);
 }
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import org.opengoofy.index12306.framework.starter.cache.config.RedisDistributedProperties;
+import org.opengoofy.index12306.framework.starter.cache.core.CacheGetFilter;
+import org.opengoofy.index12306.framework.starter.cache.core.CacheGetIfAbsent;
+import org.opengoofy.index12306.framework.starter.cache.core.CacheLoader;
+import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
+import org.redisson.api.RBloomFilter;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 多级缓存代理，本地 Caffeine 作为一级缓存，Redis 作为二级缓存
+ * 仅 {@link RedisDistributedProperties.Multistage#getKeyPrefixes()} 命中的 Key 读取本地缓存，其余操作直接委派给分布式缓存
+ * 通过本代理写入或删除的 Key 会经 Redis 发布订阅通知所有节点失效本地缓存；绕过本代理直接操作 Redis 的数据依赖本地超时时间兜底
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public class MultistageCacheProxy implements DistributedCache, MultistageCache, MessageListener {
+
+    private final DistributedCache distributedCache;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String invalidateChannel;
+    private final List<RedisDistributedProperties.KeyPrefix> keyPrefixes;
+
+    @Getter
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> localCache;
+
+    public MultistageCacheProxy(DistributedCache distributedCache, StringRedisTemplate stringRedisTemplate, RedisDistributedProperties.Multistage multistageProperties) {
+        this.distributedCache = distributedCache;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.invalidateChannel = multistageProperties.getInvalidateChannel();
+        // 前缀越长越精确，优先匹配
+        this.keyPrefixes = multistageProperties.getKeyPrefixes().stream()
+                .sorted(Comparator.comparingInt((RedisDistributedProperties.KeyPrefix each) -> each.getPrefix().length()).reversed())
+                .collect(Collectors.toList());
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(multistageProperties.getMaximumSize())
+                .expireAfter(new Expiry<String, Object>() {
+                    @Override
+                    public long expireAfterCreate(String key, Object value, long currentTime) {
+                        RedisDistributedProperties.KeyPrefix keyPrefix = matchKeyPrefix(key);
+                        return keyPrefix == null ? 0L : keyPrefix.getTimeUnit().toNanos(keyPrefix.getTimeout());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Object value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Object value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public <T> T get(String key, Class<T> clazz) {
+        return getThroughLocal(key, clazz, () -> distributedCache.get(key, clazz));
+    }
+
+    @Override
+    public <T> T get(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout) {
+        return getThroughLocal(key, clazz, () -> distributedCache.get(key, clazz, cacheLoader, timeout));
+    }
+
+    @Override
+    public <T> T get(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit) {
+        return getThroughLocal(key, clazz, () -> distributedCache.get(key, clazz, cacheLoader, timeout, timeUnit));
+    }
+
+    @Override
+    public <T> T safeGet(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout) {
+        return getThroughLocal(key, clazz, () -> distributedCache.safeGet(key, clazz, cacheLoader, timeout));
+    }
+
+    @Override
+    public <T> T safeGet(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit) {
+        return getThroughLocal(key, clazz, () -> distributedCache.safeGet(key, clazz, cacheLoader, timeout, timeUnit));
+    }
+
+    @Override
+    public <T> T safeGet(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, RBloomFilter<String> bloomFilter) {
+        return getThroughLocal(key, clazz, () -> distributedCache.safeGet(key, clazz, cacheLoader, timeout, bloomFilter));
+    }
+
+    @Override
+    public <T> T safeGet(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit, RBloomFilter<String> bloomFilter) {
+        return getThroughLocal(key, clazz, () -> distributedCache.safeGet(key, clazz, cacheLoader, timeout, timeUnit, bloomFilter));
+    }
+
+    @Override
+    public <T> T safeGet(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, RBloomFilter<String> bloomFilter, CacheGetFilter<String> cacheCheckFilter) {
+        return getThroughLocal(key, clazz, () -> distributedCache.safeGet(key, clazz, cacheLoader, timeout, bloomFilter, cacheCheckFilter));
+    }
+
+    @Override
+    public <T> T safeGet(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit, RBloomFilter<String> bloomFilter, CacheGetFilter<String> cacheCheckFilter) {
+        return getThroughLocal(key, clazz, () -> distributedCache.safeGet(key, clazz, cacheLoader, timeout, timeUnit, bloomFilter, cacheCheckFilter));
+    }
+
+    @Override
+    public <T> T safeGet(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout,
+                         RBloomFilter<String> bloomFilter, CacheGetFilter<String> cacheGetFilter, CacheGetIfAbsent<String> cacheGetIfAbsent) {
+        return getThroughLocal(key, clazz, () -> distributedCache.safeGet(key, clazz, cacheLoader, timeout, bloomFilter, cacheGetFilter, cacheGetIfAbsent));
+    }
+
+    @Override
+    public <T> T safeGet(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit,
+                         RBloomFilter<String> bloomFilter, CacheGetFilter<String> cacheGetFilter, CacheGetIfAbsent<String> cacheGetIfAbsent) {
+        return getThroughLocal(key, clazz, () -> distributedCache.safeGet(key, clazz, cacheLoader, timeout, timeUnit, bloomFilter, cacheGetFilter, cacheGetIfAbsent));
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        distributedCache.put(key, value);
+        invalidate(key);
+    }
+
+    @Override
+    public void put(String key, Object value, long timeout) {
+        distributedCache.put(key, value, timeout);
+        invalidate(key);
+    }
+
+    @Override
+    public void put(String key, Object value, long timeout, TimeUnit timeUnit) {
+        distributedCache.put(key, value, timeout, timeUnit);
+        invalidate(key);
+    }
+
+    @Override
+    public void safePut(String key, Object value, long timeout, RBloomFilter<String> bloomFilter) {
+        distributedCache.safePut(key, value, timeout, bloomFilter);
+        invalidate(key);
+    }
+
+    @Override
+    public void safePut(String key, Object value, long timeout, TimeUnit timeUnit, RBloomFilter<String> bloomFilter) {
+        distributedCache.safePut(key, value, timeout, timeUnit, bloomFilter);
+        invalidate(key);
+    }
+
+    @Override
+    public Boolean putIfAllAbsent(@NotNull Collection<String> keys) {
+        Boolean result = distributedCache.putIfAllAbsent(keys);
+        keys.forEach(this::invalidate);
+        return result;
+    }
+
+    @Override
+    public Boolean delete(String key) {
+        Boolean result = distributedCache.delete(key);
+        invalidate(key);
+        return result;
+    }
+
+    @Override
+    public Long delete(Collection<String> keys) {
+        Long result = distributedCache.delete(keys);
+        keys.forEach(this::invalidate);
+        return result;
+    }
+
+    @Override
+    public Boolean hasKey(String key) {
+        return distributedCache.hasKey(key);
+    }
+
+    @Override
+    public Object getInstance() {
+        return distributedCache.getInstance();
+    }
+
+    @Override
+    public Long countExistingKeys(String... keys) {
+        return distributedCache.countExistingKeys(keys);
+    }
+
+    @Override
+    public void invalidate(@NotBlank String key) {
+        if (matchKeyPrefix(key) == null) {
+            return;
+        }
+        localCache.invalidate(key);
+        stringRedisTemplate.convertAndSend(invalidateChannel, key);
+    }
+
+    @Override
+    public void invalidateLocal(@NotBlank String key) {
+        localCache.invalidate(key);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        invalidateLocal(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private <T> T getThroughLocal(String key, Class<T> clazz, Supplier<T> distributedGetter) {
+        if (matchKeyPrefix(key) == null) {
+            return distributedGetter.get();
+        }
+        Object localValue = localCache.getIfPresent(key);
+        if (clazz.isInstance(localValue)) {
+            return clazz.cast(localValue);
+        }
+        T result = distributedGetter.get();
+        if (!CacheUtil.isNullOrBlank(result)) {
+            localCache.put(key, result);
+        }
+        return result;
+    }
+
+    private RedisDistributedProperties.KeyPrefix matchKeyPrefix(String key) {
+        for (RedisDistributedProperties.KeyPrefix each : keyPrefixes) {
+            if (key.startsWith(each.getPrefix())) {
+                return each;
+            }
+        }
+        return null;
+    }
+}
@@ -17,29 +17,44 @@
 
 package org.opengoofy.index12306.framework.starter.cache;
 
-import com.alibaba.fastjson2.JSON;
 import com.google.common.collect.Lists;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.opengoofy.index12306.framework.starter.bases.Singleton;
+import org.opengoofy.index12306.framework.starter.cache.codec.CacheValueCodecSelector;
 import org.opengoofy.index12306.framework.starter.cache.config.RedisDistributedProperties;
 import org.opengoofy.index12306.framework.starter.cache.core.CacheGetFilter;
 import org.opengoofy.index12306.framework.starter.cache.core.CacheGetIfAbsent;
 import org.opengoofy.index12306.framework.starter.cache.core.CacheLoader;
 import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
-import org.opengoofy.index12306.framework.starter.cache.toolkit.FastJson2Util;
 import org.redisson.api.RBloomFilter;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.scripting.support.ResourceScriptSource;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 分布式缓存之操作 Redis 模版代理
@@ -48,23 +63,47 @@ import java.util.concurrent.TimeUnit;
  * 使用静态代理的方式实现一个加强后的redission 的加强bean
  *
  */
-@RequiredArgsConstructor
-public class StringRedisTemplateProxy implements DistributedCache {
+@Slf4j
+public class StringRedisTemplateProxy implements DistributedCache, DisposableBean {
 
     private final StringRedisTemplate stringRedisTemplate;
     private final RedisDistributedProperties redisProperties;
     private final RedissonClient redissonClient;
+    private final CacheValueCodecSelector cacheValueCodecSelector;
 
     private static final String LUA_PUT_IF_ALL_ABSENT_SCRIPT_PATH = "lua/putIfAllAbsent.lua";
     private static final String SAFE_GET_DISTRIBUTED_LOCK_KEY_PREFIX = "safe_get_distributed_lock_get:";
+    private static final String EARLY_REFRESH_DELTA_KEY_SUFFIX = ":early_refresh_delta";
+
+    /**
+     * 本节点正在加载的缓存 Key，同一 Key 并发未命中时共享同一次加载结果，每个节点仅一个线程竞争分布式锁
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> safeGetInFlightMap = new ConcurrentHashMap<>();
+
+    /**
+     * 本节点正在提前刷新的缓存 Key，避免同一 Key 重复提交刷新任务
+     */
+    private final Set<String> earlyRefreshingKeys = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 提前刷新线程池，未开启提前刷新时为空
+     */
+    private final ThreadPoolExecutor earlyRefreshExecutor;
+
+    public StringRedisTemplateProxy(StringRedisTemplate stringRedisTemplate, RedisDistributedProperties redisProperties, RedissonClient redissonClient,
+                                    CacheValueCodecSelector cacheValueCodecSelector) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisProperties = redisProperties;
+        this.redissonClient = redissonClient;
+        this.cacheValueCodecSelector = cacheValueCodecSelector;
+        this.earlyRefreshExecutor = Boolean.TRUE.equals(redisProperties.getEarlyRefresh().getEnabled()) ? buildEarlyRefreshExecutor(redisProperties.getEarlyRefresh()) : null;
+    }
 
     @Override
     public <T> T get(String key, Class<T> clazz) {
-        String value = stringRedisTemplate.opsForValue().get(key);
-        if (String.class.isAssignableFrom(clazz)) {
-            return (T) value;
-        }
-        return JSON.parseObject(value, FastJson2Util.buildType(clazz));
+        byte[] rawKey = rawKey(key);
+        byte[] value = stringRedisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawKey));
+        return cacheValueCodecSelector.decode(value, clazz);
     }
 
     @Override
@@ -153,7 +192,9 @@ public class StringRedisTemplateProxy implements DistributedCache {
     @Override
     public <T> T safeGet(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit,
                          RBloomFilter<String> bloomFilter, CacheGetFilter<String> cacheGetFilter, CacheGetIfAbsent<String> cacheGetIfAbsent) {
-        T result = get(key, clazz);
+        T result = isEarlyRefreshKey(key)
+                ? getWithEarlyRefresh(key, clazz, cacheLoader, timeout, timeUnit, bloomFilter)
+                : get(key, clazz);
         // 缓存结果不等于空或空字符串直接返回；通过函数判断是否返回空，
         // 为了适配布隆过滤器无法删除的场景；两者都不成立，判断布隆过滤器是否存在，不存在返回空
         if (!CacheUtil.isNullOrBlank(result)
@@ -161,22 +202,22 @@ public class StringRedisTemplateProxy implements DistributedCache {
                 || Optional.ofNullable(bloomFilter).map(each -> !each.contains(key)).orElse(false)) {
             return result;
         }
-//       获取安全的分布式锁，其前缀为我们的安全的分布式锁的前缀+key 其中key为当前的用户查询的redis的key，保证锁的唯一性
-
-        RLock lock = redissonClient.getLock(SAFE_GET_DISTRIBUTED_LOCK_KEY_PREFIX + key);
-        lock.lock();
+        // 本节点同一 Key 已有线程在加载时直接等待其结果，不再竞争分布式锁
+        CompletableFuture<Object> loadFuture = new CompletableFuture<>();
+        CompletableFuture<Object> inFlightFuture = safeGetInFlightMap.putIfAbsent(key, loadFuture);
+        if (inFlightFuture != null) {
+            return (T) awaitInFlight(inFlightFuture);
+        }
         try {
-            // 双重判定锁，减轻获得分布式锁后线程访问数据库压力
-            if (CacheUtil.isNullOrBlank(result = get(key, clazz))) {
-                // 如果访问 cacheLoader 加载数据为空，执行后置函数操作
-                if (CacheUtil.isNullOrBlank(result = loadAndSet(key, cacheLoader, timeout, timeUnit, true, bloomFilter))) {
-                    Optional.ofNullable(cacheGetIfAbsent).ifPresent(each -> each.execute(key));
-                }
-            }
+            result = safeLoad(key, clazz, cacheLoader, timeout, timeUnit, bloomFilter, cacheGetIfAbsent);
+            loadFuture.complete(result);
+            return result;
+        } catch (Throwable ex) {
+            loadFuture.completeExceptionally(ex);
+            throw ex;
         } finally {
-            lock.unlock();
+            safeGetInFlightMap.remove(key, loadFuture);
         }
-        return result;
     }
 
     @Override
@@ -186,8 +227,10 @@ public class StringRedisTemplateProxy implements DistributedCache {
 
     @Override
     public void put(String key, Object value, long timeout, TimeUnit timeUnit) {
-        String actual = value instanceof String ? (String) value : JSON.toJSONString(value);
-        stringRedisTemplate.opsForValue().set(key, actual, timeout, timeUnit);
+        byte[] rawKey = rawKey(key);
+        byte[] actual = cacheValueCodecSelector.encode(key, value);
+        stringRedisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.stringCommands().set(rawKey, actual, Expiration.from(timeout, timeUnit), RedisStringCommands.SetOption.upsert()));
     }
 
     @Override
@@ -218,7 +261,19 @@ public class StringRedisTemplateProxy implements DistributedCache {
         return stringRedisTemplate.countExistingKeys(Lists.newArrayList(keys));
     }
 
+    @Override
+    public void destroy() {
+        if (earlyRefreshExecutor != null) {
+            earlyRefreshExecutor.shutdown();
+        }
+    }
+
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) stringRedisTemplate.getKeySerializer()).serialize(key);
+    }
+
     private <T> T loadAndSet(String key, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit, boolean safeFlag, RBloomFilter<String> bloomFilter) {
+        long loadBeginTime = System.currentTimeMillis();
         T result = cacheLoader.load();
 //        通过这起始就是在查询我们的数据库并且将其结果返回
         if (CacheUtil.isNullOrBlank(result)) {
@@ -227,9 +282,127 @@ public class StringRedisTemplateProxy implements DistributedCache {
         }
         if (safeFlag) {
             safePut(key, result, timeout, timeUnit, bloomFilter);
+            // 记录本次加载耗时，作为提前刷新的计算成本，与缓存值同时过期
+            if (isEarlyRefreshKey(key)) {
+                long delta = System.currentTimeMillis() - loadBeginTime;
+                stringRedisTemplate.opsForValue().set(key + EARLY_REFRESH_DELTA_KEY_SUFFIX, String.valueOf(delta), timeout, timeUnit);
+            }
         } else {
             put(key, result, timeout, timeUnit);
         }
         return result;
     }
+
+    private <T> T safeLoad(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit,
+                           RBloomFilter<String> bloomFilter, CacheGetIfAbsent<String> cacheGetIfAbsent) {
+        T result;
+//       获取安全的分布式锁，其前缀为我们的安全的分布式锁的前缀+key 其中key为当前的用户查询的redis的key，保证锁的唯一性
+        RLock lock = redissonClient.getLock(SAFE_GET_DISTRIBUTED_LOCK_KEY_PREFIX + key);
+        lock.lock();
+        try {
+            // 双重判定锁，减轻获得分布式锁后线程访问数据库压力
+            if (CacheUtil.isNullOrBlank(result = get(key, clazz))) {
+                // 如果访问 cacheLoader 加载数据为空，执行后置函数操作
+                if (CacheUtil.isNullOrBlank(result = loadAndSet(key, cacheLoader, timeout, timeUnit, true, bloomFilter))) {
+                    Optional.ofNullable(cacheGetIfAbsent).ifPresent(each -> each.execute(key));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    private Object awaitInFlight(CompletableFuture<Object> inFlightFuture) {
+        try {
+            return inFlightFuture.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+
+    private boolean isEarlyRefreshKey(String key) {
+        if (earlyRefreshExecutor == null) {
+            return false;
+        }
+        List<String> keyPrefixes = redisProperties.getEarlyRefresh().getKeyPrefixes();
+        return keyPrefixes.isEmpty() || keyPrefixes.stream().anyMatch(key::startsWith);
+    }
+
+    /**
+     * 一次往返读取缓存值、加载耗时与剩余过期时间，按 XFetch 算法判断是否提前刷新
+     * 触发条件：-delta * beta * ln(random) >= ttl，加载越慢、越临近过期，触发概率越高
+     */
+    private <T> T getWithEarlyRefresh(String key, Class<T> clazz, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit,
+                                      RBloomFilter<String> bloomFilter) {
+        byte[] rawKey = rawKey(key);
+        byte[] rawDeltaKey = rawKey(key + EARLY_REFRESH_DELTA_KEY_SUFFIX);
+        List<Object> pipelineResults = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.stringCommands().get(rawKey);
+            connection.stringCommands().get(rawDeltaKey);
+            connection.keyCommands().pTtl(rawKey);
+            return null;
+        }, RedisSerializer.byteArray());
+        T result = cacheValueCodecSelector.decode((byte[]) pipelineResults.get(0), clazz);
+        Object delta = pipelineResults.get(1);
+        Object ttl = pipelineResults.get(2);
+        if (CacheUtil.isNullOrBlank(result) || delta == null || !(ttl instanceof Long ttlMillis) || ttlMillis <= 0) {
+            return result;
+        }
+        double beta = redisProperties.getEarlyRefresh().getBeta();
+        if (-Long.parseLong(new String((byte[]) delta, StandardCharsets.UTF_8)) * beta * Math.log(ThreadLocalRandom.current().nextDouble()) >= ttlMillis) {
+            submitEarlyRefresh(key, cacheLoader, timeout, timeUnit, bloomFilter);
+        }
+        return result;
+    }
+
+    private <T> void submitEarlyRefresh(String key, CacheLoader<T> cacheLoader, long timeout, TimeUnit timeUnit, RBloomFilter<String> bloomFilter) {
+        if (!earlyRefreshingKeys.add(key)) {
+            return;
+        }
+        try {
+            earlyRefreshExecutor.execute(() -> {
+                // 其它节点正在加载或刷新时放弃本次刷新，调用方仍读取当前缓存值
+                RLock lock = redissonClient.getLock(SAFE_GET_DISTRIBUTED_LOCK_KEY_PREFIX + key);
+                try {
+                    if (lock.tryLock()) {
+                        try {
+                            loadAndSet(key, cacheLoader, timeout, timeUnit, true, bloomFilter);
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                } catch (Throwable ex) {
+                    log.error("缓存提前刷新失败，Key：{}", key, ex);
+                } finally {
+                    earlyRefreshingKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            earlyRefreshingKeys.remove(key);
+        }
+    }
+
+    private static ThreadPoolExecutor buildEarlyRefreshExecutor(RedisDistributedProperties.EarlyRefresh earlyRefresh) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                earlyRefresh.getRefreshThreads(),
+                earlyRefresh.getRefreshThreads(),
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(earlyRefresh.getRefreshQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-early-refresh-executor_" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
 }
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache.codec;
+
+import java.lang.reflect.Type;
+
+/**
+ * 缓存值编码扩展点，实现类注册为 Spring Bean 后可通过 framework.cache.redis.codec 按 Key 前缀选用
+ * 编码后的缓存值以 {@link CacheValueCodecSelector#MAGIC} + 编码标识 + 编码版本作为头部，未携带头部的缓存值按原 JSON 字符串读取
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public interface CacheValueCodec {
+
+    /**
+     * 编码名称，配置中通过该名称引用
+     */
+    String name();
+
+    /**
+     * 编码标识，写入缓存值头部，全局唯一且上线后不可变更
+     */
+    byte id();
+
+    /**
+     * 当前编码版本，编码格式不兼容变更时递增，解码时需兼容历史版本
+     */
+    byte version();
+
+    /**
+     * 编码缓存值
+     *
+     * @param value 缓存值
+     * @return 不包含头部的编码结果
+     */
+    byte[] encode(Object value);
+
+    /**
+     * 解码缓存值
+     *
+     * @param payload 不包含头部的编码结果
+     * @param version 写入时的编码版本
+     * @param type    目标类型
+     * @return 缓存值
+     */
+    <T> T decode(byte[] payload, byte version, Type type);
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache.codec;
+
+import com.alibaba.fastjson2.JSON;
+import org.opengoofy.index12306.framework.starter.cache.config.RedisDistributedProperties;
+import org.opengoofy.index12306.framework.starter.cache.toolkit.FastJson2Util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 缓存值编码选择器，写入时按 Key 前缀选择编码，读取时按缓存值头部选择解码
+ * <p>
+ * 未配置编码的 Key 仍写入 JSON 字符串；读取时始终兼容 JSON 字符串与全部已注册编码，
+ * 滚动升级时先发布可读取新编码的版本，再为 Key 前缀配置新编码，切换期间新旧格式可共存
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public class CacheValueCodecSelector {
+
+    /**
+     * 编码头部标记，UTF-8 编码的 JSON 字符串不会出现该字节
+     */
+    public static final byte MAGIC = (byte) 0xFF;
+
+    private static final int HEADER_LENGTH = 3;
+
+    private final Map<String, CacheValueCodec> codecNameMap = new HashMap<>();
+    private final Map<Byte, CacheValueCodec> codecIdMap = new HashMap<>();
+    private final List<RedisDistributedProperties.CodecKeyPrefix> keyPrefixes;
+
+    public CacheValueCodecSelector(List<CacheValueCodec> codecs, RedisDistributedProperties.Codec codecProperties) {
+        for (CacheValueCodec each : codecs) {
+            if (codecIdMap.putIfAbsent(each.id(), each) != null || codecNameMap.putIfAbsent(each.name(), each) != null) {
+                throw new IllegalArgumentException("缓存值编码标识或名称重复：" + each.name());
+            }
+        }
+        // 前缀越长越精确，优先匹配
+        this.keyPrefixes = codecProperties.getKeyPrefixes().stream()
+                .sorted(Comparator.comparingInt((RedisDistributedProperties.CodecKeyPrefix each) -> each.getPrefix().length()).reversed())
+                .collect(Collectors.toList());
+        keyPrefixes.forEach(each -> {
+            if (!codecNameMap.containsKey(each.getCodec())) {
+                throw new IllegalArgumentException("未注册的缓存值编码：" + each.getCodec());
+            }
+        });
+    }
+
+    /**
+     * 编码缓存值，字符串及未配置编码的 Key 写入 JSON 字符串
+     */
+    public byte[] encode(String key, Object value) {
+        if (value instanceof String) {
+            return ((String) value).getBytes(StandardCharsets.UTF_8);
+        }
+        CacheValueCodec codec = matchCodec(key);
+        if (codec == null) {
+            return JSON.toJSONString(value).getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] payload = codec.encode(value);
+        byte[] result = new byte[HEADER_LENGTH + payload.length];
+        result[0] = MAGIC;
+        result[1] = codec.id();
+        result[2] = codec.version();
+        System.arraycopy(payload, 0, result, HEADER_LENGTH, payload.length);
+        return result;
+    }
+
+    /**
+     * 解码缓存值，读取字符串类型时二进制编码的缓存值转换为 JSON 字符串返回
+     */
+    public <T> T decode(byte[] value, Class<T> clazz) {
+        if (value == null) {
+            return null;
+        }
+        if (value.length < HEADER_LENGTH || value[0] != MAGIC) {
+            String actual = new String(value, StandardCharsets.UTF_8);
+            if (String.class.isAssignableFrom(clazz)) {
+                return (T) actual;
+            }
+            return JSON.parseObject(actual, FastJson2Util.buildType(clazz));
+        }
+        CacheValueCodec codec = codecIdMap.get(value[1]);
+        if (codec == null) {
+            throw new IllegalStateException("未注册的缓存值编码标识：" + value[1]);
+        }
+        byte[] payload = Arrays.copyOfRange(value, HEADER_LENGTH, value.length);
+        if (String.class.isAssignableFrom(clazz)) {
+            return (T) JSON.toJSONString(codec.decode(payload, value[2], Object.class));
+        }
+        return codec.decode(payload, value[2], clazz);
+    }
+
+    private CacheValueCodec matchCodec(String key) {
+        for (RedisDistributedProperties.CodecKeyPrefix each : keyPrefixes) {
+            if (key.startsWith(each.getPrefix())) {
+                return codecNameMap.get(each.getCodec());
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.cache.codec;
+
+import com.alibaba.fastjson2.JSONB;
+
+import java.lang.reflect.Type;
+
+/**
+ * FastJson2 JSONB 二进制编码，相比 JSON 字符串体积更小、解析更快，字段按名称匹配，新增或删除字段可前后兼容
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public class JsonbCacheValueCodec implements CacheValueCodec {
+
+    public static final String NAME = "jsonb";
+
+    private static final byte ID = 1;
+    private static final byte VERSION = 1;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte id() {
+        return ID;
+    }
+
+    @Override
+    public byte version() {
+        return VERSION;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        return JSONB.toBytes(value);
+    }
+
+    @Override
+    public <T> T decode(byte[] payload, byte version, Type type) {
+        if (version != VERSION) {
+            throw new IllegalStateException("不支持的 JSONB 缓存编码版本：" + version);
+        }
+        return JSONB.parseObject(payload, type);
+    }
+}
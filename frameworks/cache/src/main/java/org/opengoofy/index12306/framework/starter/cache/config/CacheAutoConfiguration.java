@@ -17,15 +17,29 @@
 
 package org.opengoofy.index12306.framework.starter.cache.config;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.AllArgsConstructor;
+import org.opengoofy.index12306.framework.starter.cache.MultistageCacheProxy;
 import org.opengoofy.index12306.framework.starter.cache.RedisKeySerializer;
 import org.opengoofy.index12306.framework.starter.cache.StringRedisTemplateProxy;
+import org.opengoofy.index12306.framework.starter.cache.codec.CacheValueCodec;
+import org.opengoofy.index12306.framework.starter.cache.codec.CacheValueCodecSelector;
+import org.opengoofy.index12306.framework.starter.cache.codec.JsonbCacheValueCodec;
 import org.redisson.api.RBloomFilter;
 import org.redisson.api.RedissonClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
 
 /**
  * 缓存配置自动装配
@@ -60,12 +74,67 @@ public class CacheAutoConfiguration {
         return cachePenetrationBloomFilter;
     }
 
+    /**
+     * JSONB 二进制缓存值编码
+     */
+    @Bean
+    public JsonbCacheValueCodec jsonbCacheValueCodec() {
+        return new JsonbCacheValueCodec();
+    }
+
+    /**
+     * 缓存值编码选择器，自定义编码注册为 {@link CacheValueCodec} Bean 即可按 Key 前缀选用
+     */
+    @Bean
+    public CacheValueCodecSelector cacheValueCodecSelector(List<CacheValueCodec> cacheValueCodecs) {
+        return new CacheValueCodecSelector(cacheValueCodecs, redisDistributedProperties.getCodec());
+    }
+
     @Bean
     // 静态代理模式: Redis 客户端代理类增强
     public StringRedisTemplateProxy stringRedisTemplateProxy(RedisKeySerializer redisKeySerializer,
                                                              StringRedisTemplate stringRedisTemplate,
-                                                             RedissonClient redissonClient) {
+                                                             RedissonClient redissonClient,
+                                                             CacheValueCodecSelector cacheValueCodecSelector) {
         stringRedisTemplate.setKeySerializer(redisKeySerializer);
-        return new StringRedisTemplateProxy(stringRedisTemplate, redisDistributedProperties, redissonClient);
+        return new StringRedisTemplateProxy(stringRedisTemplate, redisDistributedProperties, redissonClient, cacheValueCodecSelector);
+    }
+
+    /**
+     * 多级缓存代理，开启后作为首选 {@link org.opengoofy.index12306.framework.starter.cache.DistributedCache} 注入
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = RedisDistributedProperties.PREFIX, name = "multistage.enabled", havingValue = "true")
+    public MultistageCacheProxy multistageCacheProxy(StringRedisTemplateProxy stringRedisTemplateProxy,
+                                                     StringRedisTemplate stringRedisTemplate) {
+        return new MultistageCacheProxy(stringRedisTemplateProxy, stringRedisTemplate, redisDistributedProperties.getMultistage());
+    }
+
+    /**
+     * 订阅多级缓存失效通知，失效当前节点本地缓存
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = RedisDistributedProperties.PREFIX, name = "multistage.enabled", havingValue = "true")
+    public RedisMessageListenerContainer multistageCacheInvalidateListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                                   MultistageCacheProxy multistageCacheProxy) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(multistageCacheProxy, new ChannelTopic(redisDistributedProperties.getMultistage().getInvalidateChannel()));
+        return container;
+    }
+
+    /**
+     * 多级缓存本地缓存命中率指标，指标名称前缀 multistage_local_cache
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    @ConditionalOnProperty(prefix = RedisDistributedProperties.PREFIX, name = "multistage.enabled", havingValue = "true")
+    static class MultistageCacheMetricsConfiguration {
+
+        @Bean
+        public MeterBinder multistageCacheMeterBinder(MultistageCacheProxy multistageCacheProxy) {
+            return registry -> CaffeineCacheMetrics.monitor(registry, multistageCacheProxy.getLocalCache(), "multistage_local_cache");
+        }
     }
 }
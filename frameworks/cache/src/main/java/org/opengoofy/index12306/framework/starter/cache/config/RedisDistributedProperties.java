@@ -20,6 +20,8 @@ package org.opengoofy.index12306.framework.starter.cache.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -51,4 +53,130 @@ public class RedisDistributedProperties {
      * 时间单位
      */
     private TimeUnit valueTimeUnit = TimeUnit.MILLISECONDS;
+
+    /**
+     * 多级缓存配置
+     */
+    private Multistage multistage = new Multistage();
+
+    /**
+     * 缓存提前刷新配置
+     */
+    private EarlyRefresh earlyRefresh = new EarlyRefresh();
+
+    /**
+     * 缓存值编码配置
+     */
+    private Codec codec = new Codec();
+
+    /**
+     * 多级缓存配置，仅命中 {@link Multistage#keyPrefixes} 的 Key 才会使用本地缓存
+     */
+    @Data
+    public static class Multistage {
+
+        /**
+         * 是否开启多级缓存
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 本地缓存最大条目数
+         */
+        private Long maximumSize = 10000L;
+
+        /**
+         * 跨节点本地缓存失效通知频道
+         */
+        private String invalidateChannel = "framework_cache_multistage_invalidate";
+
+        /**
+         * 接入本地缓存的 Key 前缀集合
+         */
+        private List<KeyPrefix> keyPrefixes = new ArrayList<>();
+    }
+
+    /**
+     * 缓存提前刷新配置，仅对 safeGet 读取的 Key 生效
+     * 按 XFetch 算法在过期前概率性触发异步刷新，刷新期间调用方继续读取当前缓存值
+     */
+    @Data
+    public static class EarlyRefresh {
+
+        /**
+         * 是否开启提前刷新
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 提前刷新系数，越大越早触发刷新
+         */
+        private Double beta = 1.0D;
+
+        /**
+         * 接入提前刷新的 Key 前缀集合，为空时对全部 safeGet Key 生效
+         */
+        private List<String> keyPrefixes = new ArrayList<>();
+
+        /**
+         * 异步刷新线程数
+         */
+        private Integer refreshThreads = 2;
+
+        /**
+         * 异步刷新队列容量，队列已满时放弃本次刷新
+         */
+        private Integer refreshQueueCapacity = 1024;
+    }
+
+    /**
+     * 缓存值编码配置，未命中 {@link Codec#keyPrefixes} 的 Key 仍写入 JSON 字符串
+     */
+    @Data
+    public static class Codec {
+
+        /**
+         * 按 Key 前缀选用的缓存值编码集合
+         */
+        private List<CodecKeyPrefix> keyPrefixes = new ArrayList<>();
+    }
+
+    /**
+     * 缓存值编码 Key 前缀配置
+     */
+    @Data
+    public static class CodecKeyPrefix {
+
+        /**
+         * Key 前缀
+         */
+        private String prefix;
+
+        /**
+         * 编码名称，对应 {@link org.opengoofy.index12306.framework.starter.cache.codec.CacheValueCodec#name()}
+         */
+        private String codec;
+    }
+
+    /**
+     * 本地缓存 Key 前缀配置
+     */
+    @Data
+    public static class KeyPrefix {
+
+        /**
+         * Key 前缀
+         */
+        private String prefix;
+
+        /**
+         * 本地缓存超时时间
+         */
+        private Long timeout = 60L;
+
+        /**
+         * 时间单位
+         */
+        private TimeUnit timeUnit = TimeUnit.SECONDS;
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.framework.starter.common.threadpool.build;
+
+import org.opengoofy.index12306.framework.starter.common.toolkit.Assert;
+import org.opengoofy.index12306.framework.starter.designpattern.builder.Builder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程执行器 {@link ExecutorService} 构建器, 构建者模式
+ * 每个任务运行在一个新的虚拟线程上，适用于远程调用、分布式锁、JDBC 等阻塞 IO 场景，CPU 密集型任务仍应使用 {@link ThreadPoolBuilder}
+ * 项目基线为 JDK 17，虚拟线程相关 API 通过反射调用，运行时 JDK 低于 21 时 {@link #build()} 抛出异常
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public final class VirtualThreadExecutorBuilder implements Builder<ExecutorService> {
+
+    private static final long serialVersionUID = 1L;
+
+    private String threadNamePrefix;
+
+    public VirtualThreadExecutorBuilder threadFactory(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+        return this;
+    }
+
+    public static VirtualThreadExecutorBuilder builder() {
+        return new VirtualThreadExecutorBuilder();
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public ExecutorService build() {
+        Assert.notEmpty(threadNamePrefix, "The thread name prefix cannot be empty or an empty string.");
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require JDK 21 or later, current version: " + Runtime.version());
+        }
+        try {
+            // 等价于 Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix + "_", 0).factory())
+            Class<?> threadBuilderClass = Class.forName("java.lang.Thread$Builder");
+            Object threadBuilder = Thread.class.getMethod("ofVirtual").invoke(null);
+            threadBuilder = threadBuilderClass.getMethod("name", String.class, long.class).invoke(threadBuilder, threadNamePrefix + "_", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) threadBuilderClass.getMethod("factory").invoke(threadBuilder);
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException ex) {
+            throw new IllegalStateException("Error creating virtual thread executor.", ex);
+        }
+    }
+}
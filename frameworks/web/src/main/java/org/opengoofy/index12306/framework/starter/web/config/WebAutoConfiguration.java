@@ -17,10 +17,13 @@
 
 package org.opengoofy.index12306.framework.starter.web.config;
 
+import org.opengoofy.index12306.framework.starter.common.threadpool.build.VirtualThreadExecutorBuilder;
 import org.opengoofy.index12306.framework.starter.web.GlobalExceptionHandler;
 import org.opengoofy.index12306.framework.starter.web.initialize.InitializeDispatcherServletController;
 import org.opengoofy.index12306.framework.starter.web.initialize.InitializeDispatcherServletHandler;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.http.client.ClientHttpRequestFactory;
@@ -64,4 +67,14 @@ public class WebAutoConfiguration {
         return new InitializeDispatcherServletHandler(simpleRestTemplate, configurableEnvironment);
     }
 
+    /**
+     * Tomcat 请求处理线程替换为虚拟线程，需运行在 JDK 21+
+     * 配置项与 Spring Boot 3.2 保持一致，升级后可直接移除本配置
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreadExecutorBuilder.builder().threadFactory("tomcat-handler").build());
+    }
+
 }
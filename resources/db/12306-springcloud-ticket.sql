@@ -77,6 +77,23 @@ CREATE TABLE `t_ticket`
     PRIMARY KEY (`id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=1682790903965503489 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='车票表';
 
+CREATE TABLE `t_ticket_order_pending`
+(
+    `id`            bigint(20) unsigned NOT NULL AUTO_INCREMENT COMMENT 'ID',
+    `order_sn`      varchar(64) COLLATE utf8mb4_unicode_ci  DEFAULT NULL COMMENT '订单号',
+    `user_id`       bigint(20) DEFAULT NULL COMMENT '用户ID',
+    `username`      varchar(256) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '用户名',
+    `train_id`      bigint(20) DEFAULT NULL COMMENT '列车ID',
+    `order_payload` text COLLATE utf8mb4_unicode_ci COMMENT '创建订单请求参数',
+    `status`        int(3) DEFAULT NULL COMMENT '状态 0：订单创建中 1：订单已创建',
+    `create_time`   datetime                                DEFAULT NULL COMMENT '创建时间',
+    `update_time`   datetime                                DEFAULT NULL COMMENT '修改时间',
+    `del_flag`      tinyint(1) DEFAULT NULL COMMENT '删除标识',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_order_sn` (`order_sn`),
+    KEY `idx_status_update_time` (`status`, `update_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='待创建车票订单表';
+
 CREATE TABLE `t_train`
 (
     `id`             bigint(20) unsigned NOT NULL AUTO_INCREMENT COMMENT 'ID',
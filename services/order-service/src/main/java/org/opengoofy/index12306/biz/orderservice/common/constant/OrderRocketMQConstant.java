@@ -57,4 +57,19 @@ public final class OrderRocketMQConstant {
      * 退款结果回调订单消费者组 Key
      */
     public static final String REFUND_RESULT_CALLBACK_ORDER_CG_KEY = "index12306_pay-service_refund-result-callback-order_cg${unique-name:}";
+
+    /**
+     * 购票服务异步创建订单 Topic Key
+     */
+    public static final String TICKET_ORDER_CREATE_TOPIC_KEY = "index12306_ticket-service_order-create_topic${unique-name:}";
+
+    /**
+     * 购票服务异步创建订单 Tag Key
+     */
+    public static final String TICKET_ORDER_CREATE_TAG_KEY = "index12306_ticket-service_order-create_tag${unique-name:}";
+
+    /**
+     * 购票服务异步创建订单消费者组 Key
+     */
+    public static final String TICKET_ORDER_CREATE_ORDER_CG_KEY = "index12306_ticket-service_order-create-order_cg${unique-name:}";
 }
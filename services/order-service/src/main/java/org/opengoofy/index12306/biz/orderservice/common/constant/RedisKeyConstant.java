@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.orderservice.common.constant;
+
+/**
+ * Redis Key 定义常量类
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public final class RedisKeyConstant {
+
+    /**
+     * 延迟关闭订单队列分片，Key Prefix + 分片号
+     * 与购票服务约定一致，修改时需同步调整购票服务
+     */
+    public static final String ORDER_DELAY_CLOSE_QUEUE = "index12306-order-service:delay_close_order_queue:";
+
+    /**
+     * 延迟关闭订单队列分片数量，由订单服务启动时写入，购票服务据此拉取全部分片
+     * 与购票服务约定一致，修改时需同步调整购票服务
+     */
+    public static final String ORDER_DELAY_CLOSE_QUEUE_SHARD_COUNT = "index12306-order-service:delay_close_order_queue_shard_count";
+}
@@ -59,6 +59,14 @@ public class TicketOrderController {
         return Results.success(orderService.queryTicketOrderByOrderSn(orderSn));
     }
 
+    /**
+     * 根据订单号集合批量查询车票订单
+     */
+    @PostMapping("/api/order-service/order/ticket/query/batch")
+    public Result<List<TicketOrderDetailRespDTO>> listTicketOrderByOrderSns(@RequestBody List<String> orderSns) {
+        return Results.success(orderService.listTicketOrderByOrderSns(orderSns));
+    }
+
     /**
      * 根据子订单记录id查询车票子订单详情
      */
@@ -92,6 +100,14 @@ public class TicketOrderController {
         return Results.success(orderService.createTicketOrder(requestParam));
     }
 
+    /**
+     * 车票订单批量创建
+     */
+    @PostMapping("/api/order-service/order/ticket/create/batch")
+    public Result<List<String>> createTicketOrderBatch(@RequestBody List<TicketOrderCreateReqDTO> requestParams) {
+        return Results.success(orderService.createTicketOrderBatch(requestParams));
+    }
+
     /**
      * 车票订单关闭
      */
@@ -100,6 +116,14 @@ public class TicketOrderController {
         return Results.success(orderService.closeTickOrder(requestParam));
     }
 
+    /**
+     * 车票订单批量关闭
+     */
+    @PostMapping("/api/order-service/order/ticket/close/batch")
+    public Result<List<String>> closeTickOrderBatch(@RequestBody List<String> orderSns) {
+        return Results.success(orderService.closeTickOrderBatch(orderSns));
+    }
+
     /**
      * 车票订单取消
      */
@@ -74,16 +74,18 @@ public class OrderCommonDataBaseComplexAlgorithm implements ComplexKeysShardingA
                 // 如果对订单中的 SQL 语句不包含用户 ID 那么就要从订单号中获取后六位，也就是用户 ID 后六位
                 // 流程同用户 ID 获取流程
                 String orderSn = "order_sn";
-                String dbSuffix;
                 Collection<Comparable<?>> orderSnCollection = columnNameAndShardingValuesMap.get(orderSn);
-                Comparable<?> comparable = orderSnCollection.stream().findFirst().get();
-                if (comparable instanceof String) {
-                    String actualOrderSn = comparable.toString();
-                    dbSuffix = String.valueOf(hashShardingValue(actualOrderSn.substring(Math.max(actualOrderSn.length() - 6, 0))) % shardingCount / tableShardingCount);
-                } else {
-                    dbSuffix = String.valueOf(hashShardingValue((Long) comparable % 1000000) % shardingCount / tableShardingCount);
+                // 按订单号批量查询时 IN 条件包含多个订单号，需路由至全部订单号对应的分库
+                for (Comparable<?> comparable : orderSnCollection) {
+                    String dbSuffix;
+                    if (comparable instanceof String) {
+                        String actualOrderSn = comparable.toString();
+                        dbSuffix = String.valueOf(hashShardingValue(actualOrderSn.substring(Math.max(actualOrderSn.length() - 6, 0))) % shardingCount / tableShardingCount);
+                    } else {
+                        dbSuffix = String.valueOf(hashShardingValue((Long) comparable % 1000000) % shardingCount / tableShardingCount);
+                    }
+                    result.add("ds_" + dbSuffix);
                 }
-                result.add("ds_" + dbSuffix);
             }
         }
 //        返回的是表名字
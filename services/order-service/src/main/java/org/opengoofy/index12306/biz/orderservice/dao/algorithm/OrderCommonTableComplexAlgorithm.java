@@ -63,13 +63,15 @@ public class OrderCommonTableComplexAlgorithm implements ComplexKeysShardingAlgo
             } else {
                 String orderSn = "order_sn";
                 Collection<Comparable<?>> orderSnCollection = columnNameAndShardingValuesMap.get(orderSn);
-                Comparable<?> comparable = orderSnCollection.stream().findFirst().get();
-                if (comparable instanceof String) {
-                    String actualOrderSn = comparable.toString();
-                    result.add(shardingValue.getLogicTableName() + "_" + hashShardingValue(actualOrderSn.substring(Math.max(actualOrderSn.length() - 6, 0))) % shardingCount);
-                } else {
-                    String dbSuffix = String.valueOf(hashShardingValue((Long) comparable % 1000000) % shardingCount);
-                    result.add(shardingValue.getLogicTableName() + "_" + dbSuffix);
+                // 按订单号批量查询时 IN 条件包含多个订单号，需路由至全部订单号对应的分表
+                for (Comparable<?> comparable : orderSnCollection) {
+                    if (comparable instanceof String) {
+                        String actualOrderSn = comparable.toString();
+                        result.add(shardingValue.getLogicTableName() + "_" + hashShardingValue(actualOrderSn.substring(Math.max(actualOrderSn.length() - 6, 0))) % shardingCount);
+                    } else {
+                        String dbSuffix = String.valueOf(hashShardingValue((Long) comparable % 1000000) % shardingCount);
+                        result.add(shardingValue.getLogicTableName() + "_" + dbSuffix);
+                    }
                 }
             }
         }
@@ -29,6 +29,11 @@ import java.util.List;
 @Data
 public class TicketOrderCreateReqDTO {
 
+    /**
+     * 订单号，异步创建订单时由购票服务预先生成，为空时由订单服务生成
+     */
+    private String orderSn;
+
     /**
      * 用户 ID
      */
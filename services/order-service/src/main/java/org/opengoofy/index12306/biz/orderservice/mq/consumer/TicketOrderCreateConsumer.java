@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.orderservice.mq.consumer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.opengoofy.index12306.biz.orderservice.common.constant.OrderRocketMQConstant;
+import org.opengoofy.index12306.biz.orderservice.dto.req.TicketOrderCreateReqDTO;
+import org.opengoofy.index12306.biz.orderservice.mq.domain.MessageWrapper;
+import org.opengoofy.index12306.biz.orderservice.mq.event.TicketOrderCreateEvent;
+import org.opengoofy.index12306.biz.orderservice.service.OrderService;
+import org.opengoofy.index12306.framework.starter.idempotent.annotation.Idempotent;
+import org.opengoofy.index12306.framework.starter.idempotent.enums.IdempotentSceneEnum;
+import org.opengoofy.index12306.framework.starter.idempotent.enums.IdempotentTypeEnum;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 异步创建车票订单消费者
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@RocketMQMessageListener(
+        topic = OrderRocketMQConstant.TICKET_ORDER_CREATE_TOPIC_KEY,
+        selectorExpression = OrderRocketMQConstant.TICKET_ORDER_CREATE_TAG_KEY,
+        consumerGroup = OrderRocketMQConstant.TICKET_ORDER_CREATE_ORDER_CG_KEY
+)
+public class TicketOrderCreateConsumer implements RocketMQListener<MessageWrapper<TicketOrderCreateEvent>> {
+
+    private final OrderService orderService;
+
+    @Idempotent(
+            uniqueKeyPrefix = "index12306-order:ticket_order_create:",
+            key = "#message.getMessage().getOrderCreateParam().getOrderSn()",
+            type = IdempotentTypeEnum.SPEL,
+            scene = IdempotentSceneEnum.MQ,
+            keyTimeout = 7200L
+    )
+    @Override
+    public void onMessage(MessageWrapper<TicketOrderCreateEvent> message) {
+        TicketOrderCreateReqDTO requestParam = message.getMessage().getOrderCreateParam();
+        // 购票服务可能重新投递同一订单号的消息，幂等标识按订单号生成，幂等标识过期后由订单存在判断与订单号唯一索引兜底
+        if (orderService.queryTicketOrderByOrderSn(requestParam.getOrderSn()) != null) {
+            log.info("[异步创建订单] 订单已存在，忽略重复消息，订单号：{}", requestParam.getOrderSn());
+            return;
+        }
+        try {
+            orderService.createTicketOrderBatch(List.of(requestParam));
+        } catch (DuplicateKeyException ex) {
+            log.info("[异步创建订单] 订单已被并发创建，忽略重复消息，订单号：{}", requestParam.getOrderSn());
+        }
+    }
+}
@@ -27,6 +27,8 @@ import org.opengoofy.index12306.biz.orderservice.dto.resp.TicketOrderDetailSelfR
 import org.opengoofy.index12306.biz.orderservice.mq.event.PayResultCallbackOrderEvent;
 import org.opengoofy.index12306.framework.starter.convention.page.PageResponse;
 
+import java.util.List;
+
 /**
  * 订单接口层
  * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
@@ -41,6 +43,14 @@ public interface OrderService {
      */
     TicketOrderDetailRespDTO queryTicketOrderByOrderSn(String orderSn);
 
+    /**
+     * 跟据订单号集合批量查询车票订单
+     *
+     * @param orderSns 订单号集合
+     * @return 订单详情集合，不存在的订单不返回
+     */
+    List<TicketOrderDetailRespDTO> listTicketOrderByOrderSns(List<String> orderSns);
+
     /**
      * 跟据用户名分页查询车票订单
      *
@@ -57,6 +67,14 @@ public interface OrderService {
      */
     String createTicketOrder(TicketOrderCreateReqDTO requestParam);
 
+    /**
+     * 批量创建火车票订单，所有订单在同一事务内落库
+     *
+     * @param requestParams 商品订单入参集合
+     * @return 与入参顺序一致的订单号集合
+     */
+    List<String> createTicketOrderBatch(List<TicketOrderCreateReqDTO> requestParams);
+
     /**
      * 关闭火车票订单
      *
@@ -64,6 +82,14 @@ public interface OrderService {
      */
     boolean closeTickOrder(CancelTicketOrderReqDTO requestParam);
 
+    /**
+     * 批量关闭火车票订单，仅关闭仍处于待支付状态的订单
+     *
+     * @param orderSns 订单号集合
+     * @return 本次实际关闭的订单号集合
+     */
+    List<String> closeTickOrderBatch(List<String> orderSns);
+
     /**
      * 取消火车票订单
      *
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.orderservice.service.delayclose;
+
+import cn.hutool.core.collection.CollUtil;
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.opengoofy.index12306.biz.orderservice.common.constant.RedisKeyConstant.ORDER_DELAY_CLOSE_QUEUE;
+import static org.opengoofy.index12306.biz.orderservice.common.constant.RedisKeyConstant.ORDER_DELAY_CLOSE_QUEUE_SHARD_COUNT;
+
+/**
+ * 延迟关闭订单队列
+ * <p>
+ * 开启方式：order.delay-close.type=redis，默认仍投递 RocketMQ 延迟消息
+ * 订单号按哈希散列至多个 ZSET 分片，Score 为到期时间戳，由购票服务按分片批量弹出并批量关闭
+ * 分片数量仅在本服务配置，启动时写入 Redis，购票服务读取后拉取对应分片
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Component
+@RequiredArgsConstructor
+public class DelayCloseOrderQueue implements InitializingBean {
+
+    private static final String REDIS_DELAY_CLOSE_TYPE = "redis";
+
+    private final DistributedCache distributedCache;
+
+    @Value("${order.delay-close.type:}")
+    private String delayCloseType;
+
+    @Value("${order.delay-close.queue.shard-count:16}")
+    private int shardCount;
+
+    @Value("${order.delay-close.delay-seconds:600}")
+    private long delaySeconds;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!isEnabled()) {
+            return;
+        }
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        stringRedisTemplate.opsForValue().set(ORDER_DELAY_CLOSE_QUEUE_SHARD_COUNT, String.valueOf(shardCount));
+    }
+
+    /**
+     * 是否使用 Redis 延迟队列关闭订单
+     */
+    public boolean isEnabled() {
+        return REDIS_DELAY_CLOSE_TYPE.equals(delayCloseType);
+    }
+
+    /**
+     * 批量加入延迟关闭队列，一次 Pipeline 写入全部分片
+     *
+     * @param orderSns 订单号集合
+     */
+    public void offer(List<String> orderSns) {
+        if (CollUtil.isEmpty(orderSns)) {
+            return;
+        }
+        double dueTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(delaySeconds);
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                orderSns.forEach(each -> redisOperations.opsForZSet().add(ORDER_DELAY_CLOSE_QUEUE + shard(each), each, dueTime));
+                return null;
+            }
+        });
+    }
+
+    private int shard(String orderSn) {
+        return (orderSn.hashCode() & Integer.MAX_VALUE) % shardCount;
+    }
+}
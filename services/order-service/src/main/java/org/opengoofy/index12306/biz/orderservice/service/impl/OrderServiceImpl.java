@@ -17,8 +17,10 @@
 
 package org.opengoofy.index12306.biz.orderservice.service.impl;
 
+import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.ListUtil;
 import cn.hutool.core.text.StrBuilder;
+import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson2.JSON;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
@@ -53,6 +55,7 @@ import org.opengoofy.index12306.biz.orderservice.remote.dto.UserQueryActualRespD
 import org.opengoofy.index12306.biz.orderservice.service.OrderItemService;
 import org.opengoofy.index12306.biz.orderservice.service.OrderPassengerRelationService;
 import org.opengoofy.index12306.biz.orderservice.service.OrderService;
+import org.opengoofy.index12306.biz.orderservice.service.delayclose.DelayCloseOrderQueue;
 import org.opengoofy.index12306.biz.orderservice.service.orderid.OrderIdGeneratorManager;
 import org.opengoofy.index12306.framework.starter.common.toolkit.BeanUtil;
 import org.opengoofy.index12306.framework.starter.convention.exception.ClientException;
@@ -68,7 +71,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * 订单服务接口层实现
@@ -85,6 +90,7 @@ public class OrderServiceImpl implements OrderService {
     private final OrderPassengerRelationService orderPassengerRelationService;
     private final RedissonClient redissonClient;
     private final DelayCloseOrderSendProduce delayCloseOrderSendProduce;
+    private final DelayCloseOrderQueue delayCloseOrderQueue;
     private final UserRemoteService userRemoteService;
 
     @Override
@@ -92,6 +98,9 @@ public class OrderServiceImpl implements OrderService {
         LambdaQueryWrapper<OrderDO> queryWrapper = Wrappers.lambdaQuery(OrderDO.class)
                 .eq(OrderDO::getOrderSn, orderSn);
         OrderDO orderDO = orderMapper.selectOne(queryWrapper);
+        if (orderDO == null) {
+            return null;
+        }
         TicketOrderDetailRespDTO result = BeanUtil.convert(orderDO, TicketOrderDetailRespDTO.class);
         LambdaQueryWrapper<OrderItemDO> orderItemQueryWrapper = Wrappers.lambdaQuery(OrderItemDO.class)
                 .eq(OrderItemDO::getOrderSn, orderSn);
@@ -100,6 +109,28 @@ public class OrderServiceImpl implements OrderService {
         return result;
     }
 
+    @Override
+    public List<TicketOrderDetailRespDTO> listTicketOrderByOrderSns(List<String> orderSns) {
+        if (CollUtil.isEmpty(orderSns)) {
+            return new ArrayList<>();
+        }
+        LambdaQueryWrapper<OrderDO> queryWrapper = Wrappers.lambdaQuery(OrderDO.class)
+                .in(OrderDO::getOrderSn, orderSns);
+        List<OrderDO> orderDOList = orderMapper.selectList(queryWrapper);
+        if (CollUtil.isEmpty(orderDOList)) {
+            return new ArrayList<>();
+        }
+        LambdaQueryWrapper<OrderItemDO> orderItemQueryWrapper = Wrappers.lambdaQuery(OrderItemDO.class)
+                .in(OrderItemDO::getOrderSn, orderDOList.stream().map(OrderDO::getOrderSn).toList());
+        Map<String, List<OrderItemDO>> orderItemMap = orderItemMapper.selectList(orderItemQueryWrapper).stream()
+                .collect(Collectors.groupingBy(OrderItemDO::getOrderSn));
+        return orderDOList.stream().map(each -> {
+            TicketOrderDetailRespDTO result = BeanUtil.convert(each, TicketOrderDetailRespDTO.class);
+            result.setPassengerDetails(BeanUtil.convert(orderItemMap.getOrDefault(each.getOrderSn(), new ArrayList<>()), TicketOrderPassengerDetailRespDTO.class));
+            return result;
+        }).collect(Collectors.toList());
+    }
+
     @Override
     public PageResponse<TicketOrderDetailRespDTO> pageTicketOrder(TicketOrderPageQueryReqDTO requestParam) {
         LambdaQueryWrapper<OrderDO> queryWrapper = Wrappers.lambdaQuery(OrderDO.class)
@@ -120,82 +151,91 @@ public class OrderServiceImpl implements OrderService {
     @Transactional(rollbackFor = Exception.class)
     @Override
     public String createTicketOrder(TicketOrderCreateReqDTO requestParam) {
-        // 通过基因法将用户 ID 融入到订单号
-        //生成的订单的ID为 时间戳+当前请求巴德尔
-        String orderSn = OrderIdGeneratorManager.generateId(requestParam.getUserId());
+        return createTicketOrderBatch(List.of(requestParam)).get(0);
+    }
 
-        OrderDO orderDO = OrderDO.builder().orderSn(orderSn)
-                .orderTime(requestParam.getOrderTime())
-                .departure(requestParam.getDeparture())
-                .departureTime(requestParam.getDepartureTime())
-                .ridingDate(requestParam.getRidingDate())
-                .arrivalTime(requestParam.getArrivalTime())
-                .trainNumber(requestParam.getTrainNumber())
-                .arrival(requestParam.getArrival())
-                .trainId(requestParam.getTrainId())
-                .source(requestParam.getSource())
-                .status(OrderStatusEnum.PENDING_PAYMENT.getStatus())
-                .username(requestParam.getUsername())
-                .userId(String.valueOf(requestParam.getUserId()))
-                .build();
-//        将对应的信息插入到我们的订单表中
-        orderMapper.insert(orderDO);
-        List<TicketOrderItemCreateReqDTO> ticketOrderItems = requestParam.getTicketOrderItems();
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public List<String> createTicketOrderBatch(List<TicketOrderCreateReqDTO> requestParams) {
+        List<String> orderSnList = new ArrayList<>(requestParams.size());
         List<OrderItemDO> orderItemDOList = new ArrayList<>();
-//       订单的明细实体 OrderItemDO
         List<OrderItemPassengerDO> orderPassengerRelationDOList = new ArrayList<>();
-//       乘车人和订单关系实体
-        ticketOrderItems.forEach(each -> {
-            OrderItemDO orderItemDO = OrderItemDO.builder()
+        for (TicketOrderCreateReqDTO requestParam : requestParams) {
+            // 通过基因法将用户 ID 融入到订单号，异步创建订单时沿用购票服务已返回给用户的订单号
+            String orderSn = StrUtil.isNotBlank(requestParam.getOrderSn())
+                    ? requestParam.getOrderSn()
+                    : OrderIdGeneratorManager.generateId(requestParam.getUserId());
+            OrderDO orderDO = OrderDO.builder().orderSn(orderSn)
+                    .orderTime(requestParam.getOrderTime())
+                    .departure(requestParam.getDeparture())
+                    .departureTime(requestParam.getDepartureTime())
+                    .ridingDate(requestParam.getRidingDate())
+                    .arrivalTime(requestParam.getArrivalTime())
+                    .trainNumber(requestParam.getTrainNumber())
+                    .arrival(requestParam.getArrival())
                     .trainId(requestParam.getTrainId())
-                    .seatNumber(each.getSeatNumber())
-                    .carriageNumber(each.getCarriageNumber())
-                    .realName(each.getRealName())
-                    .orderSn(orderSn)
-                    .phone(each.getPhone())
-                    .seatType(each.getSeatType())
-                    .username(requestParam.getUsername()).amount(each.getAmount()).carriageNumber(each.getCarriageNumber())
-                    .idCard(each.getIdCard())
-                    .ticketType(each.getTicketType())
-                    .idType(each.getIdType())
+                    .source(requestParam.getSource())
+                    .status(OrderStatusEnum.PENDING_PAYMENT.getStatus())
+                    .username(requestParam.getUsername())
                     .userId(String.valueOf(requestParam.getUserId()))
-                    .status(0)
                     .build();
-            orderItemDOList.add(orderItemDO);
-//            得到订单的详细的明细
-            OrderItemPassengerDO orderPassengerRelationDO = OrderItemPassengerDO.builder()
-                    .idType(each.getIdType())
-                    .idCard(each.getIdCard())
-                    .orderSn(orderSn)
-                    .build();
-            orderPassengerRelationDOList.add(orderPassengerRelationDO);
-            //            开始构建订单和乘车人关系实体
-        });
-//        乘车人的业务关系表
+            orderMapper.insert(orderDO);
+            requestParam.getTicketOrderItems().forEach(each -> {
+                OrderItemDO orderItemDO = OrderItemDO.builder()
+                        .trainId(requestParam.getTrainId())
+                        .seatNumber(each.getSeatNumber())
+                        .carriageNumber(each.getCarriageNumber())
+                        .realName(each.getRealName())
+                        .orderSn(orderSn)
+                        .phone(each.getPhone())
+                        .seatType(each.getSeatType())
+                        .username(requestParam.getUsername()).amount(each.getAmount()).carriageNumber(each.getCarriageNumber())
+                        .idCard(each.getIdCard())
+                        .ticketType(each.getTicketType())
+                        .idType(each.getIdType())
+                        .userId(String.valueOf(requestParam.getUserId()))
+                        .status(0)
+                        .build();
+                orderItemDOList.add(orderItemDO);
+                OrderItemPassengerDO orderPassengerRelationDO = OrderItemPassengerDO.builder()
+                        .idType(each.getIdType())
+                        .idCard(each.getIdCard())
+                        .orderSn(orderSn)
+                        .build();
+                orderPassengerRelationDOList.add(orderPassengerRelationDO);
+            });
+            orderSnList.add(orderSn);
+        }
+        // 乘车人订单明细以及乘车人订单关系在所有订单间合并为一次批量写入
         orderItemService.saveBatch(orderItemDOList);
-//        乘车人订单关系表
         orderPassengerRelationService.saveBatch(orderPassengerRelationDOList);
-//        将其结果保存入库
-        try {
-            // 发送 RocketMQ 延时消息，指定时间后取消订单
-            DelayCloseOrderEvent delayCloseOrderEvent = DelayCloseOrderEvent.builder()
-                    .trainId(String.valueOf(requestParam.getTrainId()))
-                    .departure(requestParam.getDeparture())
-                    .arrival(requestParam.getArrival())
-                    .orderSn(orderSn)
-                    .trainPurchaseTicketResults(requestParam.getTicketOrderItems())
-                    .build();
-            // 创建订单并支付后延时关闭订单消息怎么办？详情查看：https://nageoffer.com/12306/question
-            SendResult sendResult = delayCloseOrderSendProduce.sendMessage(delayCloseOrderEvent);
-            log.info("延时消息已投递:{}",sendResult);
-            if (!Objects.equals(sendResult.getSendStatus(), SendStatus.SEND_OK)) {
-                throw new ServiceException("投递延迟关闭订单消息队列失败");
+        if (delayCloseOrderQueue.isEnabled()) {
+            // 订单号批量写入 Redis 延迟队列，到期后由购票服务批量关闭
+            delayCloseOrderQueue.offer(orderSnList);
+            return orderSnList;
+        }
+        for (int i = 0; i < requestParams.size(); i++) {
+            TicketOrderCreateReqDTO requestParam = requestParams.get(i);
+            try {
+                // 发送 RocketMQ 延时消息，指定时间后取消订单
+                DelayCloseOrderEvent delayCloseOrderEvent = DelayCloseOrderEvent.builder()
+                        .trainId(String.valueOf(requestParam.getTrainId()))
+                        .departure(requestParam.getDeparture())
+                        .arrival(requestParam.getArrival())
+                        .orderSn(orderSnList.get(i))
+                        .trainPurchaseTicketResults(requestParam.getTicketOrderItems())
+                        .build();
+                // 创建订单并支付后延时关闭订单消息怎么办？详情查看：https://nageoffer.com/12306/question
+                SendResult sendResult = delayCloseOrderSendProduce.sendMessage(delayCloseOrderEvent);
+                if (!Objects.equals(sendResult.getSendStatus(), SendStatus.SEND_OK)) {
+                    throw new ServiceException("投递延迟关闭订单消息队列失败");
+                }
+            } catch (Throwable ex) {
+                log.error("延迟关闭订单消息队列发送错误，请求参数：{}", JSON.toJSONString(requestParam), ex);
+                throw ex;
             }
-        } catch (Throwable ex) {
-            log.error("延迟关闭订单消息队列发送错误，请求参数：{}", JSON.toJSONString(requestParam), ex);
-            throw ex;
         }
-        return orderSn;
+        return orderSnList;
     }
 
     @Transactional(rollbackFor = Exception.class)
@@ -213,6 +253,41 @@ public class OrderServiceImpl implements OrderService {
         return cancelTickOrder(requestParam);
     }
 
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public List<String> closeTickOrderBatch(List<String> orderSns) {
+        List<String> closedOrderSns = new ArrayList<>(orderSns.size());
+        for (String orderSn : orderSns) {
+            RLock lock = redissonClient.getLock(StrBuilder.create("order:canal:order_sn_").append(orderSn).toString());
+            // 订单正在被用户取消，交由取消流程处理
+            if (!lock.tryLock()) {
+                continue;
+            }
+            try {
+                OrderDO updateOrderDO = new OrderDO();
+                updateOrderDO.setStatus(OrderStatusEnum.CLOSED.getStatus());
+                LambdaUpdateWrapper<OrderDO> updateWrapper = Wrappers.lambdaUpdate(OrderDO.class)
+                        .eq(OrderDO::getOrderSn, orderSn)
+                        .eq(OrderDO::getStatus, OrderStatusEnum.PENDING_PAYMENT.getStatus());
+                // 仅待支付订单会被关闭，已支付、已取消或不存在的订单更新行数为 0
+                if (orderMapper.update(updateOrderDO, updateWrapper) > 0) {
+                    closedOrderSns.add(orderSn);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (CollUtil.isEmpty(closedOrderSns)) {
+            return closedOrderSns;
+        }
+        OrderItemDO updateOrderItemDO = new OrderItemDO();
+        updateOrderItemDO.setStatus(OrderItemStatusEnum.CLOSED.getStatus());
+        LambdaUpdateWrapper<OrderItemDO> updateItemWrapper = Wrappers.lambdaUpdate(OrderItemDO.class)
+                .in(OrderItemDO::getOrderSn, closedOrderSns);
+        orderItemMapper.update(updateOrderItemDO, updateItemWrapper);
+        return closedOrderSns;
+    }
+
     @Transactional(rollbackFor = Exception.class)
     @Override
     public boolean cancelTickOrder(CancelTicketOrderReqDTO requestParam) {
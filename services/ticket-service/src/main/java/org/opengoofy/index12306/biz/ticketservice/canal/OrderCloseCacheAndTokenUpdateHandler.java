@@ -18,6 +18,7 @@
 package org.opengoofy.index12306.biz.ticketservice.canal;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.CanalExecuteStrategyMarkEnum;
@@ -28,14 +29,20 @@ import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderPassenge
 import org.opengoofy.index12306.biz.ticketservice.service.SeatService;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket.TicketAvailabilityTokenBucket;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.waitlist.TicketWaitlistMatcher;
 import org.opengoofy.index12306.framework.starter.common.toolkit.BeanUtil;
 import org.opengoofy.index12306.framework.starter.convention.result.Result;
 import org.opengoofy.index12306.framework.starter.designpattern.strategy.AbstractExecuteStrategy;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 订单关闭或取消后置处理组件
@@ -49,26 +56,82 @@ public class OrderCloseCacheAndTokenUpdateHandler implements AbstractExecuteStra
     private final TicketOrderRemoteService ticketOrderRemoteService;
     private final SeatService seatService;
     private final TicketAvailabilityTokenBucket ticketAvailabilityTokenBucket;
+    private final TicketWaitlistMatcher ticketWaitlistMatcher;
 
     @Override
     public void execute(CanalBinlogEvent message) {
-        List<Map<String, Object>> messageDataList = message.getData().stream()
+        executeBatch(List.of(message), new HashSet<>());
+    }
+
+    /**
+     * 获取订单表 Binlog 消息中已关闭或取消的订单号
+     *
+     * @param message 订单表 Binlog 消息
+     * @return 订单号集合
+     */
+    public List<String> listClosedOrderSns(CanalBinlogEvent message) {
+        return message.getData().stream()
                 .filter(each -> each.get("status") != null)
                 .filter(each -> Objects.equals(each.get("status"), "30"))
+                .map(each -> each.get("order_sn").toString())
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * 批量处理订单关闭或取消，一次远程调用查询全部订单详情
+     * 同一列车相同出发站与到达站的订单合并后统一释放座位与回滚令牌
+     *
+     * @param messages         订单表 Binlog 消息集合
+     * @param releasedOrderSns 已完成释放的订单号，处理中途失败时调用方据此判断哪些消息已生效
+     */
+    public void executeBatch(List<CanalBinlogEvent> messages, Set<String> releasedOrderSns) {
+        List<String> orderSns = messages.stream()
+                .flatMap(each -> listClosedOrderSns(each).stream())
+                .distinct()
                 .toList();
-        if (CollUtil.isEmpty(messageDataList)) {
+        if (CollUtil.isEmpty(orderSns)) {
             return;
         }
-        for (Map<String, Object> each : messageDataList) {
-            Result<TicketOrderDetailRespDTO> orderDetailResult = ticketOrderRemoteService.queryTicketOrderByOrderSn(each.get("order_sn").toString());
-            TicketOrderDetailRespDTO orderDetailResultData = orderDetailResult.getData();
-            if (orderDetailResult.isSuccess() && orderDetailResultData != null) {
-                String trainId = String.valueOf(orderDetailResultData.getTrainId());
-                List<TicketOrderPassengerDetailRespDTO> passengerDetails = orderDetailResultData.getPassengerDetails();
-                seatService.unlock(trainId, orderDetailResultData.getDeparture(), orderDetailResultData.getArrival(), BeanUtil.convert(passengerDetails, TrainPurchaseTicketRespDTO.class));
-                ticketAvailabilityTokenBucket.rollbackInBucket(orderDetailResultData);
-            }
+        Result<List<TicketOrderDetailRespDTO>> orderDetailResult = ticketOrderRemoteService.listTicketOrderByOrderSns(orderSns);
+        if (!orderDetailResult.isSuccess() || CollUtil.isEmpty(orderDetailResult.getData())) {
+            return;
         }
+        releaseOrders(orderDetailResult.getData(), releasedOrderSns);
+    }
+
+    /**
+     * 释放已关闭订单的座位并回滚令牌，同一列车相同出发站与到达站的订单合并处理
+     *
+     * @param orderDetails 已关闭的订单详情集合
+     * @return 按列车区间合并后的订单详情集合
+     */
+    public List<TicketOrderDetailRespDTO> releaseOrders(List<TicketOrderDetailRespDTO> orderDetails) {
+        return releaseOrders(orderDetails, new HashSet<>());
+    }
+
+    private List<TicketOrderDetailRespDTO> releaseOrders(List<TicketOrderDetailRespDTO> orderDetails, Set<String> releasedOrderSns) {
+        List<TicketOrderDetailRespDTO> result = new ArrayList<>();
+        Map<String, List<TicketOrderDetailRespDTO>> routeOrderMap = orderDetails.stream()
+                .collect(Collectors.groupingBy(each -> StrUtil.join("_", each.getTrainId(), each.getDeparture(), each.getArrival()), LinkedHashMap::new, Collectors.toList()));
+        routeOrderMap.values().forEach(routeOrderDetails -> {
+            TicketOrderDetailRespDTO first = routeOrderDetails.get(0);
+            TicketOrderDetailRespDTO routeOrderDetail = new TicketOrderDetailRespDTO();
+            routeOrderDetail.setOrderSn(routeOrderDetails.stream().map(TicketOrderDetailRespDTO::getOrderSn).collect(Collectors.joining(",")));
+            routeOrderDetail.setTrainId(first.getTrainId());
+            routeOrderDetail.setDeparture(first.getDeparture());
+            routeOrderDetail.setArrival(first.getArrival());
+            routeOrderDetail.setPassengerDetails(routeOrderDetails.stream()
+                    .flatMap(each -> each.getPassengerDetails().stream())
+                    .collect(Collectors.toList()));
+            List<TicketOrderPassengerDetailRespDTO> passengerDetails = routeOrderDetail.getPassengerDetails();
+            seatService.unlock(String.valueOf(first.getTrainId()), first.getDeparture(), first.getArrival(), BeanUtil.convert(passengerDetails, TrainPurchaseTicketRespDTO.class));
+            ticketAvailabilityTokenBucket.rollbackInBucket(routeOrderDetail);
+            routeOrderDetails.forEach(each -> releasedOrderSns.add(each.getOrderSn()));
+            ticketWaitlistMatcher.signal(String.valueOf(first.getTrainId()), passengerDetails.stream().map(TicketOrderPassengerDetailRespDTO::getSeatType).toList());
+            result.add(routeOrderDetail);
+        });
+        return result;
     }
 
     @Override
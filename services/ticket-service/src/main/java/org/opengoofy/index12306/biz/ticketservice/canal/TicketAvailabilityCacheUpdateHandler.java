@@ -25,11 +25,14 @@ import org.opengoofy.index12306.biz.ticketservice.common.enums.SeatStatusEnum;
 import org.opengoofy.index12306.biz.ticketservice.mq.event.CanalBinlogEvent;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
 import org.opengoofy.index12306.framework.starter.designpattern.strategy.AbstractExecuteStrategy;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -48,6 +51,38 @@ public class TicketAvailabilityCacheUpdateHandler implements AbstractExecuteStra
 
     @Override
     public void execute(CanalBinlogEvent message) {
+        executeBatch(List.of(message));
+    }
+
+    /**
+     * 批量更新列车余票缓存，按余票缓存 Key 合并多条 Binlog 的增量后一次管道写入
+     * 余票增量满足交换律，同一批次内合并不影响最终结果，批次之间的顺序由调用方保证
+     *
+     * @param messages 座位表 Binlog 消息集合
+     */
+    public void executeBatch(List<CanalBinlogEvent> messages) {
+        Map<String, Map<Integer, Integer>> cacheChangeKeyMap = new LinkedHashMap<>();
+        messages.forEach(each -> collectCacheChange(each, cacheChangeKeyMap));
+        if (cacheChangeKeyMap.isEmpty()) {
+            return;
+        }
+        StringRedisTemplate instance = (StringRedisTemplate) distributedCache.getInstance();
+        instance.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                cacheChangeKeyMap.forEach((cacheKey, cacheVal) -> cacheVal.forEach((seatType, num) -> {
+                    if (num != 0) {
+                        redisOperations.opsForHash().increment(cacheKey, String.valueOf(seatType), num);
+                    }
+                }));
+                return null;
+            }
+        });
+    }
+
+    private void collectCacheChange(CanalBinlogEvent message, Map<String, Map<Integer, Integer>> cacheChangeKeyMap) {
         List<Map<String, Object>> messageDataList = new ArrayList<>();
         List<Map<String, Object>> actualOldDataList = new ArrayList<>();
         for (int i = 0; i < message.getOld().size(); i++) {
@@ -64,7 +99,6 @@ public class TicketAvailabilityCacheUpdateHandler implements AbstractExecuteStra
             return;
         }
 //        对数据进行过滤的操作,只关注当前的车座的类型的变化
-        Map<String, Map<Integer, Integer>> cacheChangeKeyMap = new HashMap<>();
         for (int i = 0; i < messageDataList.size(); i++) {
             Map<String, Object> each = messageDataList.get(i);
             Map<String, Object> actualOldData = actualOldDataList.get(i);
@@ -72,17 +106,9 @@ public class TicketAvailabilityCacheUpdateHandler implements AbstractExecuteStra
             int increment = Objects.equals(seatStatus, "0") ? -1 : 1;
             String trainId = each.get("train_id").toString();
             String hashCacheKey = TRAIN_STATION_REMAINING_TICKET + trainId + "_" + each.get("start_station") + "_" + each.get("end_station");
-            Map<Integer, Integer> seatTypeMap = cacheChangeKeyMap.get(hashCacheKey);
-            if (CollUtil.isEmpty(seatTypeMap)) {
-                seatTypeMap = new HashMap<>();
-            }
             Integer seatType = Integer.parseInt(each.get("seat_type").toString());
-            Integer num = seatTypeMap.get(seatType);
-            seatTypeMap.put(seatType, num == null ? increment : num + increment);
-            cacheChangeKeyMap.put(hashCacheKey, seatTypeMap);
+            cacheChangeKeyMap.computeIfAbsent(hashCacheKey, key -> new HashMap<>()).merge(seatType, increment, Integer::sum);
         }
-        StringRedisTemplate instance = (StringRedisTemplate) distributedCache.getInstance();
-        cacheChangeKeyMap.forEach((cacheKey, cacheVal) -> cacheVal.forEach((seatType, num) -> instance.opsForHash().increment(cacheKey, String.valueOf(seatType), num)));
     }
 
     @Override
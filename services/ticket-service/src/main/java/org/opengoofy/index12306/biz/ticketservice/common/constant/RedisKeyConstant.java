@@ -48,6 +48,16 @@ public final class RedisKeyConstant {
      */
     public static final String LOCK_REGION_TRAIN_STATION = "index12306-ticket-service:lock:region_train_station";
 
+    /**
+     * 城市间车次出发日期索引，Key Prefix + 起始城市_终点城市_日期
+     */
+    public static final String REGION_TRAIN_STATION_DATE_INDEX = "index12306-ticket-service:region_train_station_date_index:%s_%s_%s";
+
+    /**
+     * 城市间车次出发日期索引构建分布式锁 Key
+     */
+    public static final String LOCK_REGION_TRAIN_STATION_DATE_INDEX = "index12306-ticket-service:lock:region_train_station_date_index:%s";
+
     /**
      * 列车站点座位价格查询，Key Prefix + 列车ID_起始城市_终点城市
      */
@@ -113,6 +123,26 @@ public final class RedisKeyConstant {
      */
     public static final String TICKET_AVAILABILITY_TOKEN_BUCKET = "index12306-ticket-service:ticket_availability_token_bucket:";
 
+    /**
+     * 列车售罄登记失效通知频道
+     */
+    public static final String TICKET_SOLD_OUT_INVALIDATE_CHANNEL = "index12306-ticket-service:ticket_sold_out_invalidate";
+
+    /**
+     * 座位内存库存所有权租约，Value 为持有节点标识，内存库存模式下仅持有租约的节点可读写座位库存
+     */
+    public static final String SEAT_INVENTORY_OWNER_LEASE = "index12306-ticket-service:seat_inventory_owner_lease";
+
+    /**
+     * 座位内存库存失效通知频道，消息内容为列车ID
+     */
+    public static final String SEAT_INVENTORY_INVALIDATE_CHANNEL = "index12306-ticket-service:seat_inventory_invalidate";
+
+    /**
+     * 列车购买分段令牌桶，Key Prefix + 列车ID
+     */
+    public static final String TICKET_AVAILABILITY_SEGMENT_TOKEN_BUCKET = "index12306-ticket-service:ticket_availability_segment_token_bucket:";
+
     /**
      * 获取全部地点集合分布式锁 Key
      */
@@ -142,4 +172,39 @@ public final class RedisKeyConstant {
      * 令牌获取失败分布式锁 Key
      */
     public static final String LOCK_TOKEN_BUCKET_ISNULL = "index12306-ticket-service:lock:token-bucket-isnull:%s";
+
+    /**
+     * Binlog 批量顺序消费超过最大重试次数的死信消息列表，元素为原始消息体
+     */
+    public static final String CANAL_BINLOG_DEAD_LETTER = "index12306-ticket-service:canal_binlog_dead_letter";
+
+    /**
+     * 延迟关闭订单队列分片，Key Prefix + 分片号，由订单服务写入
+     */
+    public static final String ORDER_DELAY_CLOSE_QUEUE = "index12306-order-service:delay_close_order_queue:";
+
+    /**
+     * 延迟关闭订单队列分片数量，由订单服务写入
+     */
+    public static final String ORDER_DELAY_CLOSE_QUEUE_SHARD_COUNT = "index12306-order-service:delay_close_order_queue_shard_count";
+
+    /**
+     * 延迟关闭订单已关闭待释放座位与令牌的订单分片，Key Prefix + 分片号
+     */
+    public static final String ORDER_DELAY_CLOSE_RELEASE_PENDING = "index12306-ticket-service:delay_close_order_release_pending:";
+
+    /**
+     * 候补购票队列，Key Prefix + 列车ID_座位类型，Member 为候补单号，Score 为登记时间戳
+     */
+    public static final String TICKET_WAITLIST_QUEUE = "index12306-ticket-service:ticket_waitlist_queue:";
+
+    /**
+     * 候补购票登记详情，Key Prefix + 候补单号
+     */
+    public static final String TICKET_WAITLIST_ENTRY = "index12306-ticket-service:ticket_waitlist_entry:";
+
+    /**
+     * 候补购票兑现分布式锁 Key
+     */
+    public static final String LOCK_TICKET_WAITLIST_MATCH = "index12306-ticket-service:lock:ticket_waitlist_match:%s_%s";
 }
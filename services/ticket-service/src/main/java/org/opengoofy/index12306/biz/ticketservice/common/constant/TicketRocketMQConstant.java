@@ -62,4 +62,14 @@ public final class TicketRocketMQConstant {
      * 支付结果回调购票消费者组 Key
      */
     public static final String PAY_RESULT_CALLBACK_TICKET_CG_KEY = "index12306_pay-service_pay-result-callback-ticket_cg${unique-name:}";
+
+    /**
+     * 购票服务异步创建订单 Topic Key
+     */
+    public static final String TICKET_ORDER_CREATE_TOPIC_KEY = "index12306_ticket-service_order-create_topic${unique-name:}";
+
+    /**
+     * 购票服务异步创建订单 Tag Key
+     */
+    public static final String TICKET_ORDER_CREATE_TAG_KEY = "index12306_ticket-service_order-create_tag${unique-name:}";
 }
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.common.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 购票流程阶段枚举
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@RequiredArgsConstructor
+public enum PurchaseTicketStageEnum {
+
+    /**
+     * 购票责任链校验
+     */
+    CHAIN_FILTER("chain_filter"),
+
+    /**
+     * 令牌桶获取令牌
+     */
+    TOKEN_BUCKET("token_bucket"),
+
+    /**
+     * 本地锁等待
+     */
+    LOCAL_LOCK_WAIT("local_lock_wait"),
+
+    /**
+     * 分布式锁等待
+     */
+    DISTRIBUTED_LOCK_WAIT("distributed_lock_wait"),
+
+    /**
+     * 座位分配
+     */
+    SEAT_SELECT("seat_select"),
+
+    /**
+     * 座位锁定
+     */
+    SEAT_LOCK("seat_lock"),
+
+    /**
+     * 车票记录保存
+     */
+    TICKET_SAVE("ticket_save"),
+
+    /**
+     * 远程调用订单服务创建订单
+     */
+    ORDER_CREATE("order_create");
+
+    @Getter
+    private final String stage;
+}
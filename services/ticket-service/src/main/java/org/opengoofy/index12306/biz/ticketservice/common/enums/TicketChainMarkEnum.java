@@ -36,5 +36,10 @@ public enum TicketChainMarkEnum {
     /**
      * 车票退款过滤器
      */
-    TRAIN_REFUND_TICKET_FILTER
+    TRAIN_REFUND_TICKET_FILTER,
+
+    /**
+     * 候补购票过滤器
+     */
+    TRAIN_WAITLIST_TICKET_FILTER
 }
@@ -20,6 +20,7 @@ package org.opengoofy.index12306.biz.ticketservice.config;
 import cn.hippo4j.common.executor.support.BlockingQueueTypeEnum;
 import cn.hippo4j.core.executor.DynamicThreadPool;
 import cn.hippo4j.core.executor.support.ThreadPoolBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -40,6 +41,7 @@ public class Hippo4jThreadPoolConfiguration {
      */
     @Bean
     @DynamicThreadPool
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "false", matchIfMissing = true)
     public ThreadPoolExecutor selectSeatThreadPoolExecutor() {
         String threadPoolId = "select-seat-thread-pool-executor";
         return ThreadPoolBuilder.builder()
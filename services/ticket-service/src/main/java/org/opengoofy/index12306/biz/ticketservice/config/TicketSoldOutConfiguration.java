@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.config;
+
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket.TicketSoldOutRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TICKET_SOLD_OUT_INVALIDATE_CHANNEL;
+
+/**
+ * 本地售罄登记配置
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Configuration
+@ConditionalOnProperty(name = "ticket.sold-out.local-cache.enabled", havingValue = "true")
+public class TicketSoldOutConfiguration {
+
+    /**
+     * 订阅列车余量令牌增加通知，清除当前节点售罄登记
+     */
+    @Bean
+    public RedisMessageListenerContainer ticketSoldOutInvalidateListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                                  TicketSoldOutRegistry ticketSoldOutRegistry) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(ticketSoldOutRegistry, new ChannelTopic(TICKET_SOLD_OUT_INVALIDATE_CHANNEL));
+        return container;
+    }
+}
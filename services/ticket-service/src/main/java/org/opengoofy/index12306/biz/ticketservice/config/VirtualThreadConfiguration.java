@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.config;
+
+import com.alibaba.ttl.threadpool.TtlExecutors;
+import org.opengoofy.index12306.framework.starter.common.threadpool.build.VirtualThreadExecutorBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 虚拟线程配置
+ * <p>
+ * 开启方式：spring.threads.virtual.enabled=true，需运行在 JDK 21+，默认仍使用 {@link Hippo4jThreadPoolConfiguration} 中的动态线程池
+ * 分配座位任务会阻塞在数据库查询上，每个任务一个虚拟线程即可，无需再按阻塞比例估算线程数
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+    /**
+     * 分配一个用户购买不同类型车票的虚拟线程执行器
+     * 通过 TTL 包装，保证提交任务时的用户上下文传递至虚拟线程
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService selectSeatThreadPoolExecutor() {
+        return TtlExecutors.getTtlExecutorService(VirtualThreadExecutorBuilder.builder()
+                .threadFactory("select-seat-virtual-thread")
+                .build());
+    }
+}
@@ -25,6 +25,7 @@ import org.opengoofy.index12306.biz.ticketservice.dao.entity.SeatDO;
 import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainStationRelationDO;
 import org.opengoofy.index12306.biz.ticketservice.dao.mapper.SeatMapper;
 import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainStationRelationMapper;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.inventory.SeatInventoryManager;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
 import org.opengoofy.index12306.framework.starter.common.toolkit.ThreadUtil;
 import org.opengoofy.index12306.framework.starter.convention.result.Result;
@@ -36,6 +37,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
 
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TICKET_AVAILABILITY_SEGMENT_TOKEN_BUCKET;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TICKET_AVAILABILITY_TOKEN_BUCKET;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_STATION_REMAINING_TICKET;
 
@@ -51,6 +53,7 @@ public class TempSeatController {
     private final SeatMapper seatMapper;
     private final TrainStationRelationMapper trainStationRelationMapper;
     private final DistributedCache distributedCache;
+    private final SeatInventoryManager seatInventoryManager;
 
     /**
      * 座位重置
@@ -60,6 +63,7 @@ public class TempSeatController {
         SeatDO seatDO = new SeatDO();
         seatDO.setSeatStatus(SeatStatusEnum.AVAILABLE.getCode());
         seatMapper.update(seatDO, Wrappers.lambdaUpdate(SeatDO.class).eq(SeatDO::getTrainId, trainId));
+        seatInventoryManager.publishInvalidate(trainId);
         ThreadUtil.sleep(5000);
         StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
         List<TrainStationRelationDO> trainStationRelationDOList = trainStationRelationMapper.selectList(Wrappers.lambdaQuery(TrainStationRelationDO.class)
@@ -69,6 +73,7 @@ public class TempSeatController {
             stringRedisTemplate.delete(TRAIN_STATION_REMAINING_TICKET + keySuffix);
         }
         stringRedisTemplate.delete(TICKET_AVAILABILITY_TOKEN_BUCKET + trainId);
+        stringRedisTemplate.delete(TICKET_AVAILABILITY_SEGMENT_TOKEN_BUCKET + trainId);
         return Results.success();
     }
 }
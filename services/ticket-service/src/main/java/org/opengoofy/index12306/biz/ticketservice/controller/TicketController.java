@@ -22,11 +22,17 @@ import org.opengoofy.index12306.biz.ticketservice.dto.req.CancelTicketOrderReqDT
 import org.opengoofy.index12306.biz.ticketservice.dto.req.PurchaseTicketReqDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.req.RefundTicketReqDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.req.TicketPageQueryReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.TicketWaitlistCancelReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.TicketWaitlistReqDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.RefundTicketRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPageQueryRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPurchaseRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPurchaseStatusRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketWaitlistRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.remote.dto.PayInfoRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.TicketOrderPendingService;
 import org.opengoofy.index12306.biz.ticketservice.service.TicketService;
+import org.opengoofy.index12306.biz.ticketservice.service.TicketWaitlistService;
 import org.opengoofy.index12306.framework.starter.convention.result.Result;
 import org.opengoofy.index12306.framework.starter.idempotent.annotation.Idempotent;
 import org.opengoofy.index12306.framework.starter.idempotent.enums.IdempotentSceneEnum;
@@ -48,13 +54,15 @@ import org.springframework.web.bind.annotation.RestController;
 public class TicketController {
 
     private final TicketService ticketService;
+    private final TicketOrderPendingService ticketOrderPendingService;
+    private final TicketWaitlistService ticketWaitlistService;
 
     /**
      * 根据条件查询车票
      */
     @GetMapping("/api/ticket-service/ticket/query")
     public Result<TicketPageQueryRespDTO> pageListTicketQuery(TicketPageQueryReqDTO requestParam) {
-        return Results.success(ticketService.pageListTicketQueryV1(requestParam));
+        return Results.success(ticketService.pageListTicketQueryV3(requestParam));
     }
 
     /**
@@ -94,6 +102,41 @@ public class TicketController {
         return Results.success(ticketService.purchaseTicketsV2(requestParam));
     }
 
+    /**
+     * 查询购票订单创建状态，异步创建订单模式下客户端轮询至订单已创建后再发起支付
+     */
+    @GetMapping("/api/ticket-service/ticket/purchase/status")
+    public Result<TicketPurchaseStatusRespDTO> queryPurchaseStatus(@RequestParam(value = "orderSn") String orderSn) {
+        return Results.success(ticketOrderPendingService.queryPurchaseStatus(orderSn));
+    }
+
+    /**
+     * 登记候补购票，座位释放后按登记先后自动兑现，无需重复提交购票请求
+     */
+    @ILog
+    @PostMapping("/api/ticket-service/ticket/waitlist")
+    public Result<String> registerWaitlist(@RequestBody TicketWaitlistReqDTO requestParam) {
+        return Results.success(ticketWaitlistService.registerWaitlist(requestParam));
+    }
+
+    /**
+     * 查询候补购票状态，兑现后返回订单号
+     */
+    @GetMapping("/api/ticket-service/ticket/waitlist/query")
+    public Result<TicketWaitlistRespDTO> queryWaitlist(@RequestParam(value = "waitlistId") String waitlistId) {
+        return Results.success(ticketWaitlistService.queryWaitlist(waitlistId));
+    }
+
+    /**
+     * 取消候补购票
+     */
+    @ILog
+    @PostMapping("/api/ticket-service/ticket/waitlist/cancel")
+    public Result<Void> cancelWaitlist(@RequestBody TicketWaitlistCancelReqDTO requestParam) {
+        ticketWaitlistService.cancelWaitlist(requestParam);
+        return Results.success();
+    }
+
     /**
      * 取消车票订单
      */
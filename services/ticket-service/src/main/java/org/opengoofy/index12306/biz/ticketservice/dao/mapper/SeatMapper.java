@@ -20,7 +20,11 @@ package org.opengoofy.index12306.biz.ticketservice.dao.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Param;
 import org.opengoofy.index12306.biz.ticketservice.dao.entity.SeatDO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteSeatTypeCountDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.SeatOccupancyPatternDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.domain.SeatTypeCountDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.TicketListDTO;
 
 import java.util.List;
 
@@ -39,4 +43,27 @@ public interface SeatMapper extends BaseMapper<SeatDO> {
      * 获取列车 startStation 到 endStation 区间可用座位数量
      */
     List<SeatTypeCountDTO> listSeatTypeCount(@Param("trainId") Long trainId, @Param("startStation") String startStation, @Param("endStation") String endStation, @Param("seatTypes") List<Integer> seatTypes);
+
+    /**
+     * 获取列车所有座位在相邻站点区间上的座位状态
+     */
+    List<SeatDO> listSeatSegmentStatus(@Param("trainId") Long trainId);
+
+    /**
+     * 按座位类型以及已占用相邻区间聚合列车座位数量
+     */
+    List<SeatOccupancyPatternDTO> listSeatOccupancyPattern(@Param("trainId") Long trainId);
+
+    /**
+     * 批量获取多个列车站点区间各座位类型可用座位数量
+     */
+    List<RouteSeatTypeCountDTO> listRouteSeatTypeCount(@Param("routes") List<TicketListDTO> routes);
+
+    /**
+     * 批量变更多个座位在多个站点区间上的座位状态
+     *
+     * @return 匹配的座位记录数
+     */
+    int updateSeatStatusBatch(@Param("trainId") Long trainId, @Param("seats") List<SeatDO> seats, @Param("routes") List<RouteDTO> routes,
+                              @Param("fromStatus") Integer fromStatus, @Param("toStatus") Integer toStatus);
 }
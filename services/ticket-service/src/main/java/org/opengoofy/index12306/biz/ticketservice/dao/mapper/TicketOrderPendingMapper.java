@@ -15,11 +15,14 @@
  * limitations under the License.
  */
 
-package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.base;
+package org.opengoofy.index12306.biz.ticketservice.dao.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.TicketOrderPendingDO;
 
 /**
- * 高铁验证座位接口
+ * 待创建车票订单持久层
  * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
  */
-public interface TrainBitMapCheckSeat extends BitMapCheckSeat {
+public interface TicketOrderPendingMapper extends BaseMapper<TicketOrderPendingDO> {
 }
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.dto.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 候补购票登记实体，以 JSON 形式存储于 Redis
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TicketWaitlistDTO {
+
+    /**
+     * 候补单号
+     */
+    private String waitlistId;
+
+    /**
+     * 车次 ID
+     */
+    private String trainId;
+
+    /**
+     * 出发站点
+     */
+    private String departure;
+
+    /**
+     * 到达站点
+     */
+    private String arrival;
+
+    /**
+     * 座位类型
+     */
+    private Integer seatType;
+
+    /**
+     * 乘车人 ID 集合
+     */
+    private List<String> passengers;
+
+    /**
+     * 候补状态 0：排队中 1：已兑现 2：已取消
+     */
+    private Integer status;
+
+    /**
+     * 候补兑现后生成的订单号
+     */
+    private String orderSn;
+
+    /**
+     * 登记用户 ID
+     */
+    private String userId;
+
+    /**
+     * 登记用户名
+     */
+    private String username;
+
+    /**
+     * 登记用户真实姓名
+     */
+    private String realName;
+
+    /**
+     * 登记时间戳，候补队列按此先后兑现
+     */
+    private Long createTime;
+}
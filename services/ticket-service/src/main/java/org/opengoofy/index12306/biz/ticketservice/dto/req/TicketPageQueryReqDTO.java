@@ -55,4 +55,14 @@ public class TicketPageQueryReqDTO extends PageRequest {
      * 到达站点
      */
     private String arrival;
+
+    /**
+     * 出发时刻下限，格式 HH:mm，可选
+     */
+    private String departureTimeStart;
+
+    /**
+     * 出发时刻上限，格式 HH:mm，可选
+     */
+    private String departureTimeEnd;
 }
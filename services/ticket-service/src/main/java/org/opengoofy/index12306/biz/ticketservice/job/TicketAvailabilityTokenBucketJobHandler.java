@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.job;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.date.DateUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainDO;
+import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainMapper;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket.TicketAvailabilityTokenBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Date;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_TICKET_AVAILABILITY_TOKEN_BUCKET;
+
+/**
+ * 列车余量令牌桶开售前预热定时任务
+ * 在列车开售前构建令牌桶，避免开售瞬间首批购票请求竞争构建令牌桶
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class TicketAvailabilityTokenBucketJobHandler {
+
+    private final TrainMapper trainMapper;
+    private final TicketAvailabilityTokenBucket ticketAvailabilityTokenBucket;
+    private final RedissonClient redissonClient;
+
+    /**
+     * 开售前预热时间窗口，单位：小时
+     */
+    @Value("${ticket.availability.token-bucket.warm-up-window:24}")
+    private Integer warmUpWindow;
+
+    @XxlJob(value = "ticketAvailabilityTokenBucketJobHandler")
+    @GetMapping("/api/ticket-service/ticket-availability-token-bucket/job/warm-up/execute")
+    public void execute() {
+        var currentPage = 1L;
+        var size = 1000L;
+        Date now = new Date();
+        LambdaQueryWrapper<TrainDO> queryWrapper = Wrappers.lambdaQuery(TrainDO.class)
+                .le(TrainDO::getSaleTime, DateUtil.offsetHour(now, warmUpWindow))
+                .ge(TrainDO::getDepartureTime, now)
+                .orderByAsc(TrainDO::getId);
+        for (; ; currentPage++) {
+            var trainDOPage = trainMapper.selectPage(new Page<>(currentPage, size, false), queryWrapper);
+            if (trainDOPage == null || CollUtil.isEmpty(trainDOPage.getRecords())) {
+                break;
+            }
+            trainDOPage.getRecords().forEach(this::warmUp);
+        }
+    }
+
+    private void warmUp(TrainDO trainDO) {
+        RLock lock = redissonClient.getLock(String.format(LOCK_TICKET_AVAILABILITY_TOKEN_BUCKET, trainDO.getId()));
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            ticketAvailabilityTokenBucket.initializeTokens(trainDO);
+        } catch (Throwable ex) {
+            log.error("列车余量令牌桶预热失败，列车ID：{}", trainDO.getId(), ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
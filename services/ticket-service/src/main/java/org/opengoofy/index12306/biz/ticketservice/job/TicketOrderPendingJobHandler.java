@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.job;
+
+import com.xxl.job.core.handler.annotation.XxlJob;
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.index12306.biz.ticketservice.service.TicketOrderPendingService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 待创建车票订单重新投递定时任务
+ * 创建订单消息投递失败或节点宕机后，用户未查询购票状态时座位与令牌将一直处于锁定状态，由该任务定期重新投递
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@RestController
+@RequiredArgsConstructor
+public class TicketOrderPendingJobHandler {
+
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * 单次执行最多处理批次数，避免积压过多时单次任务执行时间过长
+     */
+    private static final int MAX_BATCH_COUNT = 20;
+
+    private final TicketOrderPendingService ticketOrderPendingService;
+
+    @XxlJob(value = "ticketOrderPendingJobHandler")
+    @GetMapping("/api/ticket-service/ticket-order-pending/job/resend/execute")
+    public void execute() {
+        for (int i = 0; i < MAX_BATCH_COUNT; i++) {
+            if (ticketOrderPendingService.resendStalePendingOrders(BATCH_SIZE) < BATCH_SIZE) {
+                break;
+            }
+        }
+    }
+}
@@ -19,21 +19,46 @@ package org.opengoofy.index12306.biz.ticketservice.mq.consumer;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
+import com.alibaba.fastjson2.JSON;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeOrderlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerOrderly;
+import org.apache.rocketmq.common.message.MessageExt;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
+import org.opengoofy.index12306.biz.ticketservice.canal.OrderCloseCacheAndTokenUpdateHandler;
+import org.opengoofy.index12306.biz.ticketservice.canal.TicketAvailabilityCacheUpdateHandler;
 import org.opengoofy.index12306.biz.ticketservice.common.constant.TicketRocketMQConstant;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.CanalExecuteStrategyMarkEnum;
 import org.opengoofy.index12306.biz.ticketservice.mq.event.CanalBinlogEvent;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
 import org.opengoofy.index12306.framework.starter.designpattern.strategy.AbstractStrategyChoose;
 import org.opengoofy.index12306.framework.starter.idempotent.annotation.Idempotent;
+import org.opengoofy.index12306.framework.starter.idempotent.enums.IdempotentMQConsumeStatusEnum;
 import org.opengoofy.index12306.framework.starter.idempotent.enums.IdempotentSceneEnum;
 import org.opengoofy.index12306.framework.starter.idempotent.enums.IdempotentTypeEnum;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.CANAL_BINLOG_DEAD_LETTER;
 
 /**
  * 列车车票余量缓存更新消费端
@@ -46,13 +71,75 @@ import java.util.Objects;
         topic = TicketRocketMQConstant.CANAL_COMMON_SYNC_TOPIC_KEY,
         consumerGroup = TicketRocketMQConstant.CANAL_COMMON_SYNC_CG_KEY
 )
-public class CanalCommonSyncBinlogConsumer implements RocketMQListener<CanalBinlogEvent> {
+public class CanalCommonSyncBinlogConsumer implements RocketMQListener<CanalBinlogEvent>, RocketMQPushConsumerLifecycleListener {
+
+    private static final String BINLOG_SYNC_IDEMPOTENT_PREFIX = "index12306-ticket:binlog_sync:";
+    private static final long BINLOG_SYNC_IDEMPOTENT_TIMEOUT = 7200L;
+    private static final long BINLOG_SYNC_CONSUMING_TIMEOUT = 600L;
 
     private final AbstractStrategyChoose abstractStrategyChoose;
+    private final TicketAvailabilityCacheUpdateHandler ticketAvailabilityCacheUpdateHandler;
+    private final OrderCloseCacheAndTokenUpdateHandler orderCloseCacheAndTokenUpdateHandler;
+    private final DistributedCache distributedCache;
 
     @Value("${ticket.availability.cache-update.type:}")
     private String ticketAvailabilityCacheUpdateType;
 
+    /**
+     * 是否开启 Binlog 批量顺序消费，开启后同一队列的消息按批次拉取，座位表余票增量跨消息合并后一次写入
+     * 按列车保序依赖 Canal 按 train_id 计算分区，即 canal.mq.partitionHash=.*\\.t_seat:train_id
+     */
+    @Value("${ticket.availability.cache-update.batch.enabled:false}")
+    private Boolean batchEnabled;
+
+    @Value("${ticket.availability.cache-update.batch.max-size:64}")
+    private Integer batchMaxSize;
+
+    /**
+     * 批量顺序消费失败最大重试次数，超过后整批写入死信列表并跳过，避免单条异常消息阻塞所在队列
+     */
+    @Value("${ticket.availability.cache-update.batch.max-reconsume-times:16}")
+    private Integer batchMaxReconsumeTimes;
+
+    @Override
+    public void prepareStart(DefaultMQPushConsumer consumer) {
+        if (!batchEnabled) {
+            return;
+        }
+        consumer.setConsumeMessageBatchMaxSize(batchMaxSize);
+        consumer.setPullBatchSize(Math.max(batchMaxSize, consumer.getPullBatchSize()));
+        // 替换默认逐条并发消费的监听器，顺序消费保证同一队列内批次先后执行
+        consumer.registerMessageListener((MessageListenerOrderly) (messageExtList, context) -> {
+            try {
+                onMessageBatch(messageExtList);
+                return ConsumeOrderlyStatus.SUCCESS;
+            } catch (Throwable ex) {
+                int reconsumeTimes = messageExtList.stream().mapToInt(MessageExt::getReconsumeTimes).max().orElse(0);
+                if (reconsumeTimes >= batchMaxReconsumeTimes && deadLetter(messageExtList)) {
+                    log.error("批量消费 Binlog 消息失败 {} 次，已转入死信列表并跳过，消息ID：{}", reconsumeTimes + 1,
+                            messageExtList.stream().map(MessageExt::getMsgId).toList(), ex);
+                    return ConsumeOrderlyStatus.SUCCESS;
+                }
+                log.error("批量消费 Binlog 消息失败，第 {} 次重试，消息数量：{}", reconsumeTimes, messageExtList.size(), ex);
+                return ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT;
+            }
+        });
+    }
+
+    private boolean deadLetter(List<MessageExt> messageExtList) {
+        try {
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            List<String> messageBodies = messageExtList.stream()
+                    .map(each -> new String(each.getBody(), StandardCharsets.UTF_8))
+                    .toList();
+            stringRedisTemplate.opsForList().rightPushAll(CANAL_BINLOG_DEAD_LETTER, messageBodies);
+            return true;
+        } catch (Throwable ex) {
+            log.error("Binlog 消息写入死信列表失败，继续重试消费，消息ID：{}", messageExtList.stream().map(MessageExt::getMsgId).toList(), ex);
+            return false;
+        }
+    }
+
     @Idempotent(
             uniqueKeyPrefix = "index12306-ticket:binlog_sync:",
             key = "#message.getId()+'_'+#message.hashCode()",
@@ -75,4 +162,100 @@ public class CanalCommonSyncBinlogConsumer implements RocketMQListener<CanalBinl
                 CanalExecuteStrategyMarkEnum.isPatternMatch(message.getTable())
         );
     }
+
+    private void onMessageBatch(List<MessageExt> messageExtList) {
+        List<CanalBinlogEvent> messages = new ArrayList<>(messageExtList.size());
+        for (MessageExt each : messageExtList) {
+            CanalBinlogEvent message = JSON.parseObject(new String(each.getBody(), StandardCharsets.UTF_8), CanalBinlogEvent.class);
+            if (message != null && !message.getIsDdl()
+                    && CollUtil.isNotEmpty(message.getOld())
+                    && Objects.equals("UPDATE", message.getType())
+                    && StrUtil.equals(ticketAvailabilityCacheUpdateType, "binlog")) {
+                messages.add(message);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<String> idempotentKeys = messages.stream()
+                .map(each -> BINLOG_SYNC_IDEMPOTENT_PREFIX + each.getId() + "_" + each.hashCode())
+                .collect(Collectors.toList());
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        // 一次管道写入整批消费中标识，替代逐条消息的两次 Redis 访问
+        List<Object> setIfAbsentResults = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                idempotentKeys.forEach(each -> redisOperations.opsForValue()
+                        .setIfAbsent(each, IdempotentMQConsumeStatusEnum.CONSUMING.getCode(), BINLOG_SYNC_CONSUMING_TIMEOUT, TimeUnit.SECONDS));
+                return null;
+            }
+        });
+        Map<String, CanalBinlogEvent> acquiredMessageMap = new LinkedHashMap<>();
+        List<String> repeatedKeys = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            if (Boolean.TRUE.equals(setIfAbsentResults.get(i))) {
+                acquiredMessageMap.put(idempotentKeys.get(i), messages.get(i));
+            } else {
+                repeatedKeys.add(idempotentKeys.get(i));
+            }
+        }
+        if (!repeatedKeys.isEmpty()) {
+            List<String> consumeStatuses = stringRedisTemplate.opsForValue().multiGet(repeatedKeys);
+            // 存在其它消费者正在消费的消息时整批稍后重试，避免该消息最终消费失败后被跳过
+            if (consumeStatuses != null && consumeStatuses.stream().anyMatch(IdempotentMQConsumeStatusEnum::isError)) {
+                distributedCache.delete(acquiredMessageMap.keySet());
+                throw new ServiceException("存在消费中的 Binlog 消息，等待稍后重新消费");
+            }
+            repeatedKeys.forEach(each -> log.warn("[{}] MQ repeated consumption, Status is completed.", each));
+        }
+        Map<String, CanalBinlogEvent> seatMessageMap = new LinkedHashMap<>();
+        Map<String, CanalBinlogEvent> orderMessageMap = new LinkedHashMap<>();
+        List<String> appliedKeys = new ArrayList<>();
+        acquiredMessageMap.forEach((idempotentKey, message) -> {
+            if (Objects.equals(message.getTable(), CanalExecuteStrategyMarkEnum.T_SEAT.getActualTable())) {
+                seatMessageMap.put(idempotentKey, message);
+            } else if (CanalExecuteStrategyMarkEnum.isPatternMatch(message.getTable())) {
+                orderMessageMap.put(idempotentKey, message);
+            } else {
+                appliedKeys.add(idempotentKey);
+            }
+        });
+        Set<String> releasedOrderSns = new HashSet<>();
+        try {
+            // 座位表与订单表的处理互不依赖，各自按消息顺序合并后批量执行
+            ticketAvailabilityCacheUpdateHandler.executeBatch(new ArrayList<>(seatMessageMap.values()));
+            appliedKeys.addAll(seatMessageMap.keySet());
+            orderCloseCacheAndTokenUpdateHandler.executeBatch(new ArrayList<>(orderMessageMap.values()), releasedOrderSns);
+            appliedKeys.addAll(orderMessageMap.keySet());
+        } catch (Throwable ex) {
+            // 仅清除未生效消息的幂等标识，已释放座位与回滚令牌的消息重新投递时直接跳过
+            orderMessageMap.forEach((idempotentKey, message) -> {
+                if (releasedOrderSns.containsAll(orderCloseCacheAndTokenUpdateHandler.listClosedOrderSns(message))) {
+                    appliedKeys.add(idempotentKey);
+                }
+            });
+            markConsumed(stringRedisTemplate, appliedKeys);
+            distributedCache.delete(acquiredMessageMap.keySet().stream().filter(each -> !appliedKeys.contains(each)).toList());
+            throw ex;
+        }
+        markConsumed(stringRedisTemplate, appliedKeys);
+    }
+
+    private void markConsumed(StringRedisTemplate stringRedisTemplate, List<String> idempotentKeys) {
+        if (idempotentKeys.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                idempotentKeys.forEach(each -> redisOperations.opsForValue()
+                        .set(each, IdempotentMQConsumeStatusEnum.CONSUMED.getCode(), BINLOG_SYNC_IDEMPOTENT_TIMEOUT, TimeUnit.SECONDS));
+                return null;
+            }
+        });
+    }
 }
@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.mq.consumer;
+
+import cn.hippo4j.core.executor.support.ThreadPoolBuilder;
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.ticketservice.canal.OrderCloseCacheAndTokenUpdateHandler;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
+import org.opengoofy.index12306.biz.ticketservice.remote.TicketOrderRemoteService;
+import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderDetailRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderPassengerDetailRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.TrainStationService;
+import org.opengoofy.index12306.framework.starter.bases.Singleton;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
+import org.opengoofy.index12306.framework.starter.convention.result.Result;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.ORDER_DELAY_CLOSE_QUEUE;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.ORDER_DELAY_CLOSE_QUEUE_SHARD_COUNT;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.ORDER_DELAY_CLOSE_RELEASE_PENDING;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_STATION_REMAINING_TICKET;
+
+/**
+ * 延迟关闭订单队列消费者
+ * <p>
+ * 开启方式：ticket.delay-close.type=redis，需与订单服务 order.delay-close.type=redis 同时开启
+ * 分片数量以订单服务写入 Redis 的值为准，定期读取并只增不减地调度分片，订单服务缩减分片后旧分片中的订单仍会被处理
+ * 每个分片由本地时间轮按队首订单到期时间调度拉取，到期订单批量弹出后一次远程调用批量关闭，再按列车区间合并释放座位与令牌
+ * 弹出的订单在处理成功前仅推迟可见时间，节点宕机后由其它节点重新处理，批量关闭只返回本次实际关闭的订单，重复处理不会重复释放
+ * 关闭成功的订单在移出队列前先写入待释放分片，按列车区间释放座位与令牌，每个区间释放成功后立即移除该区间订单，释放失败时仅重试未完成的区间
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DelayCloseOrderQueueConsumer implements InitializingBean, DisposableBean {
+
+    private static final String REDIS_DELAY_CLOSE_TYPE = "redis";
+    private static final String LUA_DELAY_CLOSE_ORDER_QUEUE_POP_PATH = "lua/delay_close_order_queue_pop.lua";
+
+    private final DistributedCache distributedCache;
+    private final TicketOrderRemoteService ticketOrderRemoteService;
+    private final TrainStationService trainStationService;
+    private final OrderCloseCacheAndTokenUpdateHandler orderCloseCacheAndTokenUpdateHandler;
+
+    private final ThreadPoolExecutor delayCloseOrderPollExecutor = ThreadPoolBuilder.builder()
+            .threadFactory("delay-close-order-poll-executor")
+            .poolThreadSize(1, 4)
+            .workQueue(new LinkedBlockingQueue<>())
+            .build();
+
+    private Timer timingWheel;
+    private volatile boolean stopped;
+    /**
+     * 已调度拉取的分片数量，仅由分片发现任务修改
+     */
+    private volatile int scheduledShardCount;
+
+    @Value("${ticket.delay-close.type:}")
+    private String delayCloseType;
+
+    /**
+     * 单个分片单次最多弹出订单数量
+     */
+    @Value("${ticket.delay-close.queue.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 分片空闲时最大拉取间隔，单位毫秒，保证新写入且更早到期的订单能被及时发现
+     */
+    @Value("${ticket.delay-close.queue.max-poll-interval:1000}")
+    private long maxPollInterval;
+
+    /**
+     * 弹出后未确认的订单重新可见时间，单位秒
+     */
+    @Value("${ticket.delay-close.queue.visibility-timeout:60}")
+    private long visibilityTimeout;
+
+    @Value("${ticket.availability.cache-update.type:}")
+    private String ticketAvailabilityCacheUpdateType;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!StrUtil.equals(delayCloseType, REDIS_DELAY_CLOSE_TYPE)) {
+            return;
+        }
+        timingWheel = new HashedWheelTimer(new DefaultThreadFactory("delay-close-order-timing-wheel", true), 100, TimeUnit.MILLISECONDS, 64);
+        scheduleShardDiscovery(0L);
+    }
+
+    private void scheduleShardDiscovery(long delay) {
+        timingWheel.newTimeout(timeout -> delayCloseOrderPollExecutor.execute(this::discoverShards), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void discoverShards() {
+        try {
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            String publishedShardCount = stringRedisTemplate.opsForValue().get(ORDER_DELAY_CLOSE_QUEUE_SHARD_COUNT);
+            int shardCount = StrUtil.isBlank(publishedShardCount) ? 0 : Integer.parseInt(publishedShardCount);
+            for (int shard = scheduledShardCount; shard < shardCount; shard++) {
+                schedule(shard, 0L);
+            }
+            if (shardCount > scheduledShardCount) {
+                log.info("[延迟关闭订单队列] 分片数量由 {} 调整为 {}", scheduledShardCount, shardCount);
+                scheduledShardCount = shardCount;
+            }
+        } catch (Throwable ex) {
+            log.error("[延迟关闭订单队列] 读取订单服务分片数量失败", ex);
+        } finally {
+            if (!stopped) {
+                scheduleShardDiscovery(maxPollInterval);
+            }
+        }
+    }
+
+    private void schedule(int shard, long delay) {
+        timingWheel.newTimeout(timeout -> delayCloseOrderPollExecutor.execute(() -> poll(shard)), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void poll(int shard) {
+        String queueKey = ORDER_DELAY_CLOSE_QUEUE + shard;
+        String releasePendingKey = ORDER_DELAY_CLOSE_RELEASE_PENDING + shard;
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        long nextDelay = maxPollInterval;
+        try {
+            // 重试此前已关闭但释放失败的订单，不依赖本次关闭订单是否成功
+            drain(stringRedisTemplate, releasePendingKey, orderSns -> release(stringRedisTemplate, releasePendingKey, orderSns));
+        } catch (Throwable ex) {
+            log.error("[延迟关闭订单队列] 分片：{} 释放座位与令牌失败，等待重新可见后重试", releasePendingKey, ex);
+        }
+        try {
+            drain(stringRedisTemplate, queueKey, orderSns -> closeAndRelease(stringRedisTemplate, releasePendingKey, orderSns));
+            Set<ZSetOperations.TypedTuple<String>> head = stringRedisTemplate.opsForZSet().rangeWithScores(queueKey, 0, 0);
+            if (CollUtil.isNotEmpty(head)) {
+                long dueDelay = head.iterator().next().getScore().longValue() - System.currentTimeMillis();
+                nextDelay = Math.max(0L, Math.min(dueDelay, maxPollInterval));
+            }
+        } catch (Throwable ex) {
+            log.error("[延迟关闭订单队列] 分片：{} 处理失败，等待重新可见后重试", queueKey, ex);
+        } finally {
+            if (!stopped) {
+                schedule(shard, nextDelay);
+            }
+        }
+    }
+
+    private void drain(StringRedisTemplate stringRedisTemplate, String queueKey, Consumer<List<String>> handler) {
+        List<String> orderSns;
+        do {
+            orderSns = pop(stringRedisTemplate, queueKey);
+            if (CollUtil.isNotEmpty(orderSns)) {
+                handler.accept(orderSns);
+                stringRedisTemplate.opsForZSet().remove(queueKey, orderSns.toArray());
+            }
+        } while (orderSns.size() >= batchSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> pop(StringRedisTemplate stringRedisTemplate, String queueKey) {
+        DefaultRedisScript<List> actual = Singleton.get(LUA_DELAY_CLOSE_ORDER_QUEUE_POP_PATH, () -> {
+            DefaultRedisScript<List> redisScript = new DefaultRedisScript<>();
+            redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_DELAY_CLOSE_ORDER_QUEUE_POP_PATH)));
+            redisScript.setResultType(List.class);
+            return redisScript;
+        });
+        long now = System.currentTimeMillis();
+        return (List<String>) stringRedisTemplate.execute(actual, List.of(queueKey),
+                String.valueOf(now), String.valueOf(batchSize), String.valueOf(now + TimeUnit.SECONDS.toMillis(visibilityTimeout)));
+    }
+
+    private void closeAndRelease(StringRedisTemplate stringRedisTemplate, String releasePendingKey, List<String> orderSns) {
+        Result<List<String>> closeResult = ticketOrderRemoteService.closeTickOrderBatch(orderSns);
+        if (!closeResult.isSuccess()) {
+            throw new ServiceException("远程调用订单服务批量关闭订单失败");
+        }
+        List<String> closedOrderSns = closeResult.getData();
+        // 开启 Binlog 更新缓存时，座位与令牌由订单表 Binlog 消费者释放
+        if (CollUtil.isEmpty(closedOrderSns) || StrUtil.equals(ticketAvailabilityCacheUpdateType, "binlog")) {
+            return;
+        }
+        // 重复关闭不会再返回已关闭订单，移出关闭队列前先记录待释放订单，释放失败时到期后由任一节点重试
+        long retryVisibleTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(visibilityTimeout);
+        Set<ZSetOperations.TypedTuple<String>> releasePendingTuples = closedOrderSns.stream()
+                .map(each -> ZSetOperations.TypedTuple.of(each, (double) retryVisibleTime))
+                .collect(Collectors.toSet());
+        try {
+            stringRedisTemplate.opsForZSet().add(releasePendingKey, releasePendingTuples);
+        } catch (Throwable ex) {
+            log.error("[延迟关闭订单队列] 订单号：{} 已关闭但记录待释放失败，需人工释放座位与令牌", closedOrderSns, ex);
+            throw ex;
+        }
+        try {
+            release(stringRedisTemplate, releasePendingKey, closedOrderSns);
+            stringRedisTemplate.opsForZSet().remove(releasePendingKey, closedOrderSns.toArray());
+        } catch (Throwable ex) {
+            log.error("[延迟关闭订单队列] 订单号：{} 释放座位与令牌失败，等待重新可见后重试", closedOrderSns, ex);
+        }
+    }
+
+    private void release(StringRedisTemplate stringRedisTemplate, String releasePendingKey, List<String> closedOrderSns) {
+        Result<List<TicketOrderDetailRespDTO>> orderDetailResult = ticketOrderRemoteService.listTicketOrderByOrderSns(closedOrderSns);
+        if (!orderDetailResult.isSuccess() || CollUtil.isEmpty(orderDetailResult.getData())) {
+            throw new ServiceException("远程调用订单服务查询已关闭订单详情失败");
+        }
+        Map<String, List<TicketOrderDetailRespDTO>> routeOrderMap = orderDetailResult.getData().stream()
+                .collect(Collectors.groupingBy(each -> StrUtil.join("_", each.getTrainId(), each.getDeparture(), each.getArrival()), LinkedHashMap::new, Collectors.toList()));
+        routeOrderMap.values().forEach(routeOrders -> {
+            List<TicketOrderDetailRespDTO> routeOrderDetails = orderCloseCacheAndTokenUpdateHandler.releaseOrders(routeOrders);
+            incrementRemainingTicket(routeOrderDetails);
+            // 座位解锁与令牌回滚不是幂等操作，区间释放完成后立即移出待释放分片，后续区间失败重试时不会重复释放
+            stringRedisTemplate.opsForZSet().remove(releasePendingKey, routeOrders.stream().map(TicketOrderDetailRespDTO::getOrderSn).toArray());
+        });
+    }
+
+    private void incrementRemainingTicket(List<TicketOrderDetailRespDTO> routeOrderDetails) {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                routeOrderDetails.forEach(routeOrderDetail -> {
+                    String trainId = String.valueOf(routeOrderDetail.getTrainId());
+                    Map<Integer, Long> seatTypeCountMap = routeOrderDetail.getPassengerDetails().stream()
+                            .collect(Collectors.groupingBy(TicketOrderPassengerDetailRespDTO::getSeatType, Collectors.counting()));
+                    List<RouteDTO> routeDTOList = trainStationService.listTakeoutTrainStationRoute(trainId, routeOrderDetail.getDeparture(), routeOrderDetail.getArrival());
+                    routeDTOList.forEach(each -> {
+                        String keySuffix = StrUtil.join("_", trainId, each.getStartStation(), each.getEndStation());
+                        seatTypeCountMap.forEach((seatType, count) -> redisOperations.opsForHash()
+                                .increment(TRAIN_STATION_REMAINING_TICKET + keySuffix, String.valueOf(seatType), count));
+                    });
+                });
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        stopped = true;
+        if (timingWheel != null) {
+            timingWheel.stop();
+        }
+        delayCloseOrderPollExecutor.shutdown();
+    }
+}
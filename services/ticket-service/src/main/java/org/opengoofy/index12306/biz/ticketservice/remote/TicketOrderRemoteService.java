@@ -47,6 +47,14 @@ public interface TicketOrderRemoteService {
     @GetMapping("/api/order-service/order/ticket/query")
     Result<TicketOrderDetailRespDTO> queryTicketOrderByOrderSn(@RequestParam(value = "orderSn") String orderSn);
 
+    /**
+     * 跟据订单号集合批量查询车票订单
+     *
+     * @param orderSns 列车订单号集合
+     * @return 列车订单记录集合，不存在的订单不返回
+     */
+    @PostMapping("/api/order-service/order/ticket/query/batch")
+    Result<List<TicketOrderDetailRespDTO>> listTicketOrderByOrderSns(@RequestBody List<String> orderSns);
 
     /**
      * 跟据子订单记录id查询车票子订单详情
@@ -63,6 +71,15 @@ public interface TicketOrderRemoteService {
     @PostMapping("/api/order-service/order/ticket/create")
     Result<String> createTicketOrder(@RequestBody TicketOrderCreateRemoteReqDTO requestParam);
 
+    /**
+     * 批量创建车票订单
+     *
+     * @param requestParams 创建车票订单请求参数集合
+     * @return 与入参顺序一致的订单号集合
+     */
+    @PostMapping("/api/order-service/order/ticket/create/batch")
+    Result<List<String>> createTicketOrderBatch(@RequestBody List<TicketOrderCreateRemoteReqDTO> requestParams);
+
     /**
      * 车票订单关闭
      *
@@ -72,6 +89,15 @@ public interface TicketOrderRemoteService {
     @PostMapping("/api/order-service/order/ticket/close")
     Result<Boolean> closeTickOrder(@RequestBody CancelTicketOrderReqDTO requestParam);
 
+    /**
+     * 车票订单批量关闭，仅关闭仍处于待支付状态的订单
+     *
+     * @param orderSns 列车订单号集合
+     * @return 本次实际关闭的订单号集合
+     */
+    @PostMapping("/api/order-service/order/ticket/close/batch")
+    Result<List<String>> closeTickOrderBatch(@RequestBody List<String> orderSns);
+
     /**
      * 车票订单取消
      *
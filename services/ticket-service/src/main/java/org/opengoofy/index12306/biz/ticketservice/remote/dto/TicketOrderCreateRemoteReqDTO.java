@@ -35,6 +35,11 @@ import java.util.List;
 @Builder
 public class TicketOrderCreateRemoteReqDTO {
 
+    /**
+     * 订单号，异步创建订单时由购票服务预先生成，为空时由订单服务生成
+     */
+    private String orderSn;
+
     /**
      * 用户 ID
      */
@@ -18,11 +18,14 @@
 package org.opengoofy.index12306.biz.ticketservice.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.SeatStatusEnum;
 import org.opengoofy.index12306.biz.ticketservice.dao.entity.SeatDO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.domain.SeatTypeCountDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 座位接口层
@@ -42,6 +45,17 @@ public interface SeatService extends IService<SeatDO> {
      */
     List<String> listAvailableSeat(String trainId, String carriageNumber, Integer seatType, String departure, String arrival);
 
+    /**
+     * 获取列车座位类型在出发站到到达站区间内的全部可用座位，一次查询按车厢号分组返回
+     *
+     * @param trainId   列车 ID
+     * @param seatType  座位类型
+     * @param departure 出发站
+     * @param arrival   到达站
+     * @return Key：车厢号，按车厢号升序排列，Value：可用座位号集合
+     */
+    Map<String, List<String>> listAvailableSeatGroupByCarriage(String trainId, Integer seatType, String departure, String arrival);
+
     /**
      * 获取列车车厢余票集合
      *
@@ -75,6 +89,15 @@ public interface SeatService extends IService<SeatDO> {
      */
     List<SeatTypeCountDTO> listSeatTypeCount(Long trainId, String startStation, String endStation, List<Integer> seatTypes);
 
+    /**
+     * 统计列车全部站点路线各座位类型可用座位数量，单次聚合查询后在内存中按区间掩码计算
+     *
+     * @param trainId   列车 ID
+     * @param seatTypes 座位类型集合
+     * @return Key：出发站_到达站_座位类型，Value：可用座位数量，无可用座位时为 0
+     */
+    Map<String, Integer> countRouteSeatTypeAvailable(String trainId, List<Integer> seatTypes);
+
     /**
      * 锁定选中以及沿途车票状态
      *
@@ -94,4 +117,16 @@ public interface SeatService extends IService<SeatDO> {
      * @param trainPurchaseTicketResults 乘车人以及座位信息
      */
     void unlock(String trainId, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketResults);
+
+    /**
+     * 批量变更乘车人座位在站点路线上的状态
+     * 所有座位与路线的组合在一条语句内完成变更，匹配记录数与组合数不一致时抛出异常回滚
+     *
+     * @param trainId    列车 ID
+     * @param seatList   乘车人座位集合
+     * @param routeList  站点路线集合
+     * @param fromStatus 变更前座位状态，为空时不限制
+     * @param toStatus   变更后座位状态
+     */
+    void updateSeatStatusBatch(String trainId, List<TrainPurchaseTicketRespDTO> seatList, List<RouteDTO> routeList, SeatStatusEnum fromStatus, SeatStatusEnum toStatus);
 }
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.TicketOrderPendingDO;
+import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPurchaseStatusRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderCreateRemoteReqDTO;
+
+import java.util.List;
+
+/**
+ * 待创建车票订单接口层
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public interface TicketOrderPendingService extends IService<TicketOrderPendingDO> {
+
+    /**
+     * 生成订单号并保存待创建订单，事务提交后通过消息队列异步通知订单服务创建订单
+     * 需在购票事务内调用，保证待创建订单与车票、座位状态同时提交或回滚
+     *
+     * @param requestParams 创建车票订单请求参数集合
+     * @return 与入参顺序一致的订单号集合
+     */
+    List<String> createPendingOrders(List<TicketOrderCreateRemoteReqDTO> requestParams);
+
+    /**
+     * 查询当前用户购票订单创建状态
+     * 订单长时间未创建时重新投递创建订单消息，订单服务按订单号幂等处理
+     *
+     * @param orderSn 订单号
+     * @return 订单创建状态
+     */
+    TicketPurchaseStatusRespDTO queryPurchaseStatus(String orderSn);
+
+    /**
+     * 重新投递长时间未创建订单的创建订单消息，兜底投递失败、节点宕机且用户未查询购票状态的订单
+     * 订单创建后由订单服务延迟关闭未支付订单并释放座位与令牌
+     *
+     * @param limit 单次处理数量上限
+     * @return 本次处理的待创建订单数量
+     */
+    int resendStalePendingOrders(int limit);
+}
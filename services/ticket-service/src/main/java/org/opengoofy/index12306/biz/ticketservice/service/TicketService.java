@@ -27,8 +27,11 @@ import org.opengoofy.index12306.biz.ticketservice.dto.resp.RefundTicketRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPageQueryRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPurchaseRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.remote.dto.PayInfoRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.PurchaseTicketBatchItemDTO;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 /**
  * 车票接口
  * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
@@ -51,6 +54,14 @@ public interface TicketService extends IService<TicketDO> {
      */
     TicketPageQueryRespDTO pageListTicketQueryV2(TicketPageQueryReqDTO requestParam);
 
+    /**
+     * 根据条件分页查询车票V3批量管道版本，保持V1语义的同时合并缓存读取与缓存缺失加载
+     *
+     * @param requestParam 分页查询车票请求参数
+     * @return 查询车票返回结果
+     */
+    TicketPageQueryRespDTO pageListTicketQueryV3(TicketPageQueryReqDTO requestParam);
+
     /**
      * 购买车票
      *
@@ -76,6 +87,15 @@ public interface TicketService extends IService<TicketDO> {
      */
     TicketPurchaseRespDTO executePurchaseTickets(@RequestBody PurchaseTicketReqDTO requestParam);
 
+    /**
+     * 批量执行购买车票
+     * 同一列车、同一座位类型的一批购票请求共享一次座位分配、一次车票批量写入以及一次订单批量创建
+     * 单笔请求分配或锁定座位失败时记录至 {@link PurchaseTicketBatchItemDTO#getError()}，不影响同批次其它请求；写入车票或创建订单失败时整批回滚
+     *
+     * @param batchItems 批量购票请求集合，执行结果回填至各请求
+     */
+    void executePurchaseTicketsBatch(List<PurchaseTicketBatchItemDTO> batchItems);
+
     /**
      * 支付单详情查询
      *
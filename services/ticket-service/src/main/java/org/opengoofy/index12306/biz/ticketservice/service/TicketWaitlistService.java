@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service;
+
+import org.opengoofy.index12306.biz.ticketservice.dto.req.TicketWaitlistCancelReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.TicketWaitlistReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketWaitlistRespDTO;
+
+/**
+ * 候补购票接口层
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public interface TicketWaitlistService {
+
+    /**
+     * 登记候补购票，按 列车 + 座位类型 排队，座位释放后按登记先后自动兑现
+     *
+     * @param requestParam 候补购票请求参数
+     * @return 候补单号
+     */
+    String registerWaitlist(TicketWaitlistReqDTO requestParam);
+
+    /**
+     * 查询当前用户候补购票状态
+     *
+     * @param waitlistId 候补单号
+     * @return 候补状态，已兑现时返回订单号
+     */
+    TicketWaitlistRespDTO queryWaitlist(String waitlistId);
+
+    /**
+     * 取消当前用户排队中的候补购票
+     *
+     * @param requestParam 取消候补购票请求参数
+     */
+    void cancelWaitlist(TicketWaitlistCancelReqDTO requestParam);
+}
@@ -19,6 +19,7 @@ package org.opengoofy.index12306.biz.ticketservice.service;
 
 import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.resp.TrainStationQueryRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.cache.TrainRouteIndex;
 
 import java.util.List;
 
@@ -57,4 +58,13 @@ public interface TrainStationService {
      * @return 需扣减列车站点路线关系信息
      */
     List<RouteDTO> listTakeoutTrainStationRoute(String trainId, String departure, String arrival);
+
+    /**
+     * 获取列车站点路线索引
+     * 索引按站点顺序构建并缓存在本地，返回的路线集合为共享只读对象
+     *
+     * @param trainId 列车 ID
+     * @return 列车站点路线索引
+     */
+    TrainRouteIndex getTrainRouteIndex(String trainId);
 }
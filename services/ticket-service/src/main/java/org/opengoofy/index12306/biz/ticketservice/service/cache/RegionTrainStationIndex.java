@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.cache;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.map.MapUtil;
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.fastjson2.JSON;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainDO;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainStationRelationDO;
+import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainMapper;
+import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainStationRelationMapper;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.TicketListDTO;
+import org.opengoofy.index12306.biz.ticketservice.toolkit.DateUtil;
+import org.opengoofy.index12306.biz.ticketservice.toolkit.TimeStringComparator;
+import org.opengoofy.index12306.framework.starter.bases.Singleton;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.Index12306Constant.ADVANCE_TICKET_DAY;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_REGION_TRAIN_STATION;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_REGION_TRAIN_STATION_DATE_INDEX;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.REGION_TRAIN_STATION;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.REGION_TRAIN_STATION_DATE_INDEX;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_INFO;
+import static org.opengoofy.index12306.biz.ticketservice.toolkit.DateUtil.convertDateToLocalTime;
+
+/**
+ * 城市间车次索引
+ * 车次详情存储于 {@link org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant#REGION_TRAIN_STATION} Hash，
+ * 按出发日期维护 ZSET 索引，成员为车次详情 Hash Field，分值为当日出发时刻（分钟），查询时按分值区间只读取当日车次
+ * 城市间无车次时索引仅包含空值标识，避免每次查询都加锁访问数据库
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Component
+@RequiredArgsConstructor
+public class RegionTrainStationIndex {
+
+    private final TrainMapper trainMapper;
+    private final TrainStationRelationMapper trainStationRelationMapper;
+    private final DistributedCache distributedCache;
+    private final RedissonClient redissonClient;
+
+    private static final String LUA_REGION_TRAIN_STATION_RANGE_PATH = "lua/region_train_station_range.lua";
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+    private static final int LAST_MINUTE_OF_DAY = 24 * 60 - 1;
+    /**
+     * 城市间无车次时写入的空值标识，分值不在任何出发时刻区间内，查询时不会返回
+     */
+    private static final String EMPTY_MEMBER = "__EMPTY__";
+    private static final double EMPTY_MEMBER_SCORE = -1D;
+
+    /**
+     * 获取城市之间的全部车次集合并按出发时间排序，缓存不存在时加锁从数据库加载
+     *
+     * @param startRegion 出发城市
+     * @param endRegion   到达城市
+     * @return 车次集合
+     */
+    public List<TicketListDTO> listRegionTrainStation(String startRegion, String endRegion) {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+//       当传入的是起始站点和终止站点的信息的时候，通过映射表的信息拿到对应起始城市和终止城市的信息， 列车的详细情况的查询
+        List<TicketListDTO> seatResults = new ArrayList<>();
+//        座位的列表定义一个
+        String buildRegionTrainStationHashKey = String.format(REGION_TRAIN_STATION, startRegion, endRegion);
+//       定义一个新的键值对，即也就是初始城市和终止终止的哈希表
+        Map<Object, Object> regionTrainStationAllMap = stringRedisTemplate.opsForHash().entries(buildRegionTrainStationHashKey);
+        if (MapUtil.isEmpty(regionTrainStationAllMap)) {
+//            如果此时这个哈希表为空
+            RLock lock = redissonClient.getLock(LOCK_REGION_TRAIN_STATION);
+            lock.lock();
+            try {
+                regionTrainStationAllMap = stringRedisTemplate.opsForHash().entries(buildRegionTrainStationHashKey);
+                if (MapUtil.isEmpty(regionTrainStationAllMap)) {
+                    Map<String, TicketListDTO> trainMap = loadRegionTrainStation(startRegion, endRegion);
+                    seatResults.addAll(trainMap.values());
+                    for (Map.Entry<String, TicketListDTO> each : trainMap.entrySet()) {
+                        regionTrainStationAllMap.put(each.getKey(), JSON.toJSONString(each.getValue()));
+                    }
+                    stringRedisTemplate.opsForHash().putAll(buildRegionTrainStationHashKey, regionTrainStationAllMap);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+//        此时得到所有的 从 北京到杭州的所有的车次的信息是一个列表，然后每一个实体属于一个列车的信息
+        seatResults = CollUtil.isEmpty(seatResults)
+                ? regionTrainStationAllMap.values().stream().map(each -> JSON.parseObject(each.toString(), TicketListDTO.class)).toList()
+                : seatResults;
+//      根据时间进行排序的操作
+        seatResults = seatResults.stream().sorted(new TimeStringComparator()).toList();
+        return seatResults;
+    }
+
+    /**
+     * 从列车站点关系表加载城市之间的全部车次，Key 为车次详情 Hash Field
+     *
+     * @param startRegion 出发城市
+     * @param endRegion   到达城市
+     * @return 车次集合
+     */
+    private Map<String, TicketListDTO> loadRegionTrainStation(String startRegion, String endRegion) {
+        Map<String, TicketListDTO> trainMap = new LinkedHashMap<>();
+        LambdaQueryWrapper<TrainStationRelationDO> queryWrapper = Wrappers.lambdaQuery(TrainStationRelationDO.class)
+                .eq(TrainStationRelationDO::getStartRegion, startRegion)
+                .eq(TrainStationRelationDO::getEndRegion, endRegion);
+//        查询和我们的起始和终止站点相关的所有的车的信息（根据起始和终止的城市去匹配和查询检索）
+//        查询的是列车站点关系表(进而我们检索出来所有的和当前的起始和终止站点相关v的所有的列车信息)
+        List<TrainStationRelationDO> trainStationRelationList = trainStationRelationMapper.selectList(queryWrapper);
+//        数据库中查询到对应的起始和终止城市之间的所有的车次的信息。
+        for (TrainStationRelationDO each : trainStationRelationList) {
+            TrainDO trainDO = distributedCache.safeGet(
+                    TRAIN_INFO + each.getTrainId(),
+                    TrainDO.class,
+                    () -> trainMapper.selectById(each.getTrainId()),
+                    ADVANCE_TICKET_DAY,
+                    TimeUnit.DAYS);
+//            从缓存中获取列车的信息，先从缓冲中进行查询看是否存在，如果不存在进行获取分布式锁从数据库中获取，并且设置过期时间
+            TicketListDTO result = new TicketListDTO();
+            result.setTrainId(String.valueOf(trainDO.getId()));
+            result.setTrainNumber(trainDO.getTrainNumber());
+            result.setDepartureTime(convertDateToLocalTime(each.getDepartureTime(), "HH:mm"));
+            result.setArrivalTime(convertDateToLocalTime(each.getArrivalTime(), "HH:mm"));
+            result.setDuration(DateUtil.calculateHourDifference(each.getDepartureTime(), each.getArrivalTime()));
+            result.setDeparture(each.getDeparture());
+            result.setArrival(each.getArrival());
+            result.setDepartureFlag(each.getDepartureFlag());
+            result.setArrivalFlag(each.getArrivalFlag());
+            result.setTrainType(trainDO.getTrainType());
+            result.setTrainBrand(trainDO.getTrainBrand());
+            if (StrUtil.isNotBlank(trainDO.getTrainTag())) {
+                result.setTrainTags(StrUtil.split(trainDO.getTrainTag(), ","));
+            }
+            long betweenDay = cn.hutool.core.date.DateUtil.betweenDay(each.getDepartureTime(), each.getArrivalTime(), false);
+            result.setDaysArrived((int) betweenDay);
+            result.setSaleStatus(new Date().after(trainDO.getSaleTime()) ? 0 : 1);
+            result.setSaleTime(convertDateToLocalTime(trainDO.getSaleTime(), "MM-dd HH:mm"));
+            trainMap.put(CacheUtil.buildKey(String.valueOf(each.getTrainId()), each.getDeparture(), each.getArrival()), result);
+        }
+        return trainMap;
+    }
+
+    /**
+     * 按出发日期以及出发时刻区间获取城市之间的车次集合，结果按出发时间有序
+     *
+     * @param startRegion        出发城市
+     * @param endRegion          到达城市
+     * @param departureDate      出发日期
+     * @param departureTimeStart 出发时刻下限，格式 HH:mm，为空时不限制
+     * @param departureTimeEnd   出发时刻上限，格式 HH:mm，为空时不限制
+     * @return 车次集合
+     */
+    public List<TicketListDTO> rangeRegionTrainStation(String startRegion, String endRegion, Date departureDate,
+                                                       String departureTimeStart, String departureTimeEnd) {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        LocalDate actualDepartureDate = toLocalDate(departureDate);
+        String indexKey = String.format(REGION_TRAIN_STATION_DATE_INDEX, startRegion, endRegion, actualDepartureDate);
+        if (!distributedCache.hasKey(indexKey)) {
+            RLock lock = redissonClient.getLock(String.format(LOCK_REGION_TRAIN_STATION_DATE_INDEX, indexKey));
+            lock.lock();
+            try {
+                if (!distributedCache.hasKey(indexKey)) {
+                    refresh(startRegion, endRegion, departureDate);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        DefaultRedisScript<List> actual = Singleton.get(LUA_REGION_TRAIN_STATION_RANGE_PATH, () -> {
+            DefaultRedisScript<List> redisScript = new DefaultRedisScript<>();
+            redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_REGION_TRAIN_STATION_RANGE_PATH)));
+            redisScript.setResultType(List.class);
+            return redisScript;
+        });
+        List<?> regionTrainStationList = stringRedisTemplate.execute(actual,
+                List.of(indexKey, String.format(REGION_TRAIN_STATION, startRegion, endRegion)),
+                String.valueOf(toMinuteOfDay(departureTimeStart, 0)),
+                String.valueOf(toMinuteOfDay(departureTimeEnd, LAST_MINUTE_OF_DAY)));
+        if (CollUtil.isEmpty(regionTrainStationList)) {
+            return new ArrayList<>();
+        }
+        return regionTrainStationList.stream()
+                .filter(Objects::nonNull)
+                .map(each -> JSON.parseObject(each.toString(), TicketListDTO.class))
+                .toList();
+    }
+
+    /**
+     * 增量刷新城市之间指定日期的车次索引：从列车站点关系表重新加载车次，改写车次详情 Hash 并新增或更新索引分值，移除已不存在的车次
+     * 当前车次数据未区分开行日期，按每日开行处理，各日期索引成员相同，出发时刻取车次站点关系中的出发时间
+     *
+     * @param startRegion   出发城市
+     * @param endRegion     到达城市
+     * @param departureDate 出发日期
+     */
+    public void refresh(String startRegion, String endRegion, Date departureDate) {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        Map<String, TicketListDTO> trainMap = loadRegionTrainStation(startRegion, endRegion);
+        String hashKey = String.format(REGION_TRAIN_STATION, startRegion, endRegion);
+        if (MapUtil.isNotEmpty(trainMap)) {
+            Map<String, String> hashEntries = new LinkedHashMap<>();
+            trainMap.forEach((field, each) -> hashEntries.put(field, JSON.toJSONString(each)));
+            stringRedisTemplate.opsForHash().putAll(hashKey, hashEntries);
+        }
+        List<TicketListDTO> trainList = new ArrayList<>(trainMap.values());
+        LocalDate actualDepartureDate = toLocalDate(departureDate);
+        String indexKey = String.format(REGION_TRAIN_STATION_DATE_INDEX, startRegion, endRegion, actualDepartureDate);
+        // 索引保留至出发日期次日结束，覆盖跨零点查询
+        Date expireAt = Date.from(actualDepartureDate.plusDays(2).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        if (CollUtil.isEmpty(trainList)) {
+            stringRedisTemplate.opsForZSet().add(indexKey, EMPTY_MEMBER, EMPTY_MEMBER_SCORE);
+            stringRedisTemplate.opsForZSet().removeRangeByScore(indexKey, 0, LAST_MINUTE_OF_DAY);
+            stringRedisTemplate.expireAt(indexKey, expireAt);
+            stringRedisTemplate.delete(hashKey);
+            return;
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        Set<String> members = new HashSet<>();
+        trainList.forEach(each -> {
+            String member = CacheUtil.buildKey(each.getTrainId(), each.getDeparture(), each.getArrival());
+            members.add(member);
+            tuples.add(ZSetOperations.TypedTuple.of(member, (double) toMinuteOfDay(each.getDepartureTime(), 0)));
+        });
+        stringRedisTemplate.opsForZSet().add(indexKey, tuples);
+        Set<String> staleMembers = Optional.ofNullable(stringRedisTemplate.opsForZSet().range(indexKey, 0, -1))
+                .orElseGet(HashSet::new);
+        staleMembers.removeAll(members);
+        if (CollUtil.isNotEmpty(staleMembers)) {
+            stringRedisTemplate.opsForZSet().remove(indexKey, staleMembers.toArray());
+        }
+        stringRedisTemplate.expireAt(indexKey, expireAt);
+        // 索引更新后再删除已不存在车次的详情，其它日期索引仍引用时查询结果中为空并被过滤
+        Set<Object> staleFields = stringRedisTemplate.opsForHash().keys(hashKey);
+        staleFields.removeAll(trainMap.keySet());
+        if (CollUtil.isNotEmpty(staleFields)) {
+            stringRedisTemplate.opsForHash().delete(hashKey, staleFields.toArray());
+        }
+    }
+
+    private LocalDate toLocalDate(Date date) {
+        return Optional.ofNullable(date)
+                .map(each -> each.toInstant().atZone(ZoneId.systemDefault()).toLocalDate())
+                .orElseGet(LocalDate::now);
+    }
+
+    private int toMinuteOfDay(String time, int defaultMinute) {
+        if (StrUtil.isBlank(time)) {
+            return defaultMinute;
+        }
+        LocalTime localTime = LocalTime.parse(time, TIME_FORMATTER);
+        return localTime.getHour() * 60 + localTime.getMinute();
+    }
+}
@@ -28,11 +28,15 @@ import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainDO;
 import org.opengoofy.index12306.biz.ticketservice.dao.mapper.SeatMapper;
 import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainMapper;
 import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.TicketListDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.TrainStationService;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
 import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
@@ -142,6 +146,43 @@ public class SeatMarginCacheLoader {
                 .orElse(new LinkedHashMap<>());
     }
 
+    /**
+     * 批量加载列车站点区间余票缓存，所有缺失区间仅查询一次数据库并通过管道回写缓存
+     * 回写使用 HSETNX，已存在的余票字段不会被覆盖，避免覆盖并发购票对余票缓存的扣减
+     *
+     * @param trainList 缺失余票缓存的车次集合
+     * @return Key：列车ID_出发站_到达站，Value：座位类型 -> 余票数量
+     */
+    public Map<String, Map<String, String>> loadBatch(List<TicketListDTO> trainList) {
+        Map<String, Map<String, String>> trainStationRemainingTicketMaps = new LinkedHashMap<>();
+        if (CollUtil.isEmpty(trainList)) {
+            return trainStationRemainingTicketMaps;
+        }
+        trainList.forEach(each -> {
+            Map<String, String> trainStationRemainingTicket = new LinkedHashMap<>();
+            VehicleTypeEnum.findSeatTypesByCode(each.getTrainType())
+                    .forEach(item -> trainStationRemainingTicket.put(String.valueOf(item), "0"));
+            trainStationRemainingTicketMaps.put(CacheUtil.buildKey(each.getTrainId(), each.getDeparture(), each.getArrival()), trainStationRemainingTicket);
+        });
+        seatMapper.listRouteSeatTypeCount(trainList).forEach(each -> {
+            String keySuffix = CacheUtil.buildKey(String.valueOf(each.getTrainId()), each.getStartStation(), each.getEndStation());
+            Optional.ofNullable(trainStationRemainingTicketMaps.get(keySuffix))
+                    .ifPresent(item -> item.put(String.valueOf(each.getSeatType()), String.valueOf(each.getSeatCount())));
+        });
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                HashOperations<String, String, String> hashOperations = ((RedisOperations<String, String>) operations).opsForHash();
+                trainStationRemainingTicketMaps.forEach((keySuffix, trainStationRemainingTicket) -> trainStationRemainingTicket
+                        .forEach((seatType, quantity) -> hashOperations.putIfAbsent(TRAIN_STATION_REMAINING_TICKET + keySuffix, seatType, quantity)));
+                return null;
+            }
+        });
+        return trainStationRemainingTicketMaps;
+    }
+
     private String selectSeatMargin(String trainId, Integer type, String departure, String arrival) {
         LambdaQueryWrapper<SeatDO> queryWrapper = Wrappers.lambdaQuery(SeatDO.class)
                 .eq(SeatDO::getTrainId, trainId)
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.cache;
+
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 列车站点路线索引，按站点顺序为每个站点分配序号
+ * 任意两站之间的路线实例仅创建一次，经停路线与扣减路线按出发站、到达站序号缓存，热点路径上不再访问数据库或重复创建站点对
+ * 返回的路线集合以及路线实体均为共享只读对象，调用方不允许修改
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public final class TrainRouteIndex {
+
+    private final String[] stations;
+
+    private final Map<String, Integer> stationOrdinalMap;
+
+    /**
+     * routes[i][j] 表示第 i 站到第 j 站的路线，仅 i < j 有效
+     */
+    private final RouteDTO[][] routes;
+
+    /**
+     * Key：出发站序号 * 站点数量 + 到达站序号
+     */
+    private final Map<Integer, List<RouteDTO>> throughRouteCache = new ConcurrentHashMap<>();
+
+    private final Map<Integer, List<RouteDTO>> takeoutRouteCache = new ConcurrentHashMap<>();
+
+    public TrainRouteIndex(List<String> stationList) {
+        int size = stationList.size();
+        this.stations = stationList.toArray(new String[0]);
+        this.stationOrdinalMap = new HashMap<>(size << 1);
+        this.routes = new RouteDTO[size][size];
+        for (int i = 0; i < size; i++) {
+            stationOrdinalMap.putIfAbsent(stations[i], i);
+            for (int j = i + 1; j < size; j++) {
+                routes[i][j] = new RouteDTO(stations[i], stations[j]);
+            }
+        }
+    }
+
+    /**
+     * 站点数量
+     */
+    public int size() {
+        return stations.length;
+    }
+
+    /**
+     * 获取站点序号，站点不存在返回 -1
+     */
+    public int ordinal(String station) {
+        Integer ordinal = stationOrdinalMap.get(station);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * 根据序号获取站点名称
+     */
+    public String station(int ordinal) {
+        return stations[ordinal];
+    }
+
+    /**
+     * 根据站点序号获取路线
+     */
+    public RouteDTO route(int startOrdinal, int endOrdinal) {
+        return routes[startOrdinal][endOrdinal];
+    }
+
+    /**
+     * 出发站和终点站中间的路线（包含出发站和终点站），语义同 {@link org.opengoofy.index12306.biz.ticketservice.toolkit.StationCalculateUtil#throughStation}
+     */
+    public List<RouteDTO> listThroughRoute(String departure, String arrival) {
+        int startOrdinal = ordinal(departure);
+        int endOrdinal = ordinal(arrival);
+        if (startOrdinal < 0 || endOrdinal < 0 || startOrdinal >= endOrdinal) {
+            return Collections.emptyList();
+        }
+        return throughRouteCache.computeIfAbsent(startOrdinal * stations.length + endOrdinal, key -> {
+            List<RouteDTO> result = new ArrayList<>();
+            for (int i = startOrdinal; i < endOrdinal; i++) {
+                for (int j = i + 1; j <= endOrdinal; j++) {
+                    result.add(routes[i][j]);
+                }
+            }
+            return Collections.unmodifiableList(result);
+        });
+    }
+
+    /**
+     * 出发站到终点站购票后需要扣减余票的路线，即与 [出发站, 终点站) 存在重叠的全部路线，
+     * 语义同 {@link org.opengoofy.index12306.biz.ticketservice.toolkit.StationCalculateUtil#takeoutStation}
+     */
+    public List<RouteDTO> listTakeoutRoute(String departure, String arrival) {
+        int startOrdinal = ordinal(departure);
+        int endOrdinal = ordinal(arrival);
+        if (startOrdinal < 0 || endOrdinal < 0 || startOrdinal >= endOrdinal) {
+            return Collections.emptyList();
+        }
+        return takeoutRouteCache.computeIfAbsent(startOrdinal * stations.length + endOrdinal, key -> {
+            List<RouteDTO> result = new ArrayList<>();
+            forEachTakeoutRoute(startOrdinal, endOrdinal, (i, j) -> result.add(routes[i][j]));
+            return Collections.unmodifiableList(result);
+        });
+    }
+
+    /**
+     * 按站点序号遍历需要扣减余票的路线，不创建任何中间对象
+     */
+    public void forEachTakeoutRoute(int startOrdinal, int endOrdinal, RouteOrdinalConsumer consumer) {
+        for (int i = 0; i < endOrdinal; i++) {
+            for (int j = Math.max(i, startOrdinal) + 1; j < stations.length; j++) {
+                consumer.accept(i, j);
+            }
+        }
+    }
+
+    /**
+     * 路线站点序号消费者
+     */
+    @FunctionalInterface
+    public interface RouteOrdinalConsumer {
+
+        void accept(int startOrdinal, int endOrdinal);
+    }
+}
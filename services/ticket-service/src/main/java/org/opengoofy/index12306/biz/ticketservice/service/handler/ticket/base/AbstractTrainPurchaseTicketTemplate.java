@@ -24,6 +24,7 @@ import org.opengoofy.index12306.biz.ticketservice.dto.domain.TrainSeatBaseDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.TrainStationService;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.SelectSeatDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select.CarriageSeatSnapshot;
 import org.opengoofy.index12306.framework.starter.bases.ApplicationContextHolder;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
 import org.opengoofy.index12306.framework.starter.designpattern.strategy.AbstractExecuteStrategy;
@@ -32,6 +33,8 @@ import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.data.redis.core.StringRedisTemplate;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_STATION_REMAINING_TICKET;
 
@@ -63,9 +66,27 @@ public abstract class AbstractTrainPurchaseTicketTemplate implements IPurchaseTi
                 .build();
     }
 
+    /**
+     * 获取车厢可用座位，批量购票时复用批次共享快照
+     *
+     * @param requestParam 选择座位实体
+     * @param loader       车厢可用座位加载器
+     * @return Key：车厢号，Value：可用座位号集合
+     */
+    protected Map<String, List<String>> getCarriageAvailableSeatMap(SelectSeatDTO requestParam, Supplier<Map<String, List<String>>> loader) {
+        CarriageSeatSnapshot seatSnapshot = requestParam.getSeatSnapshot();
+        if (seatSnapshot == null) {
+            return loader.get();
+        }
+        return seatSnapshot.getCarriageAvailableSeatMap(requestParam.getRequestParam().getDeparture(), requestParam.getRequestParam().getArrival(), loader);
+    }
+
     @Override
     public List<TrainPurchaseTicketRespDTO> executeResp(SelectSeatDTO requestParam) {
         List<TrainPurchaseTicketRespDTO> actualResult = selectSeats(requestParam);
+        if (CollUtil.isNotEmpty(actualResult) && requestParam.getSeatSnapshot() != null) {
+            requestParam.getSeatSnapshot().occupy(requestParam.getRequestParam().getDeparture(), requestParam.getRequestParam().getArrival(), actualResult);
+        }
         // 扣减车厢余票缓存，扣减站点余票缓存
         if (CollUtil.isNotEmpty(actualResult) && !StrUtil.equals(ticketAvailabilityCacheUpdateType, "binlog")) {
             String trainId = requestParam.getRequestParam().getTrainId();
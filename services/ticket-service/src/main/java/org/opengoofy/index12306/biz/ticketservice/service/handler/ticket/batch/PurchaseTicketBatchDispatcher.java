@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.batch;
+
+import cn.hippo4j.core.executor.support.ThreadPoolBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.PurchaseTicketReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPurchaseRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderDetailRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderPassengerDetailRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.TicketService;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.PurchaseTicketBatchItemDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket.TicketAvailabilityTokenBucket;
+import org.opengoofy.index12306.framework.starter.bases.ApplicationContextHolder;
+import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
+import org.opengoofy.index12306.frameworks.starter.user.core.UserContext;
+import org.opengoofy.index12306.frameworks.starter.user.core.UserInfoDTO;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_PURCHASE_TICKETS_V2;
+
+/**
+ * 同列车、同座位类型购票请求批量提交调度器
+ * <p>
+ * 开启方式：ticket.purchase.batch.enabled=true，默认仍逐笔加锁购票
+ * 请求按列车 ID 与座位类型入队，同一队列同时只有一个线程消费；消费线程每次取出至多 max-size 笔请求，
+ * 获取一次分布式锁后在同一事务内完成座位分配、锁定、车票写入与订单批量创建，事务提交后再逐笔唤醒请求线程
+ * 请求线程最多等待 wait-timeout 毫秒；购票失败或等待超时未被执行的请求由消费线程回滚已获取的令牌
+ * 请求线程只入队与等待，不参与消费；消费线程池饱和时拒绝队列中的请求并回滚令牌，避免请求线程排空队列且不受等待超时约束
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PurchaseTicketBatchDispatcher implements DisposableBean {
+
+    private final RedissonClient redissonClient;
+    private final ConfigurableEnvironment environment;
+    private final TicketAvailabilityTokenBucket ticketAvailabilityTokenBucket;
+
+    private final Map<String, BatchQueue> batchQueueMap = new ConcurrentHashMap<>();
+    /**
+     * 每个队列同时最多占用一个线程，线程耗尽时拒绝提交，由 {@link #dispatch(BatchQueue)} 拒绝队列中的请求
+     */
+    private final ThreadPoolExecutor purchaseTicketBatchExecutor = ThreadPoolBuilder.builder()
+            .threadFactory("purchase-ticket-batch-executor")
+            .poolThreadSize(8, 64)
+            .workQueue(new SynchronousQueue<>())
+            .rejected(new ThreadPoolExecutor.AbortPolicy())
+            .build();
+
+    @Value("${ticket.purchase.batch.enabled:false}")
+    private boolean enabled;
+    @Value("${ticket.purchase.batch.max-size:32}")
+    private int maxSize;
+    @Value("${ticket.purchase.batch.wait-timeout:10000}")
+    private long waitTimeout;
+
+    private TicketService ticketService;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交购票请求并等待所在批次执行完成，请求中所有乘车人需为同一座位类型
+     *
+     * @param requestParam 购票请求入参
+     * @return 订单号以及车票详情
+     */
+    public TicketPurchaseRespDTO purchaseTickets(PurchaseTicketReqDTO requestParam) {
+        Integer seatType = requestParam.getPassengers().get(0).getSeatType();
+        String queueKey = requestParam.getTrainId() + "_" + seatType;
+        UserInfoDTO user = UserInfoDTO.builder()
+                .userId(UserContext.getUserId())
+                .username(UserContext.getUsername())
+                .realName(UserContext.getRealName())
+                .token(UserContext.getToken())
+                .build();
+        PendingRequest pendingRequest = new PendingRequest(PurchaseTicketBatchItemDTO.builder().requestParam(requestParam).user(user).build());
+        BatchQueue batchQueue = batchQueueMap.computeIfAbsent(queueKey, key -> new BatchQueue(requestParam.getTrainId(), seatType));
+        batchQueue.requests.offer(pendingRequest);
+        dispatch(batchQueue);
+        try {
+            return pendingRequest.future.get(waitTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            // 尚未被消费线程取出的请求直接取消，已在执行中的请求仍可能购票成功
+            pendingRequest.future.cancel(false);
+            log.warn("批量购票等待超时，列车ID：{}，座位类型：{}，用户名：{}", requestParam.getTrainId(), seatType, user.getUsername());
+            throw new ServiceException("购票排队超时，请稍后在订单列表查看购票结果");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException("购票请求已中断");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ServiceException(ex.getCause().getMessage());
+        }
+    }
+
+    private void dispatch(BatchQueue batchQueue) {
+        while (batchQueue.draining.compareAndSet(false, true)) {
+            try {
+                purchaseTicketBatchExecutor.execute(() -> drain(batchQueue));
+                return;
+            } catch (RejectedExecutionException ex) {
+                log.warn("批量购票线程池已饱和，拒绝排队请求，列车ID：{}，座位类型：{}", batchQueue.trainId, batchQueue.seatType);
+                reject(batchQueue);
+                batchQueue.draining.set(false);
+                // 释放消费权后可能有新请求入队且入队线程未抢到消费权，需再次检查
+                if (batchQueue.requests.isEmpty()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void reject(BatchQueue batchQueue) {
+        PendingRequest pendingRequest;
+        while ((pendingRequest = batchQueue.requests.poll()) != null) {
+            rollbackToken(pendingRequest.batchItem);
+            pendingRequest.future.completeExceptionally(new ServiceException("购票人数过多，请稍后再试"));
+        }
+    }
+
+    private void drain(BatchQueue batchQueue) {
+        while (true) {
+            List<PendingRequest> batch = new ArrayList<>(maxSize);
+            PendingRequest pendingRequest;
+            while (batch.size() < maxSize && (pendingRequest = batchQueue.requests.poll()) != null) {
+                if (pendingRequest.future.isCancelled()) {
+                    rollbackToken(pendingRequest.batchItem);
+                    continue;
+                }
+                batch.add(pendingRequest);
+            }
+            if (batch.isEmpty()) {
+                batchQueue.draining.set(false);
+                // 释放消费权后可能有新请求入队且入队线程未抢到消费权，需再次检查
+                if (batchQueue.requests.isEmpty() || !batchQueue.draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            executeBatch(batchQueue, batch);
+        }
+    }
+
+    private void executeBatch(BatchQueue batchQueue, List<PendingRequest> batch) {
+        List<PurchaseTicketBatchItemDTO> batchItems = batch.stream().map(each -> each.batchItem).toList();
+        String lockKey = environment.resolvePlaceholders(String.format(LOCK_PURCHASE_TICKETS_V2, batchQueue.trainId, batchQueue.seatType));
+        RLock lock = redissonClient.getFairLock(lockKey);
+        try {
+            lock.lock();
+            try {
+                getTicketService().executePurchaseTicketsBatch(batchItems);
+            } finally {
+                lock.unlock();
+            }
+        } catch (Throwable ex) {
+            log.error("批量购票执行失败，列车ID：{}，座位类型：{}，请求数量：{}", batchQueue.trainId, batchQueue.seatType, batch.size(), ex);
+            batch.forEach(each -> {
+                rollbackToken(each.batchItem);
+                each.future.completeExceptionally(ex);
+            });
+            return;
+        }
+        batch.forEach(each -> {
+            if (each.batchItem.getError() != null) {
+                rollbackToken(each.batchItem);
+                each.future.completeExceptionally(each.batchItem.getError());
+            } else {
+                each.future.complete(each.batchItem.getResult());
+            }
+        });
+    }
+
+    private void rollbackToken(PurchaseTicketBatchItemDTO batchItem) {
+        PurchaseTicketReqDTO requestParam = batchItem.getRequestParam();
+        TicketOrderDetailRespDTO ticketOrderDetail = new TicketOrderDetailRespDTO();
+        ticketOrderDetail.setTrainId(Long.parseLong(requestParam.getTrainId()));
+        ticketOrderDetail.setDeparture(requestParam.getDeparture());
+        ticketOrderDetail.setArrival(requestParam.getArrival());
+        ticketOrderDetail.setPassengerDetails(requestParam.getPassengers().stream()
+                .map(each -> {
+                    TicketOrderPassengerDetailRespDTO passengerDetail = new TicketOrderPassengerDetailRespDTO();
+                    passengerDetail.setSeatType(each.getSeatType());
+                    return passengerDetail;
+                })
+                .toList());
+        try {
+            ticketAvailabilityTokenBucket.rollbackInBucket(ticketOrderDetail);
+        } catch (Throwable ex) {
+            log.error("批量购票回滚令牌失败，列车ID：{}，用户名：{}", requestParam.getTrainId(), batchItem.getUser().getUsername(), ex);
+        }
+    }
+
+    private TicketService getTicketService() {
+        if (ticketService == null) {
+            ticketService = ApplicationContextHolder.getBean(TicketService.class);
+        }
+        return ticketService;
+    }
+
+    @Override
+    public void destroy() {
+        purchaseTicketBatchExecutor.shutdown();
+    }
+
+    @RequiredArgsConstructor
+    private static final class BatchQueue {
+
+        private final String trainId;
+        private final Integer seatType;
+        private final Queue<PendingRequest> requests = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+    }
+
+    @RequiredArgsConstructor
+    private static final class PendingRequest {
+
+        private final PurchaseTicketBatchItemDTO batchItem;
+        private final CompletableFuture<TicketPurchaseRespDTO> future = new CompletableFuture<>();
+    }
+}
@@ -15,37 +15,43 @@
  * limitations under the License.
  */
 
-package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.base;
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto;
 
-import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
-
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.PurchaseTicketReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPurchaseRespDTO;
+import org.opengoofy.index12306.frameworks.starter.user.core.UserInfoDTO;
 
 /**
- * 抽象的验证座位实体类
+ * 批量购票单笔请求实体
  * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
  */
-public interface BitMapCheckSeat {
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public final class PurchaseTicketBatchItemDTO {
+
+    /**
+     * 购票原始入参
+     */
+    private PurchaseTicketReqDTO requestParam;
+
+    /**
+     * 发起购票的用户，批次在独立线程中执行，需按请求还原用户上下文
+     */
+    private UserInfoDTO user;
 
     /**
-     * 座位是否存在检查方法
-     *
-     * @param key              缓存Key
-     * @param convert          座位统计Map
-     * @param distributedCache 分布式缓存接口
-     * @return 判断座位是否存在 true or false
+     * 购票结果
      */
-    boolean checkSeat(String key, HashMap<Integer, Integer> convert, DistributedCache distributedCache);
+    private TicketPurchaseRespDTO result;
 
     /**
-     * 检查座位是否存在 v2 版本
-     *
-     * @param chooseSeatList 选择座位
-     * @param actualSeats    座位状态数组
-     * @param SEAT_Y_INT     坐标转换 Map
-     * @return
+     * 购票失败原因，仅记录不影响同批次其它请求的失败，例如余票不足
      */
-    boolean checkChooseSeat(List<String> chooseSeatList, int[][] actualSeats, Map<Character, Integer> SEAT_Y_INT);
+    private Throwable error;
 }
@@ -23,6 +23,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.opengoofy.index12306.biz.ticketservice.dto.domain.PurchaseTicketPassengerDetailDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.req.PurchaseTicketReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select.CarriageSeatSnapshot;
 
 import java.util.List;
 
@@ -50,4 +51,9 @@ public final class SelectSeatDTO {
      * 购票原始入参
      */
     private PurchaseTicketReqDTO requestParam;
+
+    /**
+     * 批量购票共享的车厢可用座位快照，单笔购票时为空
+     */
+    private CarriageSeatSnapshot seatSnapshot;
 }
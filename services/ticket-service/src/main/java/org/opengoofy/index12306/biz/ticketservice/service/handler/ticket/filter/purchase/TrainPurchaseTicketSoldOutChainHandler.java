@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.filter.purchase;
+
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.PurchaseTicketReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket.TicketSoldOutRegistry;
+import org.opengoofy.index12306.framework.starter.convention.exception.ClientException;
+import org.springframework.stereotype.Component;
+
+/**
+ * 购票流程过滤器之本地售罄登记快速拒绝，命中时不再访问 Redis
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Component
+@RequiredArgsConstructor
+public class TrainPurchaseTicketSoldOutChainHandler implements TrainPurchaseTicketChainFilter<PurchaseTicketReqDTO> {
+
+    private final TicketSoldOutRegistry ticketSoldOutRegistry;
+
+    @Override
+    public void handler(PurchaseTicketReqDTO requestParam) {
+        if (ticketSoldOutRegistry.isSoldOut(requestParam)) {
+            throw new ClientException("列车站点已无余票");
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return 5;
+    }
+}
@@ -17,13 +17,17 @@
 
 package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.filter.query;
 
+import cn.hutool.core.util.StrUtil;
 import lombok.RequiredArgsConstructor;
 import org.opengoofy.index12306.biz.ticketservice.dto.req.TicketPageQueryReqDTO;
 import org.opengoofy.index12306.framework.starter.convention.exception.ClientException;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Objects;
 
 /**
@@ -35,6 +39,9 @@ import java.util.Objects;
 public class TrainTicketQueryParamBaseVerifyChainFilter implements TrainTicketQueryChainFilter<TicketPageQueryReqDTO> {
 // 校验车票的车发日期是否是合理的
 //    出发和目的地不能相同
+//    出发时刻区间格式为 HH:mm，下限不能晚于上限
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
 
     @Override
     public void handler(TicketPageQueryReqDTO requestParam) {
@@ -44,6 +51,22 @@ public class TrainTicketQueryParamBaseVerifyChainFilter implements TrainTicketQu
         if (Objects.equals(requestParam.getFromStation(), requestParam.getToStation())) {
             throw new ClientException("出发地和目的地不能相同");
         }
+        LocalTime departureTimeStart = parseDepartureTime(requestParam.getDepartureTimeStart(), "出发时刻下限");
+        LocalTime departureTimeEnd = parseDepartureTime(requestParam.getDepartureTimeEnd(), "出发时刻上限");
+        if (departureTimeStart != null && departureTimeEnd != null && departureTimeStart.isAfter(departureTimeEnd)) {
+            throw new ClientException("出发时刻下限不能晚于上限");
+        }
+    }
+
+    private LocalTime parseDepartureTime(String time, String fieldName) {
+        if (StrUtil.isBlank(time)) {
+            return null;
+        }
+        try {
+            return LocalTime.parse(time, TIME_FORMATTER);
+        } catch (DateTimeParseException ex) {
+            throw new ClientException(fieldName + "格式错误，应为 HH:mm");
+        }
     }
 
     @Override
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.filter.waitlist;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.StrUtil;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.TicketWaitlistReqDTO;
+import org.opengoofy.index12306.framework.starter.convention.exception.ClientException;
+import org.springframework.stereotype.Component;
+
+/**
+ * 候补购票流程过滤器之验证参数必填
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Component
+public class TrainWaitlistTicketParamNotNullChainHandler implements TrainWaitlistTicketChainFilter<TicketWaitlistReqDTO> {
+
+    @Override
+    public void handler(TicketWaitlistReqDTO requestParam) {
+        if (StrUtil.isBlank(requestParam.getTrainId())) {
+            throw new ClientException("列车标识不能为空");
+        }
+        if (StrUtil.isBlank(requestParam.getDeparture())) {
+            throw new ClientException("出发站点不能为空");
+        }
+        if (StrUtil.isBlank(requestParam.getArrival())) {
+            throw new ClientException("到达站点不能为空");
+        }
+        if (requestParam.getSeatType() == null) {
+            throw new ClientException("座位类型不能为空");
+        }
+        if (CollUtil.isEmpty(requestParam.getPassengers())) {
+            throw new ClientException("乘车人至少选择一位");
+        }
+        if (requestParam.getPassengers().stream().anyMatch(StrUtil::isBlank)) {
+            throw new ClientException("乘车人不能为空");
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.filter.waitlist;
+
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.VehicleTypeEnum;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainDO;
+import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainMapper;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.PurchaseTicketPassengerDetailDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.PurchaseTicketReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.TicketWaitlistReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.filter.purchase.TrainPurchaseTicketParamVerifyChainHandler;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.convention.exception.ClientException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.Index12306Constant.ADVANCE_TICKET_DAY;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_INFO;
+
+/**
+ * 候补购票流程过滤器之验证参数是否有效
+ * 车次、发售时间与站点顺序复用购票参数校验，余票相关校验不适用于候补，额外校验座位类型属于该车次
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Component
+@RequiredArgsConstructor
+public class TrainWaitlistTicketParamVerifyChainHandler implements TrainWaitlistTicketChainFilter<TicketWaitlistReqDTO> {
+
+    private final TrainPurchaseTicketParamVerifyChainHandler trainPurchaseTicketParamVerifyChainHandler;
+    private final TrainMapper trainMapper;
+    private final DistributedCache distributedCache;
+
+    @Override
+    public void handler(TicketWaitlistReqDTO requestParam) {
+        PurchaseTicketReqDTO purchaseTicketReqDTO = new PurchaseTicketReqDTO();
+        purchaseTicketReqDTO.setTrainId(requestParam.getTrainId());
+        purchaseTicketReqDTO.setDeparture(requestParam.getDeparture());
+        purchaseTicketReqDTO.setArrival(requestParam.getArrival());
+        purchaseTicketReqDTO.setPassengers(requestParam.getPassengers().stream()
+                .map(each -> {
+                    PurchaseTicketPassengerDetailDTO passengerDetail = new PurchaseTicketPassengerDetailDTO();
+                    passengerDetail.setPassengerId(each);
+                    passengerDetail.setSeatType(requestParam.getSeatType());
+                    return passengerDetail;
+                })
+                .toList());
+        trainPurchaseTicketParamVerifyChainHandler.handler(purchaseTicketReqDTO);
+        TrainDO trainDO = distributedCache.safeGet(
+                TRAIN_INFO + requestParam.getTrainId(),
+                TrainDO.class,
+                () -> trainMapper.selectById(requestParam.getTrainId()),
+                ADVANCE_TICKET_DAY,
+                TimeUnit.DAYS);
+        List<Integer> seatTypes = VehicleTypeEnum.findSeatTypesByCode(trainDO.getTrainType());
+        if (seatTypes == null || !seatTypes.contains(requestParam.getSeatType())) {
+            throw new ClientException("列车不存在该座位类型");
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return 10;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.inventory;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 车厢座位库存
+ * 每个座位使用一个 long 记录原子区间占用情况，第 i 位为 1 表示第 i 站到第 i + 1 站已被占用
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public final class CarriageSeatInventory {
+
+    @Getter
+    private final String carriageNumber;
+
+    @Getter
+    private final Integer seatType;
+
+    private final String[] seatNumbers;
+
+    private final long[] occupancies;
+
+    private final Map<String, Integer> seatIndexMap;
+
+    CarriageSeatInventory(String carriageNumber, Integer seatType, List<String> seatNumberList, List<Long> occupancyList) {
+        this.carriageNumber = carriageNumber;
+        this.seatType = seatType;
+        this.seatNumbers = seatNumberList.toArray(new String[0]);
+        this.occupancies = new long[seatNumbers.length];
+        this.seatIndexMap = new HashMap<>(seatNumbers.length << 1);
+        for (int i = 0; i < seatNumbers.length; i++) {
+            occupancies[i] = occupancyList.get(i);
+            seatIndexMap.put(seatNumbers[i], i);
+        }
+    }
+
+    /**
+     * 获取区间内可用座位号集合
+     *
+     * @param rangeMask 区间掩码
+     * @return 可用座位号集合
+     */
+    public synchronized List<String> listAvailableSeat(long rangeMask) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < seatNumbers.length; i++) {
+            if ((occupancies[i] & rangeMask) == 0) {
+                result.add(seatNumbers[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 统计区间内可用座位数量
+     *
+     * @param rangeMask 区间掩码
+     * @return 可用座位数量
+     */
+    public synchronized int countAvailableSeat(long rangeMask) {
+        int count = 0;
+        for (long each : occupancies) {
+            if ((each & rangeMask) == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 占用座位指定区间，区间内任一原子区间已被占用时返回 false
+     */
+    synchronized boolean occupy(String seatNumber, long rangeMask) {
+        Integer index = seatIndexMap.get(seatNumber);
+        if (index == null || (occupancies[index] & rangeMask) != 0) {
+            return false;
+        }
+        occupancies[index] |= rangeMask;
+        return true;
+    }
+
+    /**
+     * 释放座位指定区间
+     */
+    synchronized void release(String seatNumber, long rangeMask) {
+        Integer index = seatIndexMap.get(seatNumber);
+        if (index != null) {
+            occupancies[index] &= ~rangeMask;
+        }
+    }
+}
@@ -0,0 +1,597 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.inventory;
+
+import cn.hippo4j.core.executor.support.ThreadPoolBuilder;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.SeatStatusEnum;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.SeatDO;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainStationDO;
+import org.opengoofy.index12306.biz.ticketservice.dao.mapper.SeatMapper;
+import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainStationMapper;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
+import org.opengoofy.index12306.framework.starter.bases.Singleton;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.common.toolkit.ThreadUtil;
+import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.SEAT_INVENTORY_INVALIDATE_CHANNEL;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.SEAT_INVENTORY_OWNER_LEASE;
+
+/**
+ * 列车座位内存库存管理器
+ * <p>
+ * 开启方式：ticket.seat-inventory.type=memory，默认仍直接读写 t_seat
+ * 内存库存仅允许单节点持有：启动时在 Redis 获取所有权租约，其它节点持有租约时启动失败；租约续期失败或丢失时清空全部库存并拒绝读写，直至重新获取
+ * 座位状态变更在事务提交后由单线程按提交顺序异步落库，事务回滚时释放已占用的区间
+ * 落库队列有界，积压达到上限时拒绝新的锁座；落库失败重试后转入死信队列，死信非空时后续任务排在其后，定时按顺序重新落库，避免状态覆盖乱序
+ * 落库遇到座位状态冲突时按座位冲突上报且不再重试，并移除该列车库存；其它写入方修改 t_seat 后通过失效通知移除对应列车库存
+ * 列车存在未完成的落库任务时不从数据库重新加载，避免加载到落库前的座位状态
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeatInventoryManager implements InitializingBean, DisposableBean, MeterBinder, MessageListener {
+
+    private static final String MEMORY_INVENTORY_TYPE = "memory";
+    private static final String LUA_SEAT_INVENTORY_OWNER_LEASE_RENEW_PATH = "lua/seat_inventory_owner_lease_renew.lua";
+    private static final String LUA_SEAT_INVENTORY_OWNER_LEASE_RELEASE_PATH = "lua/seat_inventory_owner_lease_release.lua";
+
+    /**
+     * 站点数超出位图容量的列车占位，此类列车回退至数据库座位模型
+     */
+    private static final TrainSeatInventory UNSUPPORTED = new TrainSeatInventory(Map.of(), Map.of());
+
+    private final SeatMapper seatMapper;
+    private final TrainStationMapper trainStationMapper;
+    private final DistributedCache distributedCache;
+
+    /**
+     * 当前节点标识，作为所有权租约的值
+     */
+    private final String ownerId = UUID.randomUUID().toString();
+    private final Map<String, TrainSeatInventory> trainSeatInventoryMap = new ConcurrentHashMap<>();
+    /**
+     * 正在从数据库加载的列车座位库存，同一列车并发加载时只有一个线程访问数据库
+     */
+    private final Map<String, CompletableFuture<TrainSeatInventory>> inventoryLoadingMap = new ConcurrentHashMap<>();
+    /**
+     * 重试后仍落库失败的任务，仅由落库线程读写
+     */
+    private final BlockingDeque<PersistTask> persistDeadLetterQueue = new LinkedBlockingDeque<>();
+    /**
+     * 列车未完成的落库任务数量，包含已锁座未提交、待落库以及死信中的任务
+     */
+    private final Map<String, AtomicInteger> pendingPersistMap = new ConcurrentHashMap<>();
+    private final LongAdder persistFailureCount = new LongAdder();
+    private final LongAdder persistConflictCount = new LongAdder();
+    private final ScheduledExecutorService persistRedriveExecutor = Executors.newScheduledThreadPool(1);
+    private final ScheduledExecutorService ownerLeaseRenewExecutor = Executors.newScheduledThreadPool(1);
+    private ThreadPoolExecutor seatInventoryPersistExecutor;
+    /**
+     * 所有权租约本地过期时间，以发起获取或续期请求的时间计算，不晚于 Redis 中租约的过期时间
+     */
+    private volatile long ownerLeaseExpireTime;
+
+    @Value("${ticket.seat-inventory.type:}")
+    private String seatInventoryType;
+
+    /**
+     * 落库队列与死信队列积压上限，达到上限时拒绝新的锁座
+     */
+    @Value("${ticket.seat-inventory.persist.queue-capacity:10000}")
+    private Integer persistQueueCapacity;
+
+    /**
+     * 单个落库任务最大尝试次数，超过后转入死信队列
+     */
+    @Value("${ticket.seat-inventory.persist.max-attempts:3}")
+    private Integer persistMaxAttempts;
+
+    /**
+     * 死信队列重新落库间隔，单位：秒
+     */
+    @Value("${ticket.seat-inventory.persist.redrive-interval:5}")
+    private Long persistRedriveInterval;
+
+    /**
+     * 所有权租约时长，单位：秒，每隔三分之一租约时长续期一次
+     */
+    @Value("${ticket.seat-inventory.owner-lease-timeout:30}")
+    private Long ownerLeaseTimeout;
+
+    @Override
+    public void afterPropertiesSet() {
+        seatInventoryPersistExecutor = ThreadPoolBuilder.builder()
+                .threadFactory("seat-inventory-persist-executor")
+                .poolThreadSize(1, 1)
+                .workQueue(new LinkedBlockingQueue<>(persistQueueCapacity))
+                // 队列已满时阻塞提交线程直至入队，保持落库顺序
+                .rejected((runnable, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("座位库存落库线程池已关闭");
+                    }
+                    try {
+                        executor.getQueue().put(runnable);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException(ex);
+                    }
+                })
+                .build();
+        persistRedriveExecutor.scheduleWithFixedDelay(() -> {
+            if (!persistDeadLetterQueue.isEmpty()) {
+                seatInventoryPersistExecutor.execute(this::redriveDeadLetters);
+            }
+        }, persistRedriveInterval, persistRedriveInterval, TimeUnit.SECONDS);
+        if (isMemoryInventory()) {
+            acquireOwnerLeaseOnStartup();
+            long renewInterval = Math.max(TimeUnit.SECONDS.toMillis(ownerLeaseTimeout) / 3, 1L);
+            ownerLeaseRenewExecutor.scheduleWithFixedDelay(this::renewOwnerLease, renewInterval, renewInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 获取列车座位库存，未开启内存库存或列车站点数超出位图容量时返回 null，调用方需回退至数据库
+     * 当前节点未持有所有权租约时抛出异常，避免与其它节点同时售出同一座位
+     *
+     * @param trainId 列车 ID
+     * @return 列车座位库存
+     */
+    public TrainSeatInventory getInventory(String trainId) {
+        if (!isMemoryInventory()) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= ownerLeaseExpireTime) {
+            throw new ServiceException("座位库存节点所有权已失效，请稍后再试");
+        }
+        TrainSeatInventory inventory = trainSeatInventoryMap.get(trainId);
+        if (inventory == null) {
+            inventory = loadInventoryIfAbsent(trainId);
+        }
+        return inventory == UNSUPPORTED ? null : inventory;
+    }
+
+    /**
+     * 锁定乘车人座位，任一座位区间冲突时回滚本次已锁定座位并抛出异常
+     *
+     * @param trainId     列车 ID
+     * @param inventory   列车座位库存
+     * @param departure   出发站
+     * @param arrival     到达站
+     * @param seatList    乘车人座位集合
+     * @param persistTask 座位状态落库任务
+     */
+    public void lockSeat(String trainId, TrainSeatInventory inventory, String departure, String arrival,
+                         List<TrainPurchaseTicketRespDTO> seatList, Runnable persistTask) {
+        if (getPersistBacklog() >= persistQueueCapacity) {
+            log.error("座位库存落库积压达到上限，拒绝锁座，落库队列：{}，死信队列：{}", seatInventoryPersistExecutor.getQueue().size(), persistDeadLetterQueue.size());
+            throw new ServiceException("座位库存落库繁忙，请稍后再试");
+        }
+        long rangeMask = inventory.rangeMask(departure, arrival);
+        List<TrainPurchaseTicketRespDTO> occupiedList = new ArrayList<>(seatList.size());
+        // 占用区间前登记未完成落库，期间该列车库存被移除时不会从数据库加载到落库前的座位状态
+        incrementPendingPersist(trainId);
+        for (TrainPurchaseTicketRespDTO each : seatList) {
+            if (!inventory.occupy(each.getCarriageNumber(), each.getSeatNumber(), rangeMask)) {
+                occupiedList.forEach(item -> inventory.release(item.getCarriageNumber(), item.getSeatNumber(), rangeMask));
+                decrementPendingPersist(trainId);
+                throw new ServiceException("站点余票不足，请尝试更换座位类型或选择其它站点");
+            }
+            occupiedList.add(each);
+        }
+        afterCompletion(() -> persist(new PersistTask(trainId, persistTask)), () -> {
+            occupiedList.forEach(each -> inventory.release(each.getCarriageNumber(), each.getSeatNumber(), rangeMask));
+            decrementPendingPersist(trainId);
+        });
+    }
+
+    /**
+     * 释放乘车人座位，存在事务时在事务提交后释放，避免回滚后座位已被他人占用
+     *
+     * @param trainId     列车 ID
+     * @param inventory   列车座位库存
+     * @param departure   出发站
+     * @param arrival     到达站
+     * @param seatList    乘车人座位集合
+     * @param persistTask 座位状态落库任务
+     */
+    public void unlock(String trainId, TrainSeatInventory inventory, String departure, String arrival,
+                       List<TrainPurchaseTicketRespDTO> seatList, Runnable persistTask) {
+        long rangeMask = inventory.rangeMask(departure, arrival);
+        incrementPendingPersist(trainId);
+        afterCompletion(() -> {
+            seatList.forEach(each -> inventory.release(each.getCarriageNumber(), each.getSeatNumber(), rangeMask));
+            persist(new PersistTask(trainId, persistTask));
+        }, () -> decrementPendingPersist(trainId));
+    }
+
+    /**
+     * 移除列车座位库存，下次访问时从数据库重新加载
+     *
+     * @param trainId 列车 ID
+     */
+    public void evict(String trainId) {
+        trainSeatInventoryMap.remove(trainId);
+    }
+
+    /**
+     * 通知持有内存库存的节点移除列车座位库存，直接修改 t_seat 的写入方在提交后调用
+     *
+     * @param trainId 列车 ID
+     */
+    public void publishInvalidate(String trainId) {
+        evict(trainId);
+        try {
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            stringRedisTemplate.convertAndSend(SEAT_INVENTORY_INVALIDATE_CHANNEL, trainId);
+        } catch (Throwable ex) {
+            log.error("发布列车座位库存失效通知失败，列车ID：{}", trainId, ex);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String trainId = new String(message.getBody(), StandardCharsets.UTF_8);
+        evict(trainId);
+        log.info("收到列车座位库存失效通知，已移除本地库存，列车ID：{}", trainId);
+    }
+
+    private void afterCompletion(Runnable commitTask, Runnable rollbackTask) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commitTask.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    commitTask.run();
+                } else {
+                    rollbackTask.run();
+                }
+            }
+        });
+    }
+
+    private void persist(PersistTask persistTask) {
+        seatInventoryPersistExecutor.execute(() -> runPersistTask(persistTask));
+    }
+
+    private void runPersistTask(PersistTask persistTask) {
+        // 死信未清空时直接排在其后，避免同一座位的锁定与释放乱序落库
+        if (!persistDeadLetterQueue.isEmpty()) {
+            persistDeadLetterQueue.offer(persistTask);
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                persistTask.getTask().run();
+                decrementPendingPersist(persistTask.getTrainId());
+                return;
+            } catch (ServiceException ex) {
+                onPersistConflict(persistTask, ex);
+                return;
+            } catch (Throwable ex) {
+                persistFailureCount.increment();
+                if (attempt >= persistMaxAttempts) {
+                    log.error("座位库存异步落库失败 {} 次，转入死信队列等待重新落库，列车ID：{}", attempt, persistTask.getTrainId(), ex);
+                    persistDeadLetterQueue.offer(persistTask);
+                    return;
+                }
+                log.warn("座位库存异步落库失败，第 {} 次重试，列车ID：{}", attempt, persistTask.getTrainId(), ex);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(100L * attempt);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    persistDeadLetterQueue.offer(persistTask);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void redriveDeadLetters() {
+        PersistTask persistTask;
+        while ((persistTask = persistDeadLetterQueue.peek()) != null) {
+            try {
+                persistTask.getTask().run();
+                decrementPendingPersist(persistTask.getTrainId());
+            } catch (ServiceException ex) {
+                onPersistConflict(persistTask, ex);
+            } catch (Throwable ex) {
+                persistFailureCount.increment();
+                log.error("座位库存死信重新落库失败，剩余死信数量：{}", persistDeadLetterQueue.size(), ex);
+                return;
+            }
+            persistDeadLetterQueue.poll();
+        }
+        log.info("座位库存死信已全部重新落库");
+    }
+
+    /**
+     * 数据库座位状态与内存库存不一致，重试无法成功，按座位冲突上报并移除该列车库存，由数据库重新加载
+     */
+    private void onPersistConflict(PersistTask persistTask, ServiceException ex) {
+        persistConflictCount.increment();
+        log.error("座位库存落库发生座位冲突，内存库存与数据库座位状态不一致，已放弃落库并移除列车库存，列车ID：{}", persistTask.getTrainId(), ex);
+        evict(persistTask.getTrainId());
+        decrementPendingPersist(persistTask.getTrainId());
+    }
+
+    private void incrementPendingPersist(String trainId) {
+        pendingPersistMap.computeIfAbsent(trainId, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private void decrementPendingPersist(String trainId) {
+        pendingPersistMap.computeIfPresent(trainId, (key, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+
+    private int getPersistBacklog() {
+        return seatInventoryPersistExecutor.getQueue().size() + persistDeadLetterQueue.size();
+    }
+
+    private TrainSeatInventory loadInventoryIfAbsent(String trainId) {
+        // 在 computeIfAbsent 之外访问数据库，避免加载期间阻塞同一哈希桶内其它列车
+        CompletableFuture<TrainSeatInventory> loadFuture = new CompletableFuture<>();
+        CompletableFuture<TrainSeatInventory> inFlightFuture = inventoryLoadingMap.putIfAbsent(trainId, loadFuture);
+        if (inFlightFuture != null) {
+            try {
+                return inFlightFuture.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw ex;
+            }
+        }
+        try {
+            TrainSeatInventory inventory = trainSeatInventoryMap.get(trainId);
+            if (inventory == null) {
+                if (pendingPersistMap.containsKey(trainId)) {
+                    throw new ServiceException("列车座位库存同步中，请稍后再试");
+                }
+                inventory = loadInventory(trainId);
+                trainSeatInventoryMap.put(trainId, inventory);
+            }
+            loadFuture.complete(inventory);
+            return inventory;
+        } catch (Throwable ex) {
+            loadFuture.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inventoryLoadingMap.remove(trainId, loadFuture);
+        }
+    }
+
+    private TrainSeatInventory loadInventory(String trainId) {
+        LambdaQueryWrapper<TrainStationDO> queryWrapper = Wrappers.lambdaQuery(TrainStationDO.class)
+                .eq(TrainStationDO::getTrainId, trainId)
+                .orderByAsc(TrainStationDO::getSequence)
+                .select(TrainStationDO::getDeparture);
+        List<TrainStationDO> trainStationDOList = trainStationMapper.selectList(queryWrapper);
+        if (trainStationDOList.size() - 1 > TrainSeatInventory.MAX_SEGMENT_SIZE) {
+            log.warn("列车站点数量超出内存库存位图容量，回退至数据库座位模型，列车ID：{}", trainId);
+            return UNSUPPORTED;
+        }
+        Map<String, Integer> stationOrdinalMap = new HashMap<>();
+        for (int i = 0; i < trainStationDOList.size(); i++) {
+            stationOrdinalMap.put(trainStationDOList.get(i).getDeparture(), i);
+        }
+        // Key：座位类型 -> 车厢号 -> 座位号，Value：原子区间占用位图
+        Map<Integer, Map<String, LinkedHashMap<String, Long>>> occupancyMap = new HashMap<>();
+        for (SeatDO each : seatMapper.listSeatSegmentStatus(Long.parseLong(trainId))) {
+            Integer ordinal = stationOrdinalMap.get(each.getStartStation());
+            Map<String, Long> seatOccupancyMap = occupancyMap.computeIfAbsent(each.getSeatType(), key -> new TreeMap<>())
+                    .computeIfAbsent(each.getCarriageNumber(), key -> new LinkedHashMap<>());
+            long occupancy = seatOccupancyMap.getOrDefault(each.getSeatNumber(), 0L);
+            if (ordinal != null && !Objects.equals(each.getSeatStatus(), SeatStatusEnum.AVAILABLE.getCode())) {
+                occupancy |= 1L << ordinal;
+            }
+            seatOccupancyMap.put(each.getSeatNumber(), occupancy);
+        }
+        Map<Integer, Map<String, CarriageSeatInventory>> seatTypeCarriageMap = new HashMap<>();
+        occupancyMap.forEach((seatType, carriageMap) -> {
+            Map<String, CarriageSeatInventory> carriageInventoryMap = new TreeMap<>();
+            carriageMap.forEach((carriageNumber, seatOccupancyMap) -> carriageInventoryMap.put(carriageNumber,
+                    new CarriageSeatInventory(carriageNumber, seatType, new ArrayList<>(seatOccupancyMap.keySet()), new ArrayList<>(seatOccupancyMap.values()))));
+            seatTypeCarriageMap.put(seatType, carriageInventoryMap);
+        });
+        return new TrainSeatInventory(stationOrdinalMap, seatTypeCarriageMap);
+    }
+
+    private boolean isMemoryInventory() {
+        return StrUtil.equals(seatInventoryType, MEMORY_INVENTORY_TYPE);
+    }
+
+    /**
+     * 启动时获取所有权租约，最多等待一个租约时长以便上一次停机未释放的租约过期，仍被其它节点持有时启动失败
+     */
+    private void acquireOwnerLeaseOnStartup() {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ownerLeaseTimeout);
+        while (!tryAcquireOwnerLease()) {
+            if (System.currentTimeMillis() >= deadline) {
+                StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+                throw new IllegalStateException(StrUtil.format("内存座位库存仅支持单节点部署，所有权租约已被节点 {} 持有",
+                        stringRedisTemplate.opsForValue().get(SEAT_INVENTORY_OWNER_LEASE)));
+            }
+            ThreadUtil.sleep(1000);
+        }
+        log.info("已获取座位内存库存所有权租约，节点标识：{}", ownerId);
+    }
+
+    private boolean tryAcquireOwnerLease() {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        long requestTime = System.currentTimeMillis();
+        Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(SEAT_INVENTORY_OWNER_LEASE, ownerId, ownerLeaseTimeout, TimeUnit.SECONDS);
+        if (Boolean.TRUE.equals(acquired)) {
+            ownerLeaseExpireTime = requestTime + TimeUnit.SECONDS.toMillis(ownerLeaseTimeout);
+            return true;
+        }
+        return false;
+    }
+
+    private void renewOwnerLease() {
+        try {
+            if (System.currentTimeMillis() >= ownerLeaseExpireTime) {
+                // 租约已丢失，本地库存在丢失时已清空，重新获取后从数据库加载
+                if (tryAcquireOwnerLease()) {
+                    log.info("已重新获取座位内存库存所有权租约，节点标识：{}", ownerId);
+                }
+                return;
+            }
+            DefaultRedisScript<Long> actual = Singleton.get(LUA_SEAT_INVENTORY_OWNER_LEASE_RENEW_PATH, () -> {
+                DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+                redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_SEAT_INVENTORY_OWNER_LEASE_RENEW_PATH)));
+                redisScript.setResultType(Long.class);
+                return redisScript;
+            });
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            long requestTime = System.currentTimeMillis();
+            Long renewed = stringRedisTemplate.execute(actual, List.of(SEAT_INVENTORY_OWNER_LEASE), ownerId, String.valueOf(TimeUnit.SECONDS.toMillis(ownerLeaseTimeout)));
+            if (renewed != null && renewed == 1L) {
+                ownerLeaseExpireTime = requestTime + TimeUnit.SECONDS.toMillis(ownerLeaseTimeout);
+                return;
+            }
+            onOwnerLeaseLost();
+        } catch (Throwable ex) {
+            log.error("座位内存库存所有权租约续期失败，节点标识：{}", ownerId, ex);
+            if (System.currentTimeMillis() >= ownerLeaseExpireTime) {
+                onOwnerLeaseLost();
+            }
+        }
+    }
+
+    private void onOwnerLeaseLost() {
+        ownerLeaseExpireTime = 0L;
+        trainSeatInventoryMap.clear();
+        log.error("座位内存库存所有权租约已丢失，已清空本地库存并拒绝读写，节点标识：{}", ownerId);
+    }
+
+    private void releaseOwnerLease() {
+        try {
+            DefaultRedisScript<Long> actual = Singleton.get(LUA_SEAT_INVENTORY_OWNER_LEASE_RELEASE_PATH, () -> {
+                DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+                redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_SEAT_INVENTORY_OWNER_LEASE_RELEASE_PATH)));
+                redisScript.setResultType(Long.class);
+                return redisScript;
+            });
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            stringRedisTemplate.execute(actual, List.of(SEAT_INVENTORY_OWNER_LEASE), ownerId);
+        } catch (Throwable ex) {
+            log.error("释放座位内存库存所有权租约失败，节点标识：{}", ownerId, ex);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("seat_inventory_persist_queue_size", this, each -> each.seatInventoryPersistExecutor == null ? 0 : each.seatInventoryPersistExecutor.getQueue().size())
+                .description("座位库存待落库任务数量")
+                .register(registry);
+        Gauge.builder("seat_inventory_persist_dead_letter_size", persistDeadLetterQueue, BlockingDeque::size)
+                .description("座位库存落库死信任务数量")
+                .register(registry);
+        FunctionCounter.builder("seat_inventory_persist_failures", persistFailureCount, LongAdder::sum)
+                .description("座位库存落库失败次数")
+                .register(registry);
+        FunctionCounter.builder("seat_inventory_persist_conflicts", persistConflictCount, LongAdder::sum)
+                .description("座位库存落库座位冲突次数")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        ownerLeaseRenewExecutor.shutdown();
+        persistRedriveExecutor.shutdown();
+        seatInventoryPersistExecutor.shutdown();
+        if (!seatInventoryPersistExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.error("座位库存落库线程池关闭超时，剩余待落库任务数量：{}", seatInventoryPersistExecutor.getQueue().size());
+        }
+        if (!persistDeadLetterQueue.isEmpty()) {
+            log.error("节点停机时仍有座位库存死信未落库，数量：{}", persistDeadLetterQueue.size());
+        }
+        // 待落库任务处理完成后再释放租约，避免新节点加载到落库前的座位状态
+        if (isMemoryInventory()) {
+            releaseOwnerLease();
+        }
+    }
+
+    /**
+     * 座位状态落库任务
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class PersistTask {
+
+        /**
+         * 列车 ID
+         */
+        private final String trainId;
+
+        /**
+         * 落库操作
+         */
+        private final Runnable task;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.inventory;
+
+import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列车座位库存
+ * 按站点顺序将列车拆分为原子区间，任意 [departure, arrival) 区间均可表示为一个位掩码
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public final class TrainSeatInventory {
+
+    /**
+     * 单个 long 可表示的最大原子区间数量
+     */
+    public static final int MAX_SEGMENT_SIZE = Long.SIZE;
+
+    private final Map<String, Integer> stationOrdinalMap;
+
+    /**
+     * Key：座位类型，Value：车厢号有序的车厢库存
+     */
+    private final Map<Integer, Map<String, CarriageSeatInventory>> seatTypeCarriageMap;
+
+    TrainSeatInventory(Map<String, Integer> stationOrdinalMap, Map<Integer, Map<String, CarriageSeatInventory>> seatTypeCarriageMap) {
+        this.stationOrdinalMap = stationOrdinalMap;
+        this.seatTypeCarriageMap = seatTypeCarriageMap;
+    }
+
+    /**
+     * 计算出发站到到达站的区间掩码
+     *
+     * @param departure 出发站
+     * @param arrival   到达站
+     * @return 区间掩码
+     */
+    public long rangeMask(String departure, String arrival) {
+        Integer startOrdinal = stationOrdinalMap.get(departure);
+        Integer endOrdinal = stationOrdinalMap.get(arrival);
+        if (startOrdinal == null || endOrdinal == null || startOrdinal >= endOrdinal) {
+            throw new ServiceException("列车站点区间不合法");
+        }
+        long endMask = endOrdinal == MAX_SEGMENT_SIZE ? -1L : (1L << endOrdinal) - 1;
+        return endMask ^ ((1L << startOrdinal) - 1);
+    }
+
+    /**
+     * 获取座位类型下区间内存在可用座位的车厢号集合
+     */
+    public List<String> listUsableCarriageNumber(Integer seatType, long rangeMask) {
+        List<String> result = new ArrayList<>();
+        getCarriageMap(seatType).forEach((carriageNumber, carriage) -> {
+            if (carriage.countAvailableSeat(rangeMask) > 0) {
+                result.add(carriageNumber);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 获取车厢区间内可用座位号集合
+     */
+    public List<String> listAvailableSeat(String carriageNumber, Integer seatType, long rangeMask) {
+        CarriageSeatInventory carriage = getCarriageMap(seatType).get(carriageNumber);
+        return carriage == null ? Collections.emptyList() : carriage.listAvailableSeat(rangeMask);
+    }
+
+    /**
+     * 获取座位类型下区间内可用座位，按车厢号分组，不包含无可用座位的车厢
+     */
+    public Map<String, List<String>> listAvailableSeatGroupByCarriage(Integer seatType, long rangeMask) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        getCarriageMap(seatType).forEach((carriageNumber, carriage) -> {
+            List<String> availableSeats = carriage.listAvailableSeat(rangeMask);
+            if (!availableSeats.isEmpty()) {
+                result.put(carriageNumber, availableSeats);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 统计车厢区间内可用座位数量
+     */
+    public int countAvailableSeat(String carriageNumber, long rangeMask) {
+        CarriageSeatInventory carriage = findCarriage(carriageNumber);
+        return carriage == null ? 0 : carriage.countAvailableSeat(rangeMask);
+    }
+
+    /**
+     * 统计座位类型区间内可用座位数量
+     */
+    public int countAvailableSeatBySeatType(Integer seatType, long rangeMask) {
+        int count = 0;
+        for (CarriageSeatInventory each : getCarriageMap(seatType).values()) {
+            count += each.countAvailableSeat(rangeMask);
+        }
+        return count;
+    }
+
+    boolean occupy(String carriageNumber, String seatNumber, long rangeMask) {
+        CarriageSeatInventory carriage = findCarriage(carriageNumber);
+        return carriage != null && carriage.occupy(seatNumber, rangeMask);
+    }
+
+    void release(String carriageNumber, String seatNumber, long rangeMask) {
+        CarriageSeatInventory carriage = findCarriage(carriageNumber);
+        if (carriage != null) {
+            carriage.release(seatNumber, rangeMask);
+        }
+    }
+
+    private Map<String, CarriageSeatInventory> getCarriageMap(Integer seatType) {
+        return seatTypeCarriageMap.getOrDefault(seatType, Collections.emptyMap());
+    }
+
+    private CarriageSeatInventory findCarriage(String carriageNumber) {
+        for (Map<String, CarriageSeatInventory> each : seatTypeCarriageMap.values()) {
+            CarriageSeatInventory carriage = each.get(carriageNumber);
+            if (carriage != null) {
+                return carriage;
+            }
+        }
+        return null;
+    }
+}
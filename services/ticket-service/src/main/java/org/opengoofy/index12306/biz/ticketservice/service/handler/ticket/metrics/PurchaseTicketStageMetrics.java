@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.metrics;
+
+import cn.hutool.core.util.StrUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.PurchaseTicketStageEnum;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.VehicleSeatTypeEnum;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.VehicleTypeEnum;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainDO;
+import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainMapper;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.PurchaseTicketPassengerDetailDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.PurchaseTicketReqDTO;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.Index12306Constant.ADVANCE_TICKET_DAY;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_INFO;
+
+/**
+ * 购票流程分阶段耗时指标
+ * 指标名 ticket_purchase_stage，标签为阶段、列车类型、座位类型以及执行结果，列车类型与座位类型取枚举名称，
+ * 无法识别时记为 UNKNOWN，多座位类型混合购票记为 MIXED，保证标签基数有界
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Component
+@RequiredArgsConstructor
+public class PurchaseTicketStageMetrics {
+
+    private static final String METRIC_NAME = "ticket_purchase_stage";
+    private static final String UNKNOWN = "UNKNOWN";
+    private static final String MIXED = "MIXED";
+
+    private final MeterRegistry meterRegistry;
+    private final DistributedCache distributedCache;
+    private final TrainMapper trainMapper;
+
+    private final Map<String, Timer> timerMap = new ConcurrentHashMap<>();
+
+    /**
+     * 执行购票责任链并记录耗时，责任链校验通过后再读取列车信息构建标签，校验失败时列车类型记为 UNKNOWN，
+     * 避免不存在的车次在校验前穿透访问缓存与数据库
+     *
+     * @param requestParam 购票请求参数
+     * @param chainFilter  购票责任链
+     * @return 指标标签，供后续阶段复用
+     */
+    public StageTags recordChainFilter(PurchaseTicketReqDTO requestParam, Runnable chainFilter) {
+        long startTime = System.nanoTime();
+        try {
+            chainFilter.run();
+        } catch (Throwable ex) {
+            getTimer(PurchaseTicketStageEnum.CHAIN_FILTER, tags(null, requestParam.getPassengers()), false)
+                    .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            throw ex;
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+        StageTags tags = tags(requestParam);
+        getTimer(PurchaseTicketStageEnum.CHAIN_FILTER, tags, true).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        return tags;
+    }
+
+    /**
+     * 构建购票请求指标标签，列车信息读取多级缓存，需在责任链校验车次存在后调用
+     *
+     * @param requestParam 购票请求参数
+     * @return 指标标签
+     */
+    private StageTags tags(PurchaseTicketReqDTO requestParam) {
+        if (StrUtil.isBlank(requestParam.getTrainId())) {
+            return tags(null, requestParam.getPassengers());
+        }
+        TrainDO trainDO = distributedCache.safeGet(
+                TRAIN_INFO + requestParam.getTrainId(),
+                TrainDO.class,
+                () -> trainMapper.selectById(requestParam.getTrainId()),
+                ADVANCE_TICKET_DAY,
+                TimeUnit.DAYS);
+        return tags(trainDO == null ? null : trainDO.getTrainType(), requestParam.getPassengers());
+    }
+
+    /**
+     * 构建购票请求指标标签
+     *
+     * @param trainType  列车类型
+     * @param passengers 乘车人集合
+     * @return 指标标签
+     */
+    public StageTags tags(Integer trainType, List<PurchaseTicketPassengerDetailDTO> passengers) {
+        String seatType = UNKNOWN;
+        if (passengers != null && !passengers.isEmpty()) {
+            Integer firstSeatType = passengers.get(0).getSeatType();
+            boolean mixed = passengers.stream().anyMatch(each -> !Objects.equals(each.getSeatType(), firstSeatType));
+            seatType = mixed ? MIXED : Optional.ofNullable(VehicleSeatTypeEnum.findNameByCode(firstSeatType)).orElse(UNKNOWN);
+        }
+        return new StageTags(Optional.ofNullable(VehicleTypeEnum.findNameByCode(trainType)).orElse(UNKNOWN), seatType);
+    }
+
+    /**
+     * 执行并记录购票阶段耗时
+     *
+     * @param stage  购票阶段
+     * @param tags   指标标签
+     * @param action 阶段执行逻辑
+     * @return 阶段执行结果
+     */
+    public <T> T record(PurchaseTicketStageEnum stage, StageTags tags, Supplier<T> action) {
+        long startTime = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = action.get();
+            success = true;
+            return result;
+        } finally {
+            getTimer(stage, tags, success).record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 执行并记录购票阶段耗时
+     *
+     * @param stage  购票阶段
+     * @param tags   指标标签
+     * @param action 阶段执行逻辑
+     */
+    public void record(PurchaseTicketStageEnum stage, StageTags tags, Runnable action) {
+        record(stage, tags, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private Timer getTimer(PurchaseTicketStageEnum stage, StageTags tags, boolean success) {
+        String outcome = success ? "success" : "failure";
+        String timerKey = String.join("|", stage.getStage(), tags.trainType, tags.seatType, outcome);
+        return timerMap.computeIfAbsent(timerKey, key -> Timer.builder(METRIC_NAME)
+                .description("购票流程分阶段耗时")
+                .tag("stage", stage.getStage())
+                .tag("train_type", tags.trainType)
+                .tag("seat_type", tags.seatType)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * 购票阶段指标标签
+     */
+    public static final class StageTags {
+
+        private final String trainType;
+        private final String seatType;
+
+        private StageTags(String trainType, String seatType) {
+            this.trainType = trainType;
+            this.seatType = seatType;
+        }
+    }
+}
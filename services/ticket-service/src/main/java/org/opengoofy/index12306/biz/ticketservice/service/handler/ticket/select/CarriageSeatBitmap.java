@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 车厢座位位图
+ * 每排座位使用一个 int 表示，第 i 位为 1 表示该排第 i 列座位可售，邻座、选座以及非邻座分配均按排做位运算
+ * 非线程安全，仅在单次选座过程中使用
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public final class CarriageSeatBitmap {
+
+    @Getter
+    private final String carriageNumber;
+
+    @Getter
+    private final CarriageSeatLayout layout;
+
+    private final int[] rowMasks;
+
+    private CarriageSeatBitmap(String carriageNumber, CarriageSeatLayout layout, int[] rowMasks) {
+        this.carriageNumber = carriageNumber;
+        this.layout = layout;
+        this.rowMasks = rowMasks;
+    }
+
+    /**
+     * 根据车厢可售座位号构建座位位图，不属于当前布局的座位号忽略
+     *
+     * @param layout          车厢座位布局
+     * @param carriageNumber  车厢号
+     * @param availableSeats  可售座位号集合
+     * @return 车厢座位位图
+     */
+    public static CarriageSeatBitmap of(CarriageSeatLayout layout, String carriageNumber, Collection<String> availableSeats) {
+        int columns = layout.getColumns();
+        int[] rowMasks = new int[layout.getRows()];
+        for (String each : availableSeats) {
+            int seatIndex = layout.seatIndex(each);
+            if (seatIndex >= 0) {
+                rowMasks[seatIndex / columns] |= 1 << (seatIndex % columns);
+            }
+        }
+        return new CarriageSeatBitmap(carriageNumber, layout, rowMasks);
+    }
+
+    /**
+     * 复制当前位图，用于试探性分配
+     */
+    public CarriageSeatBitmap copy() {
+        return new CarriageSeatBitmap(carriageNumber, layout, rowMasks.clone());
+    }
+
+    /**
+     * 可售座位数量
+     */
+    public int vacantCount() {
+        int count = 0;
+        for (int each : rowMasks) {
+            count += Integer.bitCount(each);
+        }
+        return count;
+    }
+
+    /**
+     * 查找同排连续可售的座位，按排号、列号顺序取第一组
+     *
+     * @param numSeats 座位数量
+     * @return 座位下标集合，不存在返回 null
+     */
+    public int[] adjacent(int numSeats) {
+        int columns = layout.getColumns();
+        if (numSeats <= 0 || numSeats > columns) {
+            return null;
+        }
+        for (int row = 0; row < rowMasks.length; row++) {
+            // 第 i 位保留为 1 表示从第 i 列开始连续 numSeats 个座位均可售
+            int runMask = rowMasks[row];
+            for (int k = 1; k < numSeats && runMask != 0; k++) {
+                runMask &= rowMasks[row] >>> k;
+            }
+            if (runMask != 0) {
+                int firstSeatIndex = row * columns + Integer.numberOfTrailingZeros(runMask);
+                int[] result = new int[numSeats];
+                for (int i = 0; i < numSeats; i++) {
+                    result[i] = firstSeatIndex + i;
+                }
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按排号、列号顺序分配不要求相邻的座位
+     *
+     * @param numSeats 座位数量
+     * @return 座位下标集合，可售座位不足时返回全部可售座位
+     */
+    public int[] nonAdjacent(int numSeats) {
+        int columns = layout.getColumns();
+        int[] result = new int[Math.max(0, Math.min(numSeats, vacantCount()))];
+        int count = 0;
+        for (int row = 0; row < rowMasks.length && count < result.length; row++) {
+            int mask = rowMasks[row];
+            while (mask != 0 && count < result.length) {
+                result[count++] = row * columns + Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按用户选座的相对位置匹配座位，选座格式为列号加行号，如 A1、F2，行号仅表示选座之间的前后关系
+     *
+     * @param chooseSeats 用户选座集合
+     * @return 与选座顺序一致的座位下标集合，不存在满足条件的排返回 null
+     */
+    public int[] matchChooseSeats(List<String> chooseSeats) {
+        int size = chooseSeats.size();
+        int[] chooseRows = new int[size];
+        int[] chooseColumns = new int[size];
+        int minRow = Integer.MAX_VALUE;
+        int maxRow = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            String chooseSeat = chooseSeats.get(i);
+            chooseColumns[i] = layout.column(chooseSeat.charAt(0));
+            if (chooseColumns[i] < 0) {
+                return null;
+            }
+            chooseRows[i] = Integer.parseInt(chooseSeat.substring(1));
+            minRow = Math.min(minRow, chooseRows[i]);
+            maxRow = Math.max(maxRow, chooseRows[i]);
+        }
+        int height = maxRow - minRow + 1;
+        if (height > rowMasks.length) {
+            return null;
+        }
+        int[] patternMasks = new int[height];
+        for (int i = 0; i < size; i++) {
+            patternMasks[chooseRows[i] - minRow] |= 1 << chooseColumns[i];
+        }
+        for (int row = 0; row + height <= rowMasks.length; row++) {
+            if (matchPattern(row, patternMasks)) {
+                int[] result = new int[size];
+                for (int i = 0; i < size; i++) {
+                    result[i] = (row + chooseRows[i] - minRow) * layout.getColumns() + chooseColumns[i];
+                }
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 标记座位已分配
+     */
+    public void occupy(int[] seatIndexes) {
+        int columns = layout.getColumns();
+        for (int each : seatIndexes) {
+            rowMasks[each / columns] &= ~(1 << (each % columns));
+        }
+    }
+
+    /**
+     * 根据座位下标获取座位号
+     */
+    public String seatNumber(int seatIndex) {
+        return layout.seatNumber(seatIndex);
+    }
+
+    private boolean matchPattern(int firstRow, int[] patternMasks) {
+        for (int i = 0; i < patternMasks.length; i++) {
+            if ((rowMasks[firstRow + i] & patternMasks[i]) != patternMasks[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
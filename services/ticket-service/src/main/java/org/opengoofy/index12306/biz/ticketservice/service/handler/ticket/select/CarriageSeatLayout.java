@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select;
+
+import lombok.Getter;
+
+/**
+ * 车厢座位布局
+ * 座位号格式为两位排号加列号，如 01A、18F；列号在布局中的下标即为车厢位图中该排的比特位
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public enum CarriageSeatLayout {
+
+    /**
+     * 复兴号-商务座
+     */
+    BUSINESS_CLASS(0, 2, "ACF"),
+
+    /**
+     * 复兴号-一等座
+     */
+    FIRST_CLASS(1, 7, "ACDF"),
+
+    /**
+     * 复兴号-二等座
+     */
+    SECOND_CLASS(2, 18, "ABCDF");
+
+    /**
+     * 座位类型
+     */
+    @Getter
+    private final int seatType;
+
+    /**
+     * 车厢排数
+     */
+    @Getter
+    private final int rows;
+
+    private final String columnCodes;
+
+    /**
+     * 预生成的座位号，下标为 排 * 列数 + 列，避免选座过程中拼接字符串
+     */
+    private final String[] seatNumbers;
+
+    CarriageSeatLayout(int seatType, int rows, String columnCodes) {
+        this.seatType = seatType;
+        this.rows = rows;
+        this.columnCodes = columnCodes;
+        this.seatNumbers = new String[rows * columnCodes.length()];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columnCodes.length(); column++) {
+                seatNumbers[row * columnCodes.length() + column] = String.format("%02d%c", row + 1, columnCodes.charAt(column));
+            }
+        }
+    }
+
+    /**
+     * 每排座位数
+     */
+    public int getColumns() {
+        return columnCodes.length();
+    }
+
+    /**
+     * 获取列号在布局中的下标，不存在返回 -1
+     */
+    public int column(char columnCode) {
+        return columnCodes.indexOf(columnCode);
+    }
+
+    /**
+     * 根据座位下标获取座位号
+     */
+    public String seatNumber(int seatIndex) {
+        return seatNumbers[seatIndex];
+    }
+
+    /**
+     * 解析座位号为座位下标，座位号不属于当前布局返回 -1
+     */
+    public int seatIndex(String seatNumber) {
+        if (seatNumber == null || seatNumber.length() != 3) {
+            return -1;
+        }
+        int row = (seatNumber.charAt(0) - '0') * 10 + (seatNumber.charAt(1) - '0') - 1;
+        int column = column(seatNumber.charAt(2));
+        if (row < 0 || row >= rows || column < 0) {
+            return -1;
+        }
+        return row * getColumns() + column;
+    }
+}
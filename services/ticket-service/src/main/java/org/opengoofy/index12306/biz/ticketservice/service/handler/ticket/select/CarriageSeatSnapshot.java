@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select;
+
+import org.opengoofy.index12306.biz.ticketservice.service.cache.TrainRouteIndex;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 批量购票时同一列车、同一座位类型共享的车厢可用座位快照
+ * 每个站点区间仅加载一次，分配出去的座位会从所有与之重叠的区间快照中扣除，保证同批次后续请求不会重复分配
+ * 快照仅在持有购票锁的单个线程内使用，非线程安全
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public final class CarriageSeatSnapshot {
+
+    private final TrainRouteIndex trainRouteIndex;
+
+    /**
+     * Key：出发站序号 * 站点数量 + 到达站序号，Value：车厢号 -> 可用座位号集合
+     */
+    private final Map<Integer, Map<String, List<String>>> segmentCarriageSeatMap = new HashMap<>();
+
+    public CarriageSeatSnapshot(TrainRouteIndex trainRouteIndex) {
+        this.trainRouteIndex = trainRouteIndex;
+    }
+
+    /**
+     * 获取站点区间的车厢可用座位，首次访问时通过 loader 加载
+     */
+    public Map<String, List<String>> getCarriageAvailableSeatMap(String departure, String arrival, Supplier<Map<String, List<String>>> loader) {
+        return segmentCarriageSeatMap.computeIfAbsent(segmentKey(departure, arrival), key -> loader.get());
+    }
+
+    /**
+     * 从所有与出发站到到达站重叠的区间快照中扣除已分配座位
+     */
+    public void occupy(String departure, String arrival, List<TrainPurchaseTicketRespDTO> seatList) {
+        int startOrdinal = trainRouteIndex.ordinal(departure);
+        int endOrdinal = trainRouteIndex.ordinal(arrival);
+        int size = trainRouteIndex.size();
+        segmentCarriageSeatMap.forEach((segmentKey, carriageSeatMap) -> {
+            int segmentStart = segmentKey / size;
+            int segmentEnd = segmentKey % size;
+            if (segmentStart < endOrdinal && startOrdinal < segmentEnd) {
+                seatList.forEach(each -> {
+                    List<String> availableSeats = carriageSeatMap.get(each.getCarriageNumber());
+                    if (availableSeats != null) {
+                        availableSeats.remove(each.getSeatNumber());
+                    }
+                });
+            }
+        });
+    }
+
+    private int segmentKey(String departure, String arrival) {
+        return trainRouteIndex.ordinal(departure) * trainRouteIndex.size() + trainRouteIndex.ordinal(arrival);
+    }
+}
@@ -18,117 +18,140 @@
 package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select;
 
 import cn.hutool.core.collection.CollUtil;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.PurchaseTicketPassengerDetailDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 座位选择器
+ * 商务座、一等座、二等座共用的选座流程，车厢座位以 {@link CarriageSeatBitmap} 表示，不同座位类型仅布局不同
  * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
  */
-public class SeatSelection {
+public final class SeatSelection {
 
-    public static int[][] adjacent(int numSeats, int[][] seatLayout) {
-        int numRows = seatLayout.length;
-        int numCols = seatLayout[0].length;
-        List<int[]> selectedSeats = new ArrayList<>();
-        for (int i = 0; i < numRows; i++) {
-            for (int j = 0; j < numCols; j++) {
-                if (seatLayout[i][j] == 0) {
-                    int consecutiveSeats = 0;
-                    for (int k = j; k < numCols; k++) {
-                        if (seatLayout[i][k] == 0) {
-                            consecutiveSeats++;
-                            if (consecutiveSeats == numSeats) {
-                                for (int l = k - numSeats + 1; l <= k; l++) {
-                                    selectedSeats.add(new int[]{i, l});
-                                }
-                                break;
-                            }
-                        } else {
-                            consecutiveSeats = 0;
-                        }
-                    }
-                    if (!selectedSeats.isEmpty()) {
-                        break;
-                    }
-                }
+    private SeatSelection() {
+    }
+
+    /**
+     * 为乘车人分配座位
+     * 优先满足用户选座或同车厢邻座，无法满足时依次降级为同车厢不邻座、不同车厢不邻座
+     *
+     * @param carriages     车厢座位位图集合，按车厢号顺序排列
+     * @param passengers    乘车人集合
+     * @param chooseSeats   用户选座集合
+     * @param adjacentLimit 乘车人数小于该值时整体分配邻座，否则按分组分配邻座
+     * @param groupSize     分组分配邻座时每组人数
+     * @return 乘车人座位集合，座位不足时返回空集合
+     */
+    public static List<TrainPurchaseTicketRespDTO> select(List<CarriageSeatBitmap> carriages, List<PurchaseTicketPassengerDetailDTO> passengers,
+                                                          List<String> chooseSeats, int adjacentLimit, int groupSize) {
+        int numSeats = passengers.size();
+        Map<CarriageSeatBitmap, int[]> carriageSeatsMap = null;
+        for (CarriageSeatBitmap each : carriages) {
+            int[] seats;
+            if (CollUtil.isNotEmpty(chooseSeats)) {
+                seats = matchChooseSeats(numSeats, chooseSeats, each);
+            } else if (numSeats < adjacentLimit) {
+                seats = each.adjacent(numSeats);
+            } else {
+                seats = groupAdjacent(numSeats, groupSize, each);
             }
-            if (!selectedSeats.isEmpty()) {
+            if (seats != null) {
+                carriageSeatsMap = Map.of(each, seats);
                 break;
             }
         }
-        if (CollUtil.isEmpty(selectedSeats)) {
-            return null;
-        }
-        int[][] actualSeat = new int[numSeats][2];
-        int i = 0;
-        for (int[] seat : selectedSeats) {
-            int row = seat[0] + 1;
-            int col = seat[1] + 1;
-            actualSeat[i][0] = row;
-            actualSeat[i][1] = col;
-            i++;
+        // 如果邻座算法无法匹配，尝试对用户进行降级分配：同车厢不邻座
+        if (carriageSeatsMap == null) {
+            for (CarriageSeatBitmap each : carriages) {
+                if (each.vacantCount() >= numSeats) {
+                    carriageSeatsMap = Map.of(each, each.nonAdjacent(numSeats));
+                    break;
+                }
+            }
         }
-        return actualSeat;
-    }
-
-    public static int[][] nonAdjacent(int numSeats, int[][] seatLayout) {
-        int numRows = seatLayout.length;
-        int numCols = seatLayout[0].length;
-        List<int[]> selectedSeats = new ArrayList<>();
-        for (int i = 0; i < numRows; i++) {
-            for (int j = 0; j < numCols; j++) {
-                if (seatLayout[i][j] == 0) {
-                    selectedSeats.add(new int[]{i, j});
-                    if (selectedSeats.size() == numSeats) {
-                        break;
-                    }
+        // 如果同车厢也已无法匹配，则对用户座位再次降级：不同车厢不邻座
+        if (carriageSeatsMap == null) {
+            carriageSeatsMap = new LinkedHashMap<>();
+            int undistributedSize = numSeats;
+            for (int i = 0; i < carriages.size() && undistributedSize > 0; i++) {
+                int[] seats = carriages.get(i).nonAdjacent(undistributedSize);
+                if (seats.length > 0) {
+                    carriageSeatsMap.put(carriages.get(i), seats);
+                    undistributedSize -= seats.length;
                 }
             }
-            if (selectedSeats.size() == numSeats) {
-                break;
+            if (undistributedSize > 0) {
+                return Collections.emptyList();
             }
         }
-        return convertToActualSeat(selectedSeats);
+        return buildResult(carriageSeatsMap, passengers);
     }
 
-    private static int[][] convertToActualSeat(List<int[]> selectedSeats) {
-        int[][] actualSeat = new int[selectedSeats.size()][2];
-        for (int i = 0; i < selectedSeats.size(); i++) {
-            int[] seat = selectedSeats.get(i);
-            int row = seat[0] + 1;
-            int col = seat[1] + 1;
-            actualSeat[i][0] = row;
-            actualSeat[i][1] = col;
+    /**
+     * 匹配用户选座，选座人数少于乘车人数时剩余乘车人按顺序分配同车厢座位
+     */
+    private static int[] matchChooseSeats(int numSeats, List<String> chooseSeats, CarriageSeatBitmap carriage) {
+        if (carriage.vacantCount() < numSeats) {
+            return null;
+        }
+        int[] sureSeats = carriage.matchChooseSeats(chooseSeats);
+        if (sureSeats == null) {
+            return null;
         }
-        return actualSeat;
+        if (sureSeats.length >= numSeats) {
+            return Arrays.copyOf(sureSeats, numSeats);
+        }
+        CarriageSeatBitmap transcript = carriage.copy();
+        transcript.occupy(sureSeats);
+        int[] restSeats = transcript.nonAdjacent(numSeats - sureSeats.length);
+        int[] result = new int[numSeats];
+        System.arraycopy(sureSeats, 0, result, 0, sureSeats.length);
+        System.arraycopy(restSeats, 0, result, sureSeats.length, restSeats.length);
+        return result;
     }
 
-    public static void main(String[] args) {
-        int[][] seatLayout = {
-                {1, 1, 1, 1},
-                {1, 1, 1, 0},
-                {1, 1, 1, 0},
-                {0, 0, 0, 0}
-        };
-        int[][] select = adjacent(2, seatLayout);
-        System.out.println("成功预订相邻座位，座位位置为：");
-        assert select != null;
-        for (int[] ints : select) {
-            System.out.printf("第 %d 排，第 %d 列%n", ints[0], ints[1]);
+    /**
+     * 乘车人按分组在同一车厢内分配邻座，任一分组无法分配时返回 null
+     */
+    private static int[] groupAdjacent(int numSeats, int groupSize, CarriageSeatBitmap carriage) {
+        if (carriage.vacantCount() < numSeats) {
+            return null;
         }
+        CarriageSeatBitmap transcript = carriage.copy();
+        int[] result = new int[numSeats];
+        for (int offset = 0; offset < numSeats; offset += groupSize) {
+            int[] seats = transcript.adjacent(Math.min(groupSize, numSeats - offset));
+            if (seats == null) {
+                return null;
+            }
+            transcript.occupy(seats);
+            System.arraycopy(seats, 0, result, offset, seats.length);
+        }
+        return result;
+    }
 
-        int[][] seatLayoutTwo = {
-                {1, 0, 1, 1},
-                {1, 1, 0, 0},
-                {1, 1, 1, 0},
-                {0, 0, 0, 0}
-        };
-        int[][] selectTwo = nonAdjacent(3, seatLayoutTwo);
-        System.out.println("成功预订不相邻座位，座位位置为：");
-        for (int[] ints : selectTwo) {
-            System.out.printf("第 %d 排，第 %d 列%n", ints[0], ints[1]);
+    private static List<TrainPurchaseTicketRespDTO> buildResult(Map<CarriageSeatBitmap, int[]> carriageSeatsMap, List<PurchaseTicketPassengerDetailDTO> passengers) {
+        List<TrainPurchaseTicketRespDTO> actualResult = new ArrayList<>(passengers.size());
+        int countNum = 0;
+        for (Map.Entry<CarriageSeatBitmap, int[]> entry : carriageSeatsMap.entrySet()) {
+            CarriageSeatBitmap carriage = entry.getKey();
+            for (int seatIndex : entry.getValue()) {
+                PurchaseTicketPassengerDetailDTO currentTicketPassenger = passengers.get(countNum++);
+                TrainPurchaseTicketRespDTO result = new TrainPurchaseTicketRespDTO();
+                result.setSeatNumber(carriage.seatNumber(seatIndex));
+                result.setSeatType(currentTicketPassenger.getSeatType());
+                result.setCarriageNumber(carriage.getCarriageNumber());
+                result.setPassengerId(currentTicketPassenger.getPassengerId());
+                actualResult.add(result);
+            }
         }
+        return actualResult;
     }
 }
@@ -22,6 +22,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.PurchaseTicketStageEnum;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.VehicleSeatTypeEnum;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.VehicleTypeEnum;
 import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainStationPriceDO;
@@ -33,6 +34,7 @@ import org.opengoofy.index12306.biz.ticketservice.remote.dto.PassengerRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.SeatService;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.SelectSeatDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.metrics.PurchaseTicketStageMetrics;
 import org.opengoofy.index12306.framework.starter.convention.exception.RemoteException;
 import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
 import org.opengoofy.index12306.framework.starter.convention.result.Result;
@@ -45,8 +47,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
 /**
@@ -62,9 +64,28 @@ public final class TrainSeatTypeSelector {
     private final UserRemoteService userRemoteService;
     private final TrainStationPriceMapper trainStationPriceMapper;
     private final AbstractStrategyChoose abstractStrategyChoose;
-    private final ThreadPoolExecutor selectSeatThreadPoolExecutor;
+    private final ExecutorService selectSeatThreadPoolExecutor;
+    private final PurchaseTicketStageMetrics purchaseTicketStageMetrics;
 
     public List<TrainPurchaseTicketRespDTO> select(Integer trainType, PurchaseTicketReqDTO requestParam) {
+        PurchaseTicketStageMetrics.StageTags stageTags = purchaseTicketStageMetrics.tags(trainType, requestParam.getPassengers());
+        List<TrainPurchaseTicketRespDTO> actualResult = purchaseTicketStageMetrics.record(PurchaseTicketStageEnum.SEAT_SELECT, stageTags,
+                () -> allocate(trainType, requestParam, null));
+        // 购买列车中间站点余票如何更新？详细查看：https://nageoffer.com/12306/question
+        purchaseTicketStageMetrics.record(PurchaseTicketStageEnum.SEAT_LOCK, stageTags,
+                () -> seatService.lockSeat(requestParam.getTrainId(), requestParam.getDeparture(), requestParam.getArrival(), actualResult));
+        return actualResult;
+    }
+
+    /**
+     * 为乘车人分配座位并补全乘车人、票价信息，不锁定座位
+     *
+     * @param trainType    列车类型
+     * @param requestParam 购票请求入参
+     * @param seatSnapshot 批量购票共享的车厢可用座位快照，单笔购票时为空
+     * @return 乘车人座位集合
+     */
+    public List<TrainPurchaseTicketRespDTO> allocate(Integer trainType, PurchaseTicketReqDTO requestParam, CarriageSeatSnapshot seatSnapshot) {
         List<PurchaseTicketPassengerDetailDTO> passengerDetails = requestParam.getPassengers();
         Map<Integer, List<PurchaseTicketPassengerDetailDTO>> seatTypeMap = passengerDetails.stream()
                 .collect(Collectors.groupingBy(PurchaseTicketPassengerDetailDTO::getSeatType));
@@ -74,7 +95,7 @@ public final class TrainSeatTypeSelector {
             seatTypeMap.forEach((seatType, passengerSeatDetails) -> {
                 // 线程池参数如何设置？详情查看：https://nageoffer.com/12306/question
                 Future<List<TrainPurchaseTicketRespDTO>> completableFuture = selectSeatThreadPoolExecutor
-                        .submit(() -> distributeSeats(trainType, seatType, requestParam, passengerSeatDetails));
+                        .submit(() -> distributeSeats(trainType, seatType, requestParam, passengerSeatDetails, seatSnapshot));
                 futureResults.add(completableFuture);
             });
             // 并行流极端情况下有坑，详情参考：https://nageoffer.com/12306/question
@@ -87,7 +108,7 @@ public final class TrainSeatTypeSelector {
             });
         } else {
             seatTypeMap.forEach((seatType, passengerSeatDetails) -> {
-                List<TrainPurchaseTicketRespDTO> aggregationResult = distributeSeats(trainType, seatType, requestParam, passengerSeatDetails);
+                List<TrainPurchaseTicketRespDTO> aggregationResult = distributeSeats(trainType, seatType, requestParam, passengerSeatDetails, seatSnapshot);
                 actualResult.addAll(aggregationResult);
             });
         }
@@ -136,17 +157,17 @@ public final class TrainSeatTypeSelector {
             TrainStationPriceDO trainStationPriceDO = trainStationPriceMapper.selectOne(lambdaQueryWrapper);
             each.setAmount(trainStationPriceDO.getPrice());
         });
-        // 购买列车中间站点余票如何更新？详细查看：https://nageoffer.com/12306/question
-        seatService.lockSeat(requestParam.getTrainId(), requestParam.getDeparture(), requestParam.getArrival(), actualResult);
         return actualResult;
     }
 
-    private List<TrainPurchaseTicketRespDTO> distributeSeats(Integer trainType, Integer seatType, PurchaseTicketReqDTO requestParam, List<PurchaseTicketPassengerDetailDTO> passengerSeatDetails) {
+    private List<TrainPurchaseTicketRespDTO> distributeSeats(Integer trainType, Integer seatType, PurchaseTicketReqDTO requestParam,
+                                                             List<PurchaseTicketPassengerDetailDTO> passengerSeatDetails, CarriageSeatSnapshot seatSnapshot) {
         String buildStrategyKey = VehicleTypeEnum.findNameByCode(trainType) + VehicleSeatTypeEnum.findNameByCode(seatType);
         SelectSeatDTO selectSeatDTO = SelectSeatDTO.builder()
                 .seatType(seatType)
                 .passengerSeatDetails(passengerSeatDetails)
                 .requestParam(requestParam)
+                .seatSnapshot(seatSnapshot)
                 .build();
         try {
             return abstractStrategyChoose.chooseAndExecuteResp(buildStrategyKey, selectSeatDTO);
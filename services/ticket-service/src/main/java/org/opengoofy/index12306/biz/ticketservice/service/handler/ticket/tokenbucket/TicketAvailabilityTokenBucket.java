@@ -17,6 +17,7 @@
 
 package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket;
 
+import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONArray;
@@ -29,12 +30,12 @@ import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainDO;
 import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TrainMapper;
 import org.opengoofy.index12306.biz.ticketservice.dto.domain.PurchaseTicketPassengerDetailDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
-import org.opengoofy.index12306.biz.ticketservice.dto.domain.SeatTypeCountDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.req.PurchaseTicketReqDTO;
 import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderDetailRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderPassengerDetailRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.SeatService;
 import org.opengoofy.index12306.biz.ticketservice.service.TrainStationService;
+import org.opengoofy.index12306.biz.ticketservice.service.cache.TrainRouteIndex;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TokenResultDTO;
 import org.opengoofy.index12306.framework.starter.bases.Singleton;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
@@ -42,12 +43,14 @@ import org.opengoofy.index12306.framework.starter.common.toolkit.Assert;
 import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.scripting.support.ResourceScriptSource;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -57,6 +60,7 @@ import java.util.stream.Collectors;
 
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.Index12306Constant.ADVANCE_TICKET_DAY;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_TICKET_AVAILABILITY_TOKEN_BUCKET;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TICKET_AVAILABILITY_SEGMENT_TOKEN_BUCKET;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TICKET_AVAILABILITY_TOKEN_BUCKET;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_INFO;
 
@@ -74,9 +78,22 @@ public final class TicketAvailabilityTokenBucket {
     private final RedissonClient redissonClient;
     private final SeatService seatService;
     private final TrainMapper trainMapper;
+    private final TicketAvailabilityTokenLeaseManager ticketAvailabilityTokenLeaseManager;
+    private final TicketSoldOutRegistry ticketSoldOutRegistry;
 
     private static final String LUA_TICKET_AVAILABILITY_TOKEN_BUCKET_PATH = "lua/ticket_availability_token_bucket.lua";
     private static final String LUA_TICKET_AVAILABILITY_ROLLBACK_TOKEN_BUCKET_PATH = "lua/ticket_availability_rollback_token_bucket.lua";
+    private static final String LUA_TICKET_AVAILABILITY_SEGMENT_TOKEN_BUCKET_PATH = "lua/ticket_availability_segment_token_bucket.lua";
+    private static final String LUA_TICKET_AVAILABILITY_SEGMENT_ROLLBACK_TOKEN_BUCKET_PATH = "lua/ticket_availability_segment_rollback_token_bucket.lua";
+    private static final String SEGMENT_TOKEN_BUCKET_TYPE = "segment";
+    private static final String LEASE_TOKEN_BUCKET_TYPE = "lease";
+    private static final long TOKEN_BUCKET_INITIALIZE_WAIT_SECONDS = 3L;
+
+    /**
+     * 令牌桶类型，segment 表示按相邻站点原子区间存储余量令牌，lease 在 segment 基础上由各节点预领令牌租约，默认按站点路线存储
+     */
+    @Value("${ticket.availability.token-bucket.type:}")
+    private String tokenBucketType;
 
     /**
      * 获取车站间令牌桶中的令牌访问
@@ -87,6 +104,9 @@ public final class TicketAvailabilityTokenBucket {
      * @return 是否获取列车车票余量令牌桶中的令牌返回结果
      */
     public TokenResultDTO takeTokenFromBucket(PurchaseTicketReqDTO requestParam) {
+        if (isLeaseTokenBucket() && takeTokenFromLocalLease(requestParam)) {
+            return TokenResultDTO.builder().tokenIsNull(Boolean.FALSE).build();
+        }
         TrainDO trainDO = distributedCache.safeGet(
                 TRAIN_INFO + requestParam.getTrainId(),
                 TrainDO.class,
@@ -94,41 +114,31 @@ public final class TicketAvailabilityTokenBucket {
                 ADVANCE_TICKET_DAY,
                 TimeUnit.DAYS);
 //        拿到车次的信息  车次 类型， 起始和终止站点  一些时间的信息
-        List<RouteDTO> routeDTOList = trainStationService
-                .listTrainStationRoute(requestParam.getTrainId(), trainDO.getStartStation(), trainDO.getEndStation());
-//        拿到沿线的车次的站点信息，也就是起始站到终点站之间所有的俩俩组合的站点类型
         StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
-        String tokenBucketHashKey = TICKET_AVAILABILITY_TOKEN_BUCKET + requestParam.getTrainId();
+        String tokenBucketHashKey = getTokenBucketHashKey(requestParam.getTrainId());
         Boolean hasKey = distributedCache.hasKey(tokenBucketHashKey);
         if (!hasKey) {
+            // 令牌桶正常由开售前预热任务构建，此处仅兜底预热遗漏的列车，等待其他线程构建完成而非直接失败
             RLock lock = redissonClient.getLock(String.format(LOCK_TICKET_AVAILABILITY_TOKEN_BUCKET, requestParam.getTrainId()));
-            if (!lock.tryLock()) {
+            boolean locked;
+            try {
+                locked = lock.tryLock(TOKEN_BUCKET_INITIALIZE_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ServiceException("购票异常，请稍候再试");
+            }
+            if (!locked) {
                 throw new ServiceException("购票异常，请稍候再试");
             }
             try {
-                Boolean hasKeyTwo = distributedCache.hasKey(tokenBucketHashKey);
-//                双重判定进行优化性能，避免其他线程进入进行一些无效的更新的操作
-                if (!hasKeyTwo) {
-//                    如果任然没有则进行对应的数据的更新的操作
-                    List<Integer> seatTypes = VehicleTypeEnum.findSeatTypesByCode(trainDO.getTrainType());
-//                    拿到当前的车次的座位的类型
-                    Map<String, String> ticketAvailabilityTokenMap = new HashMap<>();
-//                    定义一个hashmap用于存储当前的用户的一些车次的车票信息
-                    for (RouteDTO each : routeDTOList) {
-                        List<SeatTypeCountDTO> seatTypeCountDTOList = seatService.listSeatTypeCount(Long.parseLong(requestParam.getTrainId()), each.getStartStation(), each.getEndStation(), seatTypes);
-//                        统计当前的座位的表中的指定的车次,指定的起始和终止站点下,指定的座位类型的车票的数目   这个是从我们的车座的表中进行查询的
-                        for (SeatTypeCountDTO eachSeatTypeCountDTO : seatTypeCountDTOList) {
-                            String buildCacheKey = StrUtil.join("_", each.getStartStation(), each.getEndStation(), eachSeatTypeCountDTO.getSeatType());
-                            ticketAvailabilityTokenMap.put(buildCacheKey, String.valueOf(eachSeatTypeCountDTO.getSeatCount()));
-                        }
-                    }
-//                    构建的车票的桶
-                    stringRedisTemplate.opsForHash().putAll(TICKET_AVAILABILITY_TOKEN_BUCKET + requestParam.getTrainId(), ticketAvailabilityTokenMap);
-                }
+                initializeTokens(trainDO);
             } finally {
                 lock.unlock();
             }
         }
+        if (isSegmentTokenBucket()) {
+            return takeTokenFromSegmentBucket(requestParam, tokenBucketHashKey);
+        }
         DefaultRedisScript<String> actual = Singleton.get(LUA_TICKET_AVAILABILITY_TOKEN_BUCKET_PATH, () -> {
             DefaultRedisScript<String> redisScript = new DefaultRedisScript<>();
             redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_TICKET_AVAILABILITY_TOKEN_BUCKET_PATH)));
@@ -177,6 +187,10 @@ public final class TicketAvailabilityTokenBucket {
      * @param requestParam 回滚列车余量令牌入参
      */
     public void rollbackInBucket(TicketOrderDetailRespDTO requestParam) {
+        if (isSegmentTokenBucket()) {
+            rollbackInSegmentBucket(requestParam);
+            return;
+        }
         DefaultRedisScript<Long> actual = Singleton.get(LUA_TICKET_AVAILABILITY_ROLLBACK_TOKEN_BUCKET_PATH, () -> {
             DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
             redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_TICKET_AVAILABILITY_ROLLBACK_TOKEN_BUCKET_PATH)));
@@ -204,24 +218,172 @@ public final class TicketAvailabilityTokenBucket {
             log.error("回滚列车余票令牌失败，订单信息：{}", JSON.toJSONString(requestParam));
             throw new ServiceException("回滚列车余票令牌失败");
         }
+        ticketSoldOutRegistry.publishAvailable(String.valueOf(requestParam.getTrainId()));
     }
 
     /**
      * 删除令牌，一般在令牌与数据库不一致情况下触发
+     * 租约模式下部分令牌由各节点持有，Redis 余量必然低于数据库，不据此删除重建，避免令牌重复发放
      *
      * @param requestParam 删除令牌容器参数
      */
     public void delTokenInBucket(PurchaseTicketReqDTO requestParam) {
+        if (isLeaseTokenBucket()) {
+            return;
+        }
         StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
-        String tokenBucketHashKey = TICKET_AVAILABILITY_TOKEN_BUCKET + requestParam.getTrainId();
+        String tokenBucketHashKey = getTokenBucketHashKey(requestParam.getTrainId());
         stringRedisTemplate.delete(tokenBucketHashKey);
+        ticketSoldOutRegistry.publishAvailable(requestParam.getTrainId());
     }
 
-    public void putTokenInBucket() {
+    /**
+     * 写入列车余量令牌桶，先写入临时 Key 再原子重命名，避免购票请求读取到构建一半的令牌桶
+     *
+     * @param trainId                    列车 ID
+     * @param ticketAvailabilityTokenMap Key：出发站_到达站_座位类型或座位类型_区间序号，Value：余量令牌数量
+     * @return 是否写入成功，令牌桶已存在时返回 false
+     */
+    public boolean putTokenInBucket(String trainId, Map<String, String> ticketAvailabilityTokenMap) {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        String tokenBucketHashKey = getTokenBucketHashKey(trainId);
+        String tempTokenBucketHashKey = tokenBucketHashKey + "_" + IdUtil.fastSimpleUUID();
+        boolean renamed = false;
+        try {
+            stringRedisTemplate.opsForHash().putAll(tempTokenBucketHashKey, ticketAvailabilityTokenMap);
+            renamed = Boolean.TRUE.equals(stringRedisTemplate.renameIfAbsent(tempTokenBucketHashKey, tokenBucketHashKey));
+        } finally {
+            if (!renamed) {
+                stringRedisTemplate.delete(tempTokenBucketHashKey);
+            }
+        }
+        if (renamed) {
+            ticketSoldOutRegistry.publishAvailable(trainId);
+        }
+        return renamed;
+    }
 
+    /**
+     * 初始化列车余量令牌桶，令牌桶已存在时跳过
+     * 所有站点路线余量由一次聚合查询在内存中计算得出，无余票的座位类型同样写入 0，避免 Lua 脚本读取空值
+     *
+     * @param trainDO 列车信息
+     */
+    public void initializeTokens(TrainDO trainDO) {
+        String trainId = String.valueOf(trainDO.getId());
+        if (distributedCache.hasKey(getTokenBucketHashKey(trainId))) {
+            return;
+        }
+        List<Integer> seatTypes = VehicleTypeEnum.findSeatTypesByCode(trainDO.getTrainType());
+        Map<String, Integer> routeSeatTypeCountMap = seatService.countRouteSeatTypeAvailable(trainId, seatTypes);
+        Map<String, String> ticketAvailabilityTokenMap = new HashMap<>();
+        if (isSegmentTokenBucket()) {
+            // 原子区间 [k, k + 1) 的余量即相邻站点路线的余量
+            TrainRouteIndex trainRouteIndex = trainStationService.getTrainRouteIndex(trainId);
+            for (int k = 0; k < trainRouteIndex.size() - 1; k++) {
+                for (Integer seatType : seatTypes) {
+                    String routeKey = StrUtil.join("_", trainRouteIndex.station(k), trainRouteIndex.station(k + 1), seatType);
+                    ticketAvailabilityTokenMap.put(StrUtil.join("_", seatType, k), String.valueOf(routeSeatTypeCountMap.getOrDefault(routeKey, 0)));
+                }
+            }
+        } else {
+            routeSeatTypeCountMap.forEach((key, value) -> ticketAvailabilityTokenMap.put(key, String.valueOf(value)));
+        }
+        putTokenInBucket(trainId, ticketAvailabilityTokenMap);
     }
 
-    public void initializeTokens() {
+    /**
+     * 从分段令牌桶获取令牌，区间 [出发站序号, 到达站序号) 内各原子区间余量的最小值即为区间可购余量
+     * 仅读写区间内的原子区间，入参为整型站点序号而非站点路线集合
+     */
+    private TokenResultDTO takeTokenFromSegmentBucket(PurchaseTicketReqDTO requestParam, String tokenBucketHashKey) {
+        DefaultRedisScript<String> actual = Singleton.get(LUA_TICKET_AVAILABILITY_SEGMENT_TOKEN_BUCKET_PATH, () -> {
+            DefaultRedisScript<String> redisScript = new DefaultRedisScript<>();
+            redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_TICKET_AVAILABILITY_SEGMENT_TOKEN_BUCKET_PATH)));
+            redisScript.setResultType(String.class);
+            return redisScript;
+        });
+        Assert.notNull(actual);
+        Map<Integer, Long> seatTypeCountMap = requestParam.getPassengers().stream()
+                .collect(Collectors.groupingBy(PurchaseTicketPassengerDetailDTO::getSeatType, Collectors.counting()));
+        if (isLeaseTokenBucket()) {
+            int[] ordinals = getRouteOrdinals(requestParam.getTrainId(), requestParam.getDeparture(), requestParam.getArrival());
+            return ticketAvailabilityTokenLeaseManager.takeToken(tokenBucketHashKey, ordinals[0], ordinals[1], seatTypeCountMap);
+        }
+        List<String> args = buildSegmentScriptArgs(requestParam.getTrainId(), requestParam.getDeparture(), requestParam.getArrival(), seatTypeCountMap);
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        String resultStr = stringRedisTemplate.execute(actual, List.of(tokenBucketHashKey), args.toArray());
+        TokenResultDTO result = JSON.parseObject(resultStr, TokenResultDTO.class);
+        return result == null
+                ? TokenResultDTO.builder().tokenIsNull(Boolean.TRUE).build()
+                : result;
+    }
+
+    /**
+     * 仅扣减本节点令牌租约，租约不足时返回 false 由调用方走 Redis 续领流程
+     */
+    private boolean takeTokenFromLocalLease(PurchaseTicketReqDTO requestParam) {
+        Map<Integer, Long> seatTypeCountMap = requestParam.getPassengers().stream()
+                .collect(Collectors.groupingBy(PurchaseTicketPassengerDetailDTO::getSeatType, Collectors.counting()));
+        int[] ordinals = getRouteOrdinals(requestParam.getTrainId(), requestParam.getDeparture(), requestParam.getArrival());
+        return ticketAvailabilityTokenLeaseManager.tryTakeLocal(getTokenBucketHashKey(requestParam.getTrainId()), ordinals[0], ordinals[1], seatTypeCountMap);
+    }
+
+    private void rollbackInSegmentBucket(TicketOrderDetailRespDTO requestParam) {
+        DefaultRedisScript<Long> actual = Singleton.get(LUA_TICKET_AVAILABILITY_SEGMENT_ROLLBACK_TOKEN_BUCKET_PATH, () -> {
+            DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+            redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_TICKET_AVAILABILITY_SEGMENT_ROLLBACK_TOKEN_BUCKET_PATH)));
+            redisScript.setResultType(Long.class);
+            return redisScript;
+        });
+        Assert.notNull(actual);
+        Map<Integer, Long> seatTypeCountMap = requestParam.getPassengerDetails().stream()
+                .collect(Collectors.groupingBy(TicketOrderPassengerDetailRespDTO::getSeatType, Collectors.counting()));
+        String trainId = String.valueOf(requestParam.getTrainId());
+        List<String> args = buildSegmentScriptArgs(trainId, requestParam.getDeparture(), requestParam.getArrival(), seatTypeCountMap);
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        Long result = stringRedisTemplate.execute(actual, List.of(getTokenBucketHashKey(trainId)), args.toArray());
+        if (result == null || !Objects.equals(result, 0L)) {
+            log.error("回滚列车余票令牌失败，订单信息：{}", JSON.toJSONString(requestParam));
+            throw new ServiceException("回滚列车余票令牌失败");
+        }
+        ticketSoldOutRegistry.publishAvailable(String.valueOf(requestParam.getTrainId()));
+    }
+
+    /**
+     * 构建分段令牌桶脚本参数：出发站序号、到达站序号，其后为座位类型与数量交替排列
+     */
+    private List<String> buildSegmentScriptArgs(String trainId, String departure, String arrival, Map<Integer, Long> seatTypeCountMap) {
+        int[] ordinals = getRouteOrdinals(trainId, departure, arrival);
+        List<String> args = new ArrayList<>(2 + (seatTypeCountMap.size() << 1));
+        args.add(String.valueOf(ordinals[0]));
+        args.add(String.valueOf(ordinals[1]));
+        seatTypeCountMap.forEach((seatType, count) -> {
+            args.add(String.valueOf(seatType));
+            args.add(String.valueOf(count));
+        });
+        return args;
+    }
+
+    private int[] getRouteOrdinals(String trainId, String departure, String arrival) {
+        TrainRouteIndex trainRouteIndex = trainStationService.getTrainRouteIndex(trainId);
+        int startOrdinal = trainRouteIndex.ordinal(departure);
+        int endOrdinal = trainRouteIndex.ordinal(arrival);
+        if (startOrdinal < 0 || endOrdinal <= startOrdinal) {
+            throw new ServiceException("列车站点区间不合法");
+        }
+        return new int[]{startOrdinal, endOrdinal};
+    }
+
+    private boolean isSegmentTokenBucket() {
+        return StrUtil.equals(tokenBucketType, SEGMENT_TOKEN_BUCKET_TYPE) || isLeaseTokenBucket();
+    }
+
+    private boolean isLeaseTokenBucket() {
+        return StrUtil.equals(tokenBucketType, LEASE_TOKEN_BUCKET_TYPE);
+    }
 
+    private String getTokenBucketHashKey(String trainId) {
+        return (isSegmentTokenBucket() ? TICKET_AVAILABILITY_SEGMENT_TOKEN_BUCKET : TICKET_AVAILABILITY_TOKEN_BUCKET) + trainId;
     }
 }
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 节点本地持有的列车余量令牌租约，Key：座位类型_原子区间序号，Value：本地剩余令牌数量
+ * 租约关闭后不再发放令牌，剩余令牌由租约管理器归还至分段令牌桶；单个 Field 空闲超时后也会单独归还
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+final class TicketAvailabilityTokenLease {
+
+    @Getter
+    private final String tokenBucketHashKey;
+
+    @Getter
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    /**
+     * 续领锁，持有期间会访问 Redis，使用 ReentrantLock 避免虚拟线程阻塞时占用载体线程
+     */
+    @Getter
+    private final ReentrantLock leaseLock = new ReentrantLock();
+
+    private final ReentrantLock stateLock = new ReentrantLock();
+
+    private final Map<String, Integer> tokenMap = new HashMap<>();
+
+    /**
+     * Key：座位类型_原子区间序号，Value：最近一次访问时间戳
+     */
+    private final Map<String, Long> accessTimeMap = new HashMap<>();
+
+    private boolean closed;
+
+    TicketAvailabilityTokenLease(String tokenBucketHashKey) {
+        this.tokenBucketHashKey = tokenBucketHashKey;
+    }
+
+    /**
+     * 扣减本地令牌，任一 Field 余量不足时不做扣减
+     *
+     * @param fieldCountMap Key：座位类型_原子区间序号，Value：扣减数量
+     * @return 是否扣减成功
+     */
+    boolean tryTake(Map<String, Integer> fieldCountMap) {
+        stateLock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            fieldCountMap.keySet().forEach(field -> accessTimeMap.put(field, now));
+            for (Map.Entry<String, Integer> each : fieldCountMap.entrySet()) {
+                if (tokenMap.getOrDefault(each.getKey(), 0) < each.getValue()) {
+                    return false;
+                }
+            }
+            fieldCountMap.forEach((field, count) -> tokenMap.merge(field, -count, Integer::sum));
+            return true;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    int getToken(String field) {
+        stateLock.lock();
+        try {
+            return tokenMap.getOrDefault(field, 0);
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    void addToken(String field, int count) {
+        stateLock.lock();
+        try {
+            tokenMap.merge(field, count, Integer::sum);
+            accessTimeMap.put(field, System.currentTimeMillis());
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    boolean isClosed() {
+        stateLock.lock();
+        try {
+            return closed;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * 取出空闲超时 Field 的剩余令牌，租约保持可用
+     *
+     * @param deadline 最近访问时间早于该时间戳的 Field 视为空闲
+     * @return 空闲 Field 剩余令牌
+     */
+    Map<String, Integer> drainIdle(long deadline) {
+        stateLock.lock();
+        try {
+            if (closed) {
+                return Map.of();
+            }
+            Map<String, Integer> result = new HashMap<>();
+            Iterator<Map.Entry<String, Long>> iterator = accessTimeMap.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Long> each = iterator.next();
+                if (each.getValue() >= deadline) {
+                    continue;
+                }
+                iterator.remove();
+                Integer count = tokenMap.remove(each.getKey());
+                if (count != null && count > 0) {
+                    result.put(each.getKey(), count);
+                }
+            }
+            return result;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * 关闭租约并取出剩余令牌
+     *
+     * @return 剩余令牌，租约已关闭时返回空集合
+     */
+    Map<String, Integer> close() {
+        stateLock.lock();
+        try {
+            if (closed) {
+                return Map.of();
+            }
+            closed = true;
+            Map<String, Integer> result = new HashMap<>();
+            tokenMap.forEach((field, count) -> {
+                if (count > 0) {
+                    result.put(field, count);
+                }
+            });
+            tokenMap.clear();
+            accessTimeMap.clear();
+            return result;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+}
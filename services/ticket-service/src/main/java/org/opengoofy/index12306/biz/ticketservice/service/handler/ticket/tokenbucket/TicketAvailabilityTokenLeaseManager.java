@@ -0,0 +1,318 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket;
+
+import cn.hippo4j.core.executor.support.ThreadPoolBuilder;
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TokenResultDTO;
+import org.opengoofy.index12306.framework.starter.bases.Singleton;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.common.toolkit.Assert;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TICKET_AVAILABILITY_SEGMENT_TOKEN_BUCKET;
+
+/**
+ * 列车余量令牌租约管理器
+ * <p>
+ * 开启方式：ticket.availability.token-bucket.type=lease，令牌桶存储结构与分段令牌桶一致
+ * 每个节点按 列车 + 座位类型 + 原子区间 从 Redis 预领一批令牌，购票时优先扣减本地令牌，一次 Redis 访问可服务多次购票
+ * 令牌只在 Redis 与各节点租约之间转移，总量不变，因此不会超发；Field 或整个租约空闲超时、节点停机时剩余令牌归还 Redis
+ * Redis 余量不足期望数量时仅领取缺口数量，避免临近售罄时令牌集中在单个节点
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TicketAvailabilityTokenLeaseManager implements InitializingBean, DisposableBean {
+
+    private static final String LUA_TICKET_AVAILABILITY_TOKEN_LEASE_PATH = "lua/ticket_availability_token_lease.lua";
+    private static final String LUA_TICKET_AVAILABILITY_TOKEN_LEASE_RETURN_PATH = "lua/ticket_availability_token_lease_return.lua";
+
+    private final DistributedCache distributedCache;
+    private final TicketSoldOutRegistry ticketSoldOutRegistry;
+
+    private final ThreadPoolExecutor tokenLeaseExecutor = ThreadPoolBuilder.builder()
+            .threadFactory("ticket-availability-token-lease-executor")
+            .poolThreadSize(1, 4)
+            .workQueue(new LinkedBlockingQueue<>(4096))
+            .rejected(new ThreadPoolExecutor.CallerRunsPolicy())
+            .build();
+
+    private final ScheduledExecutorService tokenLeaseIdleSweepExecutor = Executors.newScheduledThreadPool(1);
+
+    /**
+     * 单次预领令牌数量，按 座位类型 + 原子区间 计
+     */
+    @Value("${ticket.availability.token-bucket.lease.size:20}")
+    private Integer leaseSize;
+
+    /**
+     * 租约空闲超时时间，单位：秒，超时后剩余令牌归还 Redis
+     */
+    @Value("${ticket.availability.token-bucket.lease.idle-timeout:30}")
+    private Long idleTimeout;
+
+    private Cache<String, TicketAvailabilityTokenLease> leaseCache;
+
+    @Override
+    public void afterPropertiesSet() {
+        leaseCache = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout, TimeUnit.SECONDS)
+                .scheduler(Scheduler.systemScheduler())
+                .executor(tokenLeaseExecutor)
+                .removalListener((String key, TicketAvailabilityTokenLease lease, RemovalCause cause) -> {
+                    if (lease != null) {
+                        returnToken(lease);
+                    }
+                })
+                .build();
+        long sweepPeriod = Math.max(1L, idleTimeout >> 1);
+        tokenLeaseIdleSweepExecutor.scheduleWithFixedDelay(this::returnIdleToken, sweepPeriod, sweepPeriod, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 仅扣减本地租约令牌，不访问 Redis
+     *
+     * @param tokenBucketHashKey 分段令牌桶 Key
+     * @param startOrdinal       出发站序号
+     * @param endOrdinal         到达站序号
+     * @param seatTypeCountMap   Key：座位类型，Value：购票数量
+     * @return 本地令牌是否充足
+     */
+    public boolean tryTakeLocal(String tokenBucketHashKey, int startOrdinal, int endOrdinal, Map<Integer, Long> seatTypeCountMap) {
+        TicketAvailabilityTokenLease lease = leaseCache.getIfPresent(tokenBucketHashKey);
+        if (lease == null || !lease.tryTake(buildFieldCountMap(startOrdinal, endOrdinal, seatTypeCountMap))) {
+            return false;
+        }
+        refillIfNecessary(lease, startOrdinal, endOrdinal, seatTypeCountMap.keySet());
+        return true;
+    }
+
+    /**
+     * 扣减令牌，本地租约不足时从 Redis 续领，调用方需保证令牌桶已存在
+     *
+     * @param tokenBucketHashKey 分段令牌桶 Key
+     * @param startOrdinal       出发站序号
+     * @param endOrdinal         到达站序号
+     * @param seatTypeCountMap   Key：座位类型，Value：购票数量
+     * @return 令牌获取结果
+     */
+    public TokenResultDTO takeToken(String tokenBucketHashKey, int startOrdinal, int endOrdinal, Map<Integer, Long> seatTypeCountMap) {
+        Map<String, Integer> fieldCountMap = buildFieldCountMap(startOrdinal, endOrdinal, seatTypeCountMap);
+        while (true) {
+            TicketAvailabilityTokenLease lease = leaseCache.get(tokenBucketHashKey, TicketAvailabilityTokenLease::new);
+            // 同一列车的续领串行执行，等待期间其他购票请求可直接复用本次续领的令牌
+            lease.getLeaseLock().lock();
+            try {
+                if (lease.isClosed()) {
+                    continue;
+                }
+                if (lease.tryTake(fieldCountMap)) {
+                    return TokenResultDTO.builder().tokenIsNull(Boolean.FALSE).build();
+                }
+                // 最少领取本次缺口，期望领取缺口 + 单次预领数量，Redis 余量不足期望数量时仅领取缺口
+                List<String> args = new ArrayList<>(fieldCountMap.size() * 3);
+                fieldCountMap.forEach((field, count) -> {
+                    int localToken = lease.getToken(field);
+                    int required = Math.max(0, count - localToken);
+                    args.add(field);
+                    args.add(String.valueOf(required));
+                    args.add(String.valueOf(Math.max(required, count + leaseSize - localToken)));
+                });
+                JSONObject leaseResult = leaseToken(tokenBucketHashKey, args);
+                if (leaseResult == null || leaseResult.getBooleanValue("tokenIsNull", true)) {
+                    return buildTokenIsNullResult(leaseResult, seatTypeCountMap);
+                }
+                addGrantedToken(lease, args, leaseResult.getJSONArray("granted"));
+                if (lease.tryTake(fieldCountMap)) {
+                    return TokenResultDTO.builder().tokenIsNull(Boolean.FALSE).build();
+                }
+                return buildTokenIsNullResult(null, seatTypeCountMap);
+            } finally {
+                lease.getLeaseLock().unlock();
+            }
+        }
+    }
+
+    private void refillIfNecessary(TicketAvailabilityTokenLease lease, int startOrdinal, int endOrdinal, Set<Integer> seatTypes) {
+        int lowWatermark = leaseSize >> 1;
+        Set<String> refillFields = new LinkedHashSet<>();
+        for (Integer seatType : seatTypes) {
+            for (int ordinal = startOrdinal; ordinal < endOrdinal; ordinal++) {
+                String field = StrUtil.join("_", seatType, ordinal);
+                if (lease.getToken(field) < lowWatermark) {
+                    refillFields.add(field);
+                }
+            }
+        }
+        if (refillFields.isEmpty() || !lease.getRefilling().compareAndSet(false, true)) {
+            return;
+        }
+        tokenLeaseExecutor.execute(() -> {
+            lease.getLeaseLock().lock();
+            try {
+                if (lease.isClosed()) {
+                    return;
+                }
+                // 异步续领没有缺口，Redis 余量不足期望数量时不领取，剩余令牌留给实际购票请求
+                List<String> args = new ArrayList<>(refillFields.size() * 3);
+                for (String field : refillFields) {
+                    int want = leaseSize - lease.getToken(field);
+                    if (want > 0) {
+                        args.add(field);
+                        args.add("0");
+                        args.add(String.valueOf(want));
+                    }
+                }
+                if (args.isEmpty()) {
+                    return;
+                }
+                JSONObject leaseResult = leaseToken(lease.getTokenBucketHashKey(), args);
+                if (leaseResult != null && !leaseResult.getBooleanValue("tokenIsNull", true)) {
+                    addGrantedToken(lease, args, leaseResult.getJSONArray("granted"));
+                }
+            } catch (Throwable ex) {
+                log.error("列车余量令牌租约异步续领失败，令牌桶：{}", lease.getTokenBucketHashKey(), ex);
+            } finally {
+                lease.getLeaseLock().unlock();
+                lease.getRefilling().set(false);
+            }
+        });
+    }
+
+    private JSONObject leaseToken(String tokenBucketHashKey, List<String> args) {
+        DefaultRedisScript<String> actual = Singleton.get(LUA_TICKET_AVAILABILITY_TOKEN_LEASE_PATH, () -> {
+            DefaultRedisScript<String> redisScript = new DefaultRedisScript<>();
+            redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_TICKET_AVAILABILITY_TOKEN_LEASE_PATH)));
+            redisScript.setResultType(String.class);
+            return redisScript;
+        });
+        Assert.notNull(actual);
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        return JSON.parseObject(stringRedisTemplate.execute(actual, List.of(tokenBucketHashKey), args.toArray()));
+    }
+
+    private void returnIdleToken() {
+        long deadline = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(idleTimeout);
+        for (TicketAvailabilityTokenLease each : leaseCache.asMap().values()) {
+            try {
+                returnToken(each.getTokenBucketHashKey(), each.drainIdle(deadline));
+            } catch (Throwable ex) {
+                log.error("列车余量令牌租约空闲 Field 归还失败，令牌桶：{}", each.getTokenBucketHashKey(), ex);
+            }
+        }
+    }
+
+    private void returnToken(TicketAvailabilityTokenLease lease) {
+        returnToken(lease.getTokenBucketHashKey(), lease.close());
+    }
+
+    private void returnToken(String tokenBucketHashKey, Map<String, Integer> remainingTokenMap) {
+        if (remainingTokenMap.isEmpty()) {
+            return;
+        }
+        String trainId = StrUtil.removePrefix(tokenBucketHashKey, TICKET_AVAILABILITY_SEGMENT_TOKEN_BUCKET);
+        DefaultRedisScript<Long> actual = Singleton.get(LUA_TICKET_AVAILABILITY_TOKEN_LEASE_RETURN_PATH, () -> {
+            DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>();
+            redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource(LUA_TICKET_AVAILABILITY_TOKEN_LEASE_RETURN_PATH)));
+            redisScript.setResultType(Long.class);
+            return redisScript;
+        });
+        Assert.notNull(actual);
+        List<String> args = new ArrayList<>(remainingTokenMap.size() << 1);
+        remainingTokenMap.forEach((field, count) -> {
+            args.add(field);
+            args.add(String.valueOf(count));
+        });
+        try {
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            stringRedisTemplate.execute(actual, List.of(tokenBucketHashKey), args.toArray());
+            ticketSoldOutRegistry.publishAvailable(trainId);
+        } catch (Throwable ex) {
+            log.error("列车余量令牌租约归还失败，令牌桶：{}，剩余令牌：{}", tokenBucketHashKey, JSON.toJSONString(remainingTokenMap), ex);
+        }
+    }
+
+    private void addGrantedToken(TicketAvailabilityTokenLease lease, List<String> args, JSONArray granted) {
+        for (int i = 0; i < granted.size(); i++) {
+            lease.addToken(args.get(i * 3), granted.getIntValue(i));
+        }
+    }
+
+    private TokenResultDTO buildTokenIsNullResult(JSONObject leaseResult, Map<Integer, Long> seatTypeCountMap) {
+        Set<String> tokenIsNullSeatTypeCounts = new LinkedHashSet<>();
+        JSONArray tokenIsNullFields = leaseResult == null ? null : leaseResult.getJSONArray("tokenIsNullFields");
+        if (tokenIsNullFields != null) {
+            for (int i = 0; i < tokenIsNullFields.size(); i++) {
+                Integer seatType = Integer.parseInt(StrUtil.subBefore(tokenIsNullFields.getString(i), "_", false));
+                tokenIsNullSeatTypeCounts.add(StrUtil.join("_", seatType, seatTypeCountMap.get(seatType)));
+            }
+        }
+        return TokenResultDTO.builder()
+                .tokenIsNull(Boolean.TRUE)
+                .tokenIsNullSeatTypeCounts(new ArrayList<>(tokenIsNullSeatTypeCounts))
+                .build();
+    }
+
+    private Map<String, Integer> buildFieldCountMap(int startOrdinal, int endOrdinal, Map<Integer, Long> seatTypeCountMap) {
+        Map<String, Integer> fieldCountMap = new LinkedHashMap<>();
+        seatTypeCountMap.forEach((seatType, count) -> {
+            for (int ordinal = startOrdinal; ordinal < endOrdinal; ordinal++) {
+                fieldCountMap.put(StrUtil.join("_", seatType, ordinal), count.intValue());
+            }
+        });
+        return fieldCountMap;
+    }
+
+    @Override
+    public void destroy() {
+        tokenLeaseIdleSweepExecutor.shutdown();
+        leaseCache.asMap().values().forEach(this::returnToken);
+        leaseCache.invalidateAll();
+        tokenLeaseExecutor.shutdown();
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket;
+
+import cn.hutool.core.util.StrUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.PurchaseTicketPassengerDetailDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.PurchaseTicketReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.TrainStationService;
+import org.opengoofy.index12306.biz.ticketservice.service.cache.TrainRouteIndex;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TokenResultDTO;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TICKET_SOLD_OUT_INVALIDATE_CHANNEL;
+
+/**
+ * 节点本地列车售罄登记表
+ * <p>
+ * 开启方式：ticket.sold-out.local-cache.enabled=true
+ * 令牌获取失败后按 列车 + 座位类型 登记失败的站点区间与购票数量，后续购票区间覆盖已登记区间且购票数量不少于登记数量时，在访问 Redis 前直接拒绝
+ * 区间越长可用余量越少，因此覆盖售罄区间的请求必然同样失败；令牌归还或令牌桶重建时通过 Redis 发布订阅通知所有节点清除该列车登记
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TicketSoldOutRegistry implements MessageListener, MeterBinder {
+
+    private final TrainStationService trainStationService;
+    private final DistributedCache distributedCache;
+
+    /**
+     * Key：列车 ID，Value：座位类型 -> 已售罄区间集合，发布订阅丢失时依赖超时时间兜底
+     */
+    private final Cache<String, Map<Integer, List<SoldOutRange>>> soldOutCache = Caffeine.newBuilder()
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    @Value("${ticket.sold-out.local-cache.enabled:false}")
+    private Boolean enabled;
+
+    /**
+     * 判断购票请求是否命中本地售罄登记
+     *
+     * @param requestParam 购票请求参数
+     * @return 任一座位类型命中售罄登记时返回 true
+     */
+    public boolean isSoldOut(PurchaseTicketReqDTO requestParam) {
+        if (!enabled) {
+            return false;
+        }
+        Map<Integer, List<SoldOutRange>> seatTypeRangeMap = soldOutCache.getIfPresent(requestParam.getTrainId());
+        if (seatTypeRangeMap == null) {
+            return false;
+        }
+        int[] ordinals = getRouteOrdinals(requestParam);
+        if (ordinals == null) {
+            return false;
+        }
+        Map<Integer, Long> seatTypeCountMap = requestParam.getPassengers().stream()
+                .collect(Collectors.groupingBy(PurchaseTicketPassengerDetailDTO::getSeatType, Collectors.counting()));
+        for (Map.Entry<Integer, Long> each : seatTypeCountMap.entrySet()) {
+            List<SoldOutRange> rangeList = seatTypeRangeMap.get(each.getKey());
+            if (rangeList == null) {
+                continue;
+            }
+            for (SoldOutRange range : rangeList) {
+                if (range.startOrdinal >= ordinals[0] && range.endOrdinal <= ordinals[1] && each.getValue() >= range.count) {
+                    rejectedCount.increment();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 根据令牌获取失败结果登记售罄区间
+     *
+     * @param requestParam 购票请求参数
+     * @param tokenResult  令牌获取结果
+     */
+    public void markSoldOut(PurchaseTicketReqDTO requestParam, TokenResultDTO tokenResult) {
+        if (!enabled || tokenResult.getTokenIsNullSeatTypeCounts() == null) {
+            return;
+        }
+        int[] ordinals = getRouteOrdinals(requestParam);
+        if (ordinals == null) {
+            return;
+        }
+        Map<Integer, List<SoldOutRange>> seatTypeRangeMap = soldOutCache.get(requestParam.getTrainId(), key -> new ConcurrentHashMap<>());
+        for (String each : tokenResult.getTokenIsNullSeatTypeCounts()) {
+            List<String> split = StrUtil.split(each, '_');
+            seatTypeRangeMap.computeIfAbsent(Integer.parseInt(split.get(0)), key -> new CopyOnWriteArrayList<>())
+                    .add(new SoldOutRange(ordinals[0], ordinals[1], Long.parseLong(split.get(1))));
+        }
+    }
+
+    /**
+     * 列车余量令牌增加后通知所有节点清除该列车售罄登记
+     *
+     * @param trainId 列车 ID
+     */
+    public void publishAvailable(String trainId) {
+        if (!enabled) {
+            return;
+        }
+        soldOutCache.invalidate(trainId);
+        try {
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            stringRedisTemplate.convertAndSend(TICKET_SOLD_OUT_INVALIDATE_CHANNEL, trainId);
+        } catch (Throwable ex) {
+            log.error("发布列车售罄登记失效通知失败，列车ID：{}", trainId, ex);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        soldOutCache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ticket_sold_out_local_trains", soldOutCache, Cache::estimatedSize)
+                .description("本地售罄登记列车数量")
+                .register(registry);
+        FunctionCounter.builder("ticket_sold_out_local_rejected", rejectedCount, LongAdder::sum)
+                .description("命中本地售罄登记直接拒绝的购票请求数量")
+                .register(registry);
+    }
+
+    private int[] getRouteOrdinals(PurchaseTicketReqDTO requestParam) {
+        TrainRouteIndex trainRouteIndex = trainStationService.getTrainRouteIndex(requestParam.getTrainId());
+        int startOrdinal = trainRouteIndex.ordinal(requestParam.getDeparture());
+        int endOrdinal = trainRouteIndex.ordinal(requestParam.getArrival());
+        return startOrdinal < 0 || endOrdinal <= startOrdinal ? null : new int[]{startOrdinal, endOrdinal};
+    }
+
+    private static final class SoldOutRange {
+
+        private final int startOrdinal;
+        private final int endOrdinal;
+        private final long count;
+
+        private SoldOutRange(int startOrdinal, int endOrdinal, long count) {
+            this.startOrdinal = startOrdinal;
+            this.endOrdinal = endOrdinal;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.waitlist;
+
+import cn.hippo4j.core.executor.support.ThreadPoolBuilder;
+import cn.hutool.core.collection.CollUtil;
+import com.alibaba.fastjson2.JSON;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.TicketWaitlistStatusEnum;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.PurchaseTicketPassengerDetailDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.TicketWaitlistDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.PurchaseTicketReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderDetailRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderPassengerDetailRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.TicketService;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.PurchaseTicketBatchItemDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TokenResultDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket.TicketAvailabilityTokenBucket;
+import org.opengoofy.index12306.framework.starter.bases.ApplicationContextHolder;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.frameworks.starter.user.core.UserInfoDTO;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.Index12306Constant.ADVANCE_TICKET_DAY;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_PURCHASE_TICKETS_V2;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_TICKET_WAITLIST_MATCH;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TICKET_WAITLIST_ENTRY;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TICKET_WAITLIST_QUEUE;
+
+/**
+ * 候补购票兑现器
+ * <p>
+ * 开启方式：ticket.waitlist.enabled=true
+ * 订单关闭、取消释放座位并回滚令牌后发出信号，按 列车 + 座位类型 合并信号，同一队列在本节点同时只有一个线程兑现
+ * 兑现时按登记先后扫描候补队列，逐笔获取令牌，获取成功的候补合并为一个批次，在购票同一把锁下批量分配座位并创建订单
+ * 令牌不足的候补继续排队，不阻塞后续其它区间的候补；兑现自身回滚令牌不再发出信号，避免循环触发
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TicketWaitlistMatcher implements DisposableBean {
+
+    private final DistributedCache distributedCache;
+    private final RedissonClient redissonClient;
+    private final ConfigurableEnvironment environment;
+    private final TicketAvailabilityTokenBucket ticketAvailabilityTokenBucket;
+
+    private final Map<String, MatchQueue> matchQueueMap = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor ticketWaitlistMatchExecutor = ThreadPoolBuilder.builder()
+            .threadFactory("ticket-waitlist-match-executor")
+            .poolThreadSize(1, 8)
+            .workQueue(new LinkedBlockingQueue<>())
+            .build();
+
+    @Value("${ticket.waitlist.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 单批次最多兑现候补数量
+     */
+    @Value("${ticket.waitlist.match.batch-size:32}")
+    private int batchSize;
+
+    /**
+     * 单次信号最多扫描候补数量，避免长队列在余票已耗尽时被反复全量扫描
+     */
+    @Value("${ticket.waitlist.match.max-scan:512}")
+    private int maxScan;
+
+    private TicketService ticketService;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 座位释放信号，异步兑现对应 列车 + 座位类型 的候补队列
+     *
+     * @param trainId   列车 ID
+     * @param seatTypes 释放的座位类型集合
+     */
+    public void signal(String trainId, Collection<Integer> seatTypes) {
+        if (!enabled) {
+            return;
+        }
+        seatTypes.stream().distinct().forEach(seatType -> {
+            MatchQueue matchQueue = matchQueueMap.computeIfAbsent(trainId + "_" + seatType, key -> new MatchQueue(trainId, seatType));
+            matchQueue.signaled.set(true);
+            if (matchQueue.draining.compareAndSet(false, true)) {
+                ticketWaitlistMatchExecutor.execute(() -> drain(matchQueue));
+            }
+        });
+    }
+
+    private void drain(MatchQueue matchQueue) {
+        while (true) {
+            if (!matchQueue.signaled.getAndSet(false)) {
+                matchQueue.draining.set(false);
+                // 释放消费权后可能有新信号到达且信号线程未抢到消费权，需再次检查
+                if (!matchQueue.signaled.get() || !matchQueue.draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                match(matchQueue.trainId, matchQueue.seatType);
+            } catch (Throwable ex) {
+                log.error("[候补兑现] 列车ID：{}，座位类型：{} 兑现失败", matchQueue.trainId, matchQueue.seatType, ex);
+            }
+        }
+    }
+
+    private void match(String trainId, Integer seatType) {
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        String queueKey = TICKET_WAITLIST_QUEUE + trainId + "_" + seatType;
+        RLock matchLock = redissonClient.getLock(String.format(LOCK_TICKET_WAITLIST_MATCH, trainId, seatType));
+        matchLock.lock();
+        try {
+            // 已扫描但仍在排队的候补数量，即下一页在队列中的起始位置
+            int waitingCount = 0;
+            int scanned = 0;
+            while (scanned < maxScan) {
+                Set<String> waitlistIds = stringRedisTemplate.opsForZSet().range(queueKey, waitingCount, waitingCount + batchSize - 1);
+                if (CollUtil.isEmpty(waitlistIds)) {
+                    return;
+                }
+                scanned += waitlistIds.size();
+                List<String> entryValues = stringRedisTemplate.opsForValue().multiGet(waitlistIds.stream().map(each -> TICKET_WAITLIST_ENTRY + each).toList());
+                List<String> staleIds = new ArrayList<>();
+                List<TicketWaitlistDTO> grantedEntries = new ArrayList<>();
+                int index = 0;
+                for (String each : waitlistIds) {
+                    String entryValue = entryValues == null ? null : entryValues.get(index++);
+                    TicketWaitlistDTO entry = entryValue == null ? null : JSON.parseObject(entryValue, TicketWaitlistDTO.class);
+                    if (entry == null || !Objects.equals(entry.getStatus(), TicketWaitlistStatusEnum.WAITING.getCode())) {
+                        staleIds.add(each);
+                        continue;
+                    }
+                    TokenResultDTO tokenResult = ticketAvailabilityTokenBucket.takeTokenFromBucket(buildPurchaseTicketReqDTO(entry));
+                    if (tokenResult.getTokenIsNull()) {
+                        waitingCount++;
+                        continue;
+                    }
+                    grantedEntries.add(entry);
+                }
+                if (!staleIds.isEmpty()) {
+                    stringRedisTemplate.opsForZSet().remove(queueKey, staleIds.toArray());
+                }
+                if (!grantedEntries.isEmpty()) {
+                    waitingCount += fulfill(stringRedisTemplate, queueKey, trainId, seatType, grantedEntries);
+                }
+            }
+        } finally {
+            matchLock.unlock();
+        }
+    }
+
+    /**
+     * 批量兑现已获取令牌的候补，分配失败的候补回滚令牌后继续排队
+     *
+     * @return 兑现失败继续排队的候补数量
+     */
+    private int fulfill(StringRedisTemplate stringRedisTemplate, String queueKey, String trainId, Integer seatType, List<TicketWaitlistDTO> grantedEntries) {
+        List<PurchaseTicketBatchItemDTO> batchItems = grantedEntries.stream()
+                .map(each -> PurchaseTicketBatchItemDTO.builder()
+                        .requestParam(buildPurchaseTicketReqDTO(each))
+                        .user(UserInfoDTO.builder()
+                                .userId(each.getUserId())
+                                .username(each.getUsername())
+                                .realName(each.getRealName())
+                                .build())
+                        .build())
+                .toList();
+        RLock purchaseLock = redissonClient.getFairLock(environment.resolvePlaceholders(String.format(LOCK_PURCHASE_TICKETS_V2, trainId, seatType)));
+        try {
+            purchaseLock.lock();
+            try {
+                getTicketService().executePurchaseTicketsBatch(batchItems);
+            } finally {
+                purchaseLock.unlock();
+            }
+        } catch (Throwable ex) {
+            log.error("[候补兑现] 列车ID：{}，座位类型：{}，候补数量：{} 批量购票失败", trainId, seatType, grantedEntries.size(), ex);
+            grantedEntries.forEach(this::rollbackToken);
+            return grantedEntries.size();
+        }
+        List<TicketWaitlistDTO> fulfilledEntries = new ArrayList<>(grantedEntries.size());
+        for (int i = 0; i < batchItems.size(); i++) {
+            PurchaseTicketBatchItemDTO batchItem = batchItems.get(i);
+            TicketWaitlistDTO entry = grantedEntries.get(i);
+            if (batchItem.getError() != null) {
+                rollbackToken(entry);
+                continue;
+            }
+            entry.setStatus(TicketWaitlistStatusEnum.FULFILLED.getCode());
+            entry.setOrderSn(batchItem.getResult().getOrderSn());
+            fulfilledEntries.add(entry);
+        }
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                fulfilledEntries.forEach(each -> {
+                    redisOperations.opsForValue().set(TICKET_WAITLIST_ENTRY + each.getWaitlistId(), JSON.toJSONString(each), ADVANCE_TICKET_DAY, TimeUnit.DAYS);
+                    redisOperations.opsForZSet().remove(queueKey, each.getWaitlistId());
+                });
+                return null;
+            }
+        });
+        return grantedEntries.size() - fulfilledEntries.size();
+    }
+
+    private void rollbackToken(TicketWaitlistDTO entry) {
+        TicketOrderDetailRespDTO ticketOrderDetail = new TicketOrderDetailRespDTO();
+        ticketOrderDetail.setTrainId(Long.parseLong(entry.getTrainId()));
+        ticketOrderDetail.setDeparture(entry.getDeparture());
+        ticketOrderDetail.setArrival(entry.getArrival());
+        ticketOrderDetail.setPassengerDetails(entry.getPassengers().stream()
+                .map(each -> {
+                    TicketOrderPassengerDetailRespDTO passengerDetail = new TicketOrderPassengerDetailRespDTO();
+                    passengerDetail.setSeatType(entry.getSeatType());
+                    return passengerDetail;
+                })
+                .toList());
+        try {
+            ticketAvailabilityTokenBucket.rollbackInBucket(ticketOrderDetail);
+        } catch (Throwable ex) {
+            log.error("[候补兑现] 候补单号：{} 回滚令牌失败", entry.getWaitlistId(), ex);
+        }
+    }
+
+    private PurchaseTicketReqDTO buildPurchaseTicketReqDTO(TicketWaitlistDTO entry) {
+        PurchaseTicketReqDTO requestParam = new PurchaseTicketReqDTO();
+        requestParam.setTrainId(entry.getTrainId());
+        requestParam.setDeparture(entry.getDeparture());
+        requestParam.setArrival(entry.getArrival());
+        requestParam.setPassengers(entry.getPassengers().stream()
+                .map(each -> {
+                    PurchaseTicketPassengerDetailDTO passengerDetail = new PurchaseTicketPassengerDetailDTO();
+                    passengerDetail.setPassengerId(each);
+                    passengerDetail.setSeatType(entry.getSeatType());
+                    return passengerDetail;
+                })
+                .toList());
+        return requestParam;
+    }
+
+    private TicketService getTicketService() {
+        if (ticketService == null) {
+            ticketService = ApplicationContextHolder.getBean(TicketService.class);
+        }
+        return ticketService;
+    }
+
+    @Override
+    public void destroy() {
+        ticketWaitlistMatchExecutor.shutdown();
+    }
+
+    @RequiredArgsConstructor
+    private static final class MatchQueue {
+
+        private final String trainId;
+        private final Integer seatType;
+        private final AtomicBoolean signaled = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+    }
+}
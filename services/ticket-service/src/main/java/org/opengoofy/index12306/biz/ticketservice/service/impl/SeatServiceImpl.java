@@ -20,24 +20,34 @@ package org.opengoofy.index12306.biz.ticketservice.service.impl;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.SeatStatusEnum;
 import org.opengoofy.index12306.biz.ticketservice.dao.entity.SeatDO;
 import org.opengoofy.index12306.biz.ticketservice.dao.mapper.SeatMapper;
 import org.opengoofy.index12306.biz.ticketservice.dto.domain.RouteDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.SeatOccupancyPatternDTO;
 import org.opengoofy.index12306.biz.ticketservice.dto.domain.SeatTypeCountDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.SeatService;
 import org.opengoofy.index12306.biz.ticketservice.service.TrainStationService;
+import org.opengoofy.index12306.biz.ticketservice.service.cache.TrainRouteIndex;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.inventory.SeatInventoryManager;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.inventory.TrainSeatInventory;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_STATION_CARRIAGE_REMAINING_TICKET;
@@ -46,6 +56,7 @@ import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKe
  * 座位接口层实现
  * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class SeatServiceImpl extends ServiceImpl<SeatMapper, SeatDO> implements SeatService {
@@ -53,9 +64,14 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, SeatDO> implements
     private final SeatMapper seatMapper;
     private final TrainStationService trainStationService;
     private final DistributedCache distributedCache;
+    private final SeatInventoryManager seatInventoryManager;
 
     @Override
     public List<String> listAvailableSeat(String trainId, String carriageNumber, Integer seatType, String departure, String arrival) {
+        TrainSeatInventory inventory = seatInventoryManager.getInventory(trainId);
+        if (inventory != null) {
+            return inventory.listAvailableSeat(carriageNumber, seatType, inventory.rangeMask(departure, arrival));
+        }
         LambdaQueryWrapper<SeatDO> queryWrapper = Wrappers.lambdaQuery(SeatDO.class)
                 .eq(SeatDO::getTrainId, trainId)
                 .eq(SeatDO::getCarriageNumber, carriageNumber)
@@ -68,8 +84,33 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, SeatDO> implements
         return seatDOList.stream().map(SeatDO::getSeatNumber).collect(Collectors.toList());
     }
 
+    @Override
+    public Map<String, List<String>> listAvailableSeatGroupByCarriage(String trainId, Integer seatType, String departure, String arrival) {
+        TrainSeatInventory inventory = seatInventoryManager.getInventory(trainId);
+        if (inventory != null) {
+            return inventory.listAvailableSeatGroupByCarriage(seatType, inventory.rangeMask(departure, arrival));
+        }
+        LambdaQueryWrapper<SeatDO> queryWrapper = Wrappers.lambdaQuery(SeatDO.class)
+                .eq(SeatDO::getTrainId, trainId)
+                .eq(SeatDO::getSeatType, seatType)
+                .eq(SeatDO::getStartStation, departure)
+                .eq(SeatDO::getEndStation, arrival)
+                .eq(SeatDO::getSeatStatus, SeatStatusEnum.AVAILABLE.getCode())
+                .orderByAsc(SeatDO::getCarriageNumber, SeatDO::getSeatNumber)
+                .select(SeatDO::getCarriageNumber, SeatDO::getSeatNumber);
+        List<SeatDO> seatDOList = seatMapper.selectList(queryWrapper);
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        seatDOList.forEach(each -> result.computeIfAbsent(each.getCarriageNumber(), key -> new ArrayList<>()).add(each.getSeatNumber()));
+        return result;
+    }
+
     @Override
     public List<Integer> listSeatRemainingTicket(String trainId, String departure, String arrival, List<String> trainCarriageList) {
+        TrainSeatInventory inventory = seatInventoryManager.getInventory(trainId);
+        if (inventory != null) {
+            long rangeMask = inventory.rangeMask(departure, arrival);
+            return trainCarriageList.stream().map(each -> inventory.countAvailableSeat(each, rangeMask)).collect(Collectors.toList());
+        }
         String keySuffix = StrUtil.join("_", trainId, departure, arrival);
         if (distributedCache.hasKey(TRAIN_STATION_CARRIAGE_REMAINING_TICKET + keySuffix)) {
             StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
@@ -89,6 +130,10 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, SeatDO> implements
 
     @Override
     public List<String> listUsableCarriageNumber(String trainId, Integer carriageType, String departure, String arrival) {
+        TrainSeatInventory inventory = seatInventoryManager.getInventory(trainId);
+        if (inventory != null) {
+            return inventory.listUsableCarriageNumber(carriageType, inventory.rangeMask(departure, arrival));
+        }
         LambdaQueryWrapper<SeatDO> queryWrapper = Wrappers.lambdaQuery(SeatDO.class)
                 .eq(SeatDO::getTrainId, trainId)
                 .eq(SeatDO::getSeatType, carriageType)
@@ -103,42 +148,120 @@ public class SeatServiceImpl extends ServiceImpl<SeatMapper, SeatDO> implements
 
     @Override
     public List<SeatTypeCountDTO> listSeatTypeCount(Long trainId, String startStation, String endStation, List<Integer> seatTypes) {
+        TrainSeatInventory inventory = seatInventoryManager.getInventory(String.valueOf(trainId));
+        if (inventory != null) {
+            long rangeMask = inventory.rangeMask(startStation, endStation);
+            List<SeatTypeCountDTO> result = new ArrayList<>(seatTypes.size());
+            seatTypes.forEach(each -> {
+                int seatCount = inventory.countAvailableSeatBySeatType(each, rangeMask);
+                if (seatCount > 0) {
+                    result.add(new SeatTypeCountDTO(each, seatCount));
+                }
+            });
+            return result;
+        }
         return seatMapper.listSeatTypeCount(trainId, startStation, endStation, seatTypes);
     }
 
+    @Override
+    public Map<String, Integer> countRouteSeatTypeAvailable(String trainId, List<Integer> seatTypes) {
+        TrainRouteIndex trainRouteIndex = trainStationService.getTrainRouteIndex(trainId);
+        int size = trainRouteIndex.size();
+        Map<String, Integer> result = new HashMap<>(size * size * seatTypes.size());
+        TrainSeatInventory inventory = seatInventoryManager.getInventory(trainId);
+        if (inventory != null || size - 1 > Long.SIZE) {
+            for (int i = 0; i < size; i++) {
+                for (int j = i + 1; j < size; j++) {
+                    RouteDTO route = trainRouteIndex.route(i, j);
+                    Map<Integer, Integer> seatTypeCountMap = listSeatTypeCount(Long.parseLong(trainId), route.getStartStation(), route.getEndStation(), seatTypes).stream()
+                            .collect(Collectors.toMap(SeatTypeCountDTO::getSeatType, SeatTypeCountDTO::getSeatCount));
+                    seatTypes.forEach(each -> result.put(StrUtil.join("_", route.getStartStation(), route.getEndStation(), each), seatTypeCountMap.getOrDefault(each, 0)));
+                }
+            }
+            return result;
+        }
+        // 同一座位类型下已占用区间相同的座位聚合为一个掩码，第 i 位为 1 表示第 i 站到第 i + 1 站已被占用
+        List<SeatOccupancyPatternDTO> patternList = seatMapper.listSeatOccupancyPattern(Long.parseLong(trainId));
+        long[] occupancyMasks = new long[patternList.size()];
+        for (int k = 0; k < patternList.size(); k++) {
+            String occupiedStations = patternList.get(k).getOccupiedStations();
+            if (StrUtil.isNotBlank(occupiedStations)) {
+                for (String each : StrUtil.split(occupiedStations, ',')) {
+                    int ordinal = trainRouteIndex.ordinal(each);
+                    if (ordinal >= 0) {
+                        occupancyMasks[k] |= 1L << ordinal;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                long endMask = j == Long.SIZE ? -1L : (1L << j) - 1;
+                long rangeMask = endMask ^ ((1L << i) - 1);
+                RouteDTO route = trainRouteIndex.route(i, j);
+                for (Integer seatType : seatTypes) {
+                    int seatCount = 0;
+                    for (int k = 0; k < patternList.size(); k++) {
+                        SeatOccupancyPatternDTO pattern = patternList.get(k);
+                        if (Objects.equals(pattern.getSeatType(), seatType) && (occupancyMasks[k] & rangeMask) == 0) {
+                            seatCount += pattern.getSeatCount();
+                        }
+                    }
+                    result.put(StrUtil.join("_", route.getStartStation(), route.getEndStation(), seatType), seatCount);
+                }
+            }
+        }
+        return result;
+    }
+
     @Override
     public void lockSeat(String trainId, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketRespList) {
-//        完成系列的操作之后,对当前座位的票的状态进行锁定
-        List<RouteDTO> routeList = trainStationService.listTakeoutTrainStationRoute(trainId, departure, arrival);
-        trainPurchaseTicketRespList.forEach(each -> routeList.forEach(item -> {
-            LambdaUpdateWrapper<SeatDO> updateWrapper = Wrappers.lambdaUpdate(SeatDO.class)
-                    .eq(SeatDO::getTrainId, trainId)
-                    .eq(SeatDO::getCarriageNumber, each.getCarriageNumber())
-                    .eq(SeatDO::getStartStation, item.getStartStation())
-                    .eq(SeatDO::getEndStation, item.getEndStation())
-                    .eq(SeatDO::getSeatNumber, each.getSeatNumber());
-            SeatDO updateSeatDO = SeatDO.builder()
-                    .seatStatus(SeatStatusEnum.LOCKED.getCode())
-                    .build();
-//            对当前车厢的当前的座位号的座位进行锁定的操作 ,其锁定的状态为修改当前的座位车票的状态的信息
-            seatMapper.update(updateSeatDO, updateWrapper);
-        }));
+        TrainSeatInventory inventory = seatInventoryManager.getInventory(trainId);
+        if (inventory != null) {
+            seatInventoryManager.lockSeat(trainId, inventory, departure, arrival, trainPurchaseTicketRespList,
+                    () -> updateSeatStatus(trainId, departure, arrival, trainPurchaseTicketRespList, SeatStatusEnum.LOCKED));
+            return;
+        }
+        updateSeatStatus(trainId, departure, arrival, trainPurchaseTicketRespList, SeatStatusEnum.LOCKED);
     }
 
     @Override
     public void unlock(String trainId, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketResults) {
+        TrainSeatInventory inventory = seatInventoryManager.getInventory(trainId);
+        if (inventory != null) {
+            seatInventoryManager.unlock(trainId, inventory, departure, arrival, trainPurchaseTicketResults,
+                    () -> updateSeatStatus(trainId, departure, arrival, trainPurchaseTicketResults, SeatStatusEnum.AVAILABLE));
+            return;
+        }
+        updateSeatStatus(trainId, departure, arrival, trainPurchaseTicketResults, SeatStatusEnum.AVAILABLE);
+    }
+
+    @Override
+    public void updateSeatStatusBatch(String trainId, List<TrainPurchaseTicketRespDTO> seatList, List<RouteDTO> routeList, SeatStatusEnum fromStatus, SeatStatusEnum toStatus) {
+        if (CollUtil.isEmpty(seatList) || CollUtil.isEmpty(routeList)) {
+            return;
+        }
+        List<SeatDO> seatDOList = seatList.stream()
+                .map(each -> SeatDO.builder().carriageNumber(each.getCarriageNumber()).seatNumber(each.getSeatNumber()).build())
+                .collect(Collectors.toList());
+        int expectedRows = seatDOList.size() * routeList.size();
+        int matchedRows = seatMapper.updateSeatStatusBatch(Long.parseLong(trainId), seatDOList, routeList,
+                fromStatus == null ? null : fromStatus.getCode(), toStatus.getCode());
+        if (matchedRows != expectedRows) {
+            log.error("批量变更座位状态记录数不一致，列车ID：{}，目标状态：{}，预期：{}，实际：{}", trainId, toStatus, expectedRows, matchedRows);
+            if (fromStatus == SeatStatusEnum.AVAILABLE) {
+                throw new ServiceException("站点余票不足，请尝试更换座位类型或选择其它站点");
+            }
+            throw new ServiceException("座位状态变更失败");
+        }
+    }
+
+    private void updateSeatStatus(String trainId, String departure, String arrival, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketResults, SeatStatusEnum seatStatus) {
+        if (seatStatus == SeatStatusEnum.LOCKED) {
+            // 仅校验购买区间的座位状态，其余途经区间可能因该座位在不重叠区间已售出而处于锁定状态
+            updateSeatStatusBatch(trainId, trainPurchaseTicketResults, List.of(new RouteDTO(departure, arrival)), SeatStatusEnum.AVAILABLE, seatStatus);
+        }
         List<RouteDTO> routeList = trainStationService.listTakeoutTrainStationRoute(trainId, departure, arrival);
-        trainPurchaseTicketResults.forEach(each -> routeList.forEach(item -> {
-            LambdaUpdateWrapper<SeatDO> updateWrapper = Wrappers.lambdaUpdate(SeatDO.class)
-                    .eq(SeatDO::getTrainId, trainId)
-                    .eq(SeatDO::getCarriageNumber, each.getCarriageNumber())
-                    .eq(SeatDO::getStartStation, item.getStartStation())
-                    .eq(SeatDO::getEndStation, item.getEndStation())
-                    .eq(SeatDO::getSeatNumber, each.getSeatNumber());
-            SeatDO updateSeatDO = SeatDO.builder()
-                    .seatStatus(SeatStatusEnum.AVAILABLE.getCode())
-                    .build();
-            seatMapper.update(updateSeatDO, updateWrapper);
-        }));
+        updateSeatStatusBatch(trainId, trainPurchaseTicketResults, routeList, null, seatStatus);
     }
 }
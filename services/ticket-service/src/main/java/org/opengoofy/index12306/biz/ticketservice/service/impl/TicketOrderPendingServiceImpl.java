@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.impl;
+
+import cn.hippo4j.core.executor.support.ThreadPoolBuilder;
+import com.alibaba.fastjson2.JSON;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.TicketOrderPendingStatusEnum;
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.TicketOrderPendingDO;
+import org.opengoofy.index12306.biz.ticketservice.dao.mapper.TicketOrderPendingMapper;
+import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketPurchaseStatusRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.mq.event.TicketOrderCreateEvent;
+import org.opengoofy.index12306.biz.ticketservice.mq.produce.TicketOrderCreateSendProduce;
+import org.opengoofy.index12306.biz.ticketservice.remote.TicketOrderRemoteService;
+import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderCreateRemoteReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderDetailRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.TicketOrderPendingService;
+import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
+import org.opengoofy.index12306.framework.starter.convention.result.Result;
+import org.opengoofy.index12306.framework.starter.distributedid.toolkit.SnowflakeIdUtil;
+import org.opengoofy.index12306.frameworks.starter.user.core.UserContext;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 待创建车票订单接口实现层
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TicketOrderPendingServiceImpl extends ServiceImpl<TicketOrderPendingMapper, TicketOrderPendingDO> implements TicketOrderPendingService, DisposableBean {
+
+    private final TicketOrderCreateSendProduce ticketOrderCreateSendProduce;
+    private final TicketOrderRemoteService ticketOrderRemoteService;
+
+    /**
+     * 消息投递放在购票锁之外执行，队列满时由提交线程投递
+     */
+    private final ThreadPoolExecutor ticketOrderCreateSendExecutor = ThreadPoolBuilder.builder()
+            .threadFactory("ticket-order-create-send-executor")
+            .poolThreadSize(2, 8)
+            .workQueue(new LinkedBlockingQueue<>(4096))
+            .rejected(new ThreadPoolExecutor.CallerRunsPolicy())
+            .build();
+
+    @Value("${ticket.order-create.resend-interval:10000}")
+    private long resendInterval;
+
+    @Override
+    public List<String> createPendingOrders(List<TicketOrderCreateRemoteReqDTO> requestParams) {
+        List<String> orderSnList = new ArrayList<>(requestParams.size());
+        List<TicketOrderPendingDO> ticketOrderPendingDOList = new ArrayList<>(requestParams.size());
+        for (TicketOrderCreateRemoteReqDTO each : requestParams) {
+            String orderSn = generateOrderSn(each.getUserId());
+            each.setOrderSn(orderSn);
+            orderSnList.add(orderSn);
+            ticketOrderPendingDOList.add(TicketOrderPendingDO.builder()
+                    .orderSn(orderSn)
+                    .userId(each.getUserId())
+                    .username(each.getUsername())
+                    .trainId(each.getTrainId())
+                    .orderPayload(JSON.toJSONString(each))
+                    .status(TicketOrderPendingStatusEnum.PENDING.getCode())
+                    .build());
+        }
+        saveBatch(ticketOrderPendingDOList);
+        Runnable sendTask = () -> requestParams.forEach(this::sendOrderCreateEvent);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sendTask.run();
+        } else {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sendTask.run();
+                }
+            });
+        }
+        return orderSnList;
+    }
+
+    @Override
+    public TicketPurchaseStatusRespDTO queryPurchaseStatus(String orderSn) {
+        LambdaQueryWrapper<TicketOrderPendingDO> queryWrapper = Wrappers.lambdaQuery(TicketOrderPendingDO.class)
+                .eq(TicketOrderPendingDO::getOrderSn, orderSn)
+                .eq(TicketOrderPendingDO::getUsername, UserContext.getUsername());
+        TicketOrderPendingDO ticketOrderPendingDO = baseMapper.selectOne(queryWrapper);
+        if (ticketOrderPendingDO == null) {
+            throw new ServiceException("订单不存在");
+        }
+        if (Objects.equals(ticketOrderPendingDO.getStatus(), TicketOrderPendingStatusEnum.CREATED.getCode())) {
+            return new TicketPurchaseStatusRespDTO(orderSn, TicketOrderPendingStatusEnum.CREATED.getCode());
+        }
+        Integer status = resendIfStale(ticketOrderPendingDO);
+        return new TicketPurchaseStatusRespDTO(orderSn, status);
+    }
+
+    @Override
+    public int resendStalePendingOrders(int limit) {
+        Date staleTime = new Date(System.currentTimeMillis() - resendInterval);
+        LambdaQueryWrapper<TicketOrderPendingDO> queryWrapper = Wrappers.lambdaQuery(TicketOrderPendingDO.class)
+                .eq(TicketOrderPendingDO::getStatus, TicketOrderPendingStatusEnum.PENDING.getCode())
+                .lt(TicketOrderPendingDO::getUpdateTime, staleTime)
+                .orderByAsc(TicketOrderPendingDO::getUpdateTime)
+                .last("limit " + limit);
+        List<TicketOrderPendingDO> ticketOrderPendingDOList = baseMapper.selectList(queryWrapper);
+        ticketOrderPendingDOList.forEach(this::resendIfStale);
+        return ticketOrderPendingDOList.size();
+    }
+
+    /**
+     * 订单已创建时更新待创建订单状态，否则距最近一次投递超过重新投递间隔时重新投递创建订单消息
+     *
+     * @return 订单创建状态
+     */
+    private Integer resendIfStale(TicketOrderPendingDO ticketOrderPendingDO) {
+        if (isOrderCreated(ticketOrderPendingDO.getOrderSn())) {
+            update(Wrappers.lambdaUpdate(TicketOrderPendingDO.class)
+                    .set(TicketOrderPendingDO::getStatus, TicketOrderPendingStatusEnum.CREATED.getCode())
+                    .set(TicketOrderPendingDO::getUpdateTime, new Date())
+                    .eq(TicketOrderPendingDO::getId, ticketOrderPendingDO.getId()));
+            return TicketOrderPendingStatusEnum.CREATED.getCode();
+        }
+        // 修改时间记录最近一次投递时间，条件更新保证查询请求与定时任务并发时只有一个重新投递
+        Date lastSendTime = ticketOrderPendingDO.getUpdateTime();
+        if (lastSendTime != null && System.currentTimeMillis() - lastSendTime.getTime() > resendInterval) {
+            boolean updated = update(Wrappers.lambdaUpdate(TicketOrderPendingDO.class)
+                    .set(TicketOrderPendingDO::getUpdateTime, new Date())
+                    .eq(TicketOrderPendingDO::getId, ticketOrderPendingDO.getId())
+                    .eq(TicketOrderPendingDO::getUpdateTime, lastSendTime));
+            if (updated) {
+                sendOrderCreateEvent(JSON.parseObject(ticketOrderPendingDO.getOrderPayload(), TicketOrderCreateRemoteReqDTO.class));
+            }
+        }
+        return TicketOrderPendingStatusEnum.PENDING.getCode();
+    }
+
+    private boolean isOrderCreated(String orderSn) {
+        try {
+            Result<TicketOrderDetailRespDTO> ticketOrderResult = ticketOrderRemoteService.queryTicketOrderByOrderSn(orderSn);
+            return ticketOrderResult.isSuccess() && ticketOrderResult.getData() != null;
+        } catch (Throwable ex) {
+            log.error("远程调用订单服务查询订单错误，订单号：{}", orderSn, ex);
+            return false;
+        }
+    }
+
+    private void sendOrderCreateEvent(TicketOrderCreateRemoteReqDTO requestParam) {
+        ticketOrderCreateSendExecutor.execute(() -> {
+            try {
+                SendResult sendResult = ticketOrderCreateSendProduce.sendMessage(new TicketOrderCreateEvent(requestParam));
+                if (!Objects.equals(sendResult.getSendStatus(), SendStatus.SEND_OK)) {
+                    log.error("异步创建订单消息投递状态异常，订单号：{}，投递状态：{}", requestParam.getOrderSn(), sendResult.getSendStatus());
+                }
+            } catch (Throwable ex) {
+                log.error("异步创建订单消息投递失败，等待查询订单状态时重新投递，订单号：{}", requestParam.getOrderSn(), ex);
+            }
+        });
+    }
+
+    /**
+     * 与订单服务保持一致，通过基因法将用户 ID 后六位融入订单号，保证按订单号查询时路由到用户所在分片
+     */
+    private String generateOrderSn(String userId) {
+        return SnowflakeIdUtil.nextIdStr() + String.format("%06d", Long.parseLong(userId) % 1000000);
+    }
+
+    @Override
+    public void destroy() {
+        ticketOrderCreateSendExecutor.shutdown();
+    }
+}
@@ -19,7 +19,6 @@ package org.opengoofy.index12306.biz.ticketservice.service.impl;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.CollectionUtil;
-import cn.hutool.core.map.MapUtil;
 import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson2.JSON;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
@@ -30,6 +29,7 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.Lists;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.PurchaseTicketStageEnum;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.RefundTypeEnum;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.SourceEnum;
 import org.opengoofy.index12306.biz.ticketservice.common.enums.TicketChainMarkEnum;
@@ -68,17 +68,25 @@ import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderCreateRe
 import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderItemCreateRemoteReqDTO;
 import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderPassengerDetailRespDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.SeatService;
+import org.opengoofy.index12306.biz.ticketservice.service.TicketOrderPendingService;
 import org.opengoofy.index12306.biz.ticketservice.service.TicketService;
 import org.opengoofy.index12306.biz.ticketservice.service.TrainStationService;
+import org.opengoofy.index12306.biz.ticketservice.service.cache.RegionTrainStationIndex;
 import org.opengoofy.index12306.biz.ticketservice.service.cache.SeatMarginCacheLoader;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.batch.PurchaseTicketBatchDispatcher;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.PurchaseTicketBatchItemDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TokenResultDTO;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.metrics.PurchaseTicketStageMetrics;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select.CarriageSeatSnapshot;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select.TrainSeatTypeSelector;
 import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket.TicketAvailabilityTokenBucket;
-import org.opengoofy.index12306.biz.ticketservice.toolkit.DateUtil;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.tokenbucket.TicketSoldOutRegistry;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.waitlist.TicketWaitlistMatcher;
 import org.opengoofy.index12306.biz.ticketservice.toolkit.TimeStringComparator;
 import org.opengoofy.index12306.framework.starter.bases.ApplicationContextHolder;
 import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.cache.codec.CacheValueCodecSelector;
 import org.opengoofy.index12306.framework.starter.cache.toolkit.CacheUtil;
 import org.opengoofy.index12306.framework.starter.common.toolkit.BeanUtil;
 import org.opengoofy.index12306.framework.starter.convention.exception.ServiceException;
@@ -91,12 +99,18 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.connection.RedisStringCommands;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -115,7 +129,6 @@ import java.util.stream.Collectors;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.Index12306Constant.ADVANCE_TICKET_DAY;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_PURCHASE_TICKETS;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_PURCHASE_TICKETS_V2;
-import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_REGION_TRAIN_STATION;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_REGION_TRAIN_STATION_MAPPING;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_TOKEN_BUCKET_ISNULL;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.REGION_TRAIN_STATION;
@@ -123,7 +136,6 @@ import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKe
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_INFO;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_STATION_PRICE;
 import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TRAIN_STATION_REMAINING_TICKET;
-import static org.opengoofy.index12306.biz.ticketservice.toolkit.DateUtil.convertDateToLocalTime;
 
 /**
  * 车票接口实现
@@ -138,6 +150,7 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
     private final TrainStationRelationMapper trainStationRelationMapper;
     private final TrainStationPriceMapper trainStationPriceMapper;
     private final DistributedCache distributedCache;
+    private final CacheValueCodecSelector cacheValueCodecSelector;
 //    车票订单的远程服务
     private final TicketOrderRemoteService ticketOrderRemoteService;
 //    支付订单的远程服务
@@ -147,18 +160,26 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
     private final TrainStationService trainStationService;
     private final TrainSeatTypeSelector trainSeatTypeSelector;
     private final SeatMarginCacheLoader seatMarginCacheLoader;
+    private final RegionTrainStationIndex regionTrainStationIndex;
     private final AbstractChainContext<TicketPageQueryReqDTO> ticketPageQueryAbstractChainContext;
     private final AbstractChainContext<PurchaseTicketReqDTO> purchaseTicketAbstractChainContext;
     private final AbstractChainContext<RefundTicketReqDTO> refundReqDTOAbstractChainContext;
     private final RedissonClient redissonClient;
     private final ConfigurableEnvironment environment;
     private final TicketAvailabilityTokenBucket ticketAvailabilityTokenBucket;
+    private final TicketSoldOutRegistry ticketSoldOutRegistry;
+    private final PurchaseTicketBatchDispatcher purchaseTicketBatchDispatcher;
+    private final TicketOrderPendingService ticketOrderPendingService;
+    private final TicketWaitlistMatcher ticketWaitlistMatcher;
+    private final PurchaseTicketStageMetrics purchaseTicketStageMetrics;
     private TicketService ticketService;
 
     @Value("${ticket.availability.cache-update.type:}")
     private String ticketAvailabilityCacheUpdateType;
     @Value("${framework.cache.redis.prefix:}")
     private String cacheRedisPrefix;
+    @Value("${ticket.order-create.type:}")
+    private String ticketOrderCreateType;
 
     @Override
     public TicketPageQueryRespDTO pageListTicketQueryV1(TicketPageQueryReqDTO requestParam) {
@@ -167,95 +188,8 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
         StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
         // 列车查询逻辑较为复杂，详细解析文章查看 https://nageoffer.com/12306/question
         // v1 版本存在严重的性能深渊问题，v2 版本完美的解决了该问题。通过 Jmeter 压测聚合报告得知，性能提升在 300% - 500%+
-        List<Object> stationDetails = stringRedisTemplate.opsForHash()
-                .multiGet(REGION_TRAIN_STATION_MAPPING, Lists.newArrayList(requestParam.getFromStation(), requestParam.getToStation()));
-//        获取城市和站点的映射的关系，根据起始的站点信息拿到对应的具体城市的信息
-        long count = stationDetails.stream().filter(Objects::isNull).count();
-//        同样判断缓存中是否存在，如果当前缓存中不存在则取查询数据库
-        if (count > 0) {
-//            拿到对应的锁
-            RLock lock = redissonClient.getLock(LOCK_REGION_TRAIN_STATION_MAPPING);
-            lock.lock();
-            try {
-                stationDetails = stringRedisTemplate.opsForHash()
-                        .multiGet(REGION_TRAIN_STATION_MAPPING, Lists.newArrayList(requestParam.getFromStation(), requestParam.getToStation()));
-                count = stationDetails.stream().filter(Objects::isNull).count();
-                if (count > 0) {
-                    List<StationDO> stationDOList = stationMapper.selectList(Wrappers.emptyWrapper());
-                    Map<String, String> regionTrainStationMap = new HashMap<>();
-                    stationDOList.forEach(each -> regionTrainStationMap.put(each.getCode(), each.getRegionName()));
-                    stringRedisTemplate.opsForHash().putAll(REGION_TRAIN_STATION_MAPPING, regionTrainStationMap);
-                    stationDetails = new ArrayList<>();
-                    stationDetails.add(regionTrainStationMap.get(requestParam.getFromStation()));
-                    stationDetails.add(regionTrainStationMap.get(requestParam.getToStation()));
-                }
-            } finally {
-                lock.unlock();
-            }
-        }
-
-//       当传入的是起始站点和终止站点的信息的时候，通过映射表的信息拿到对应起始城市和终止城市的信息， 列车的详细情况的查询
-        List<TicketListDTO> seatResults = new ArrayList<>();
-//        座位的列表定义一个
-        String buildRegionTrainStationHashKey = String.format(REGION_TRAIN_STATION, stationDetails.get(0), stationDetails.get(1));
-//       定义一个新的键值对，即也就是初始城市和终止终止的哈希表
-        Map<Object, Object> regionTrainStationAllMap = stringRedisTemplate.opsForHash().entries(buildRegionTrainStationHashKey);
-        if (MapUtil.isEmpty(regionTrainStationAllMap)) {
-//            如果此时这个哈希表为空
-            RLock lock = redissonClient.getLock(LOCK_REGION_TRAIN_STATION);
-            lock.lock();
-            try {
-                regionTrainStationAllMap = stringRedisTemplate.opsForHash().entries(buildRegionTrainStationHashKey);
-                if (MapUtil.isEmpty(regionTrainStationAllMap)) {
-                    LambdaQueryWrapper<TrainStationRelationDO> queryWrapper = Wrappers.lambdaQuery(TrainStationRelationDO.class)
-                            .eq(TrainStationRelationDO::getStartRegion, stationDetails.get(0))
-                            .eq(TrainStationRelationDO::getEndRegion, stationDetails.get(1));
-//                    查询和我们的起始和终止站点相关的所有的车的信息（根据起始和终止的城市去匹配和查询检索）
-//                    查询的是列车站点关系表(进而我们检索出来所有的和当前的起始和终止站点相关v的所有的列车信息)
-                    List<TrainStationRelationDO> trainStationRelationList = trainStationRelationMapper.selectList(queryWrapper);
-//                   数据库中查询到对应的起始和终止城市之间的所有的车次的信息。
-                    for (TrainStationRelationDO each : trainStationRelationList) {
-                        TrainDO trainDO = distributedCache.safeGet(
-                                TRAIN_INFO + each.getTrainId(),
-                                TrainDO.class,
-                                () -> trainMapper.selectById(each.getTrainId()),
-                                ADVANCE_TICKET_DAY,
-                                TimeUnit.DAYS);
-//                        从缓存中获取列车的信息，先从缓冲中进行查询看是否存在，如果不存在进行获取分布式锁从数据库中获取，并且设置过期时间
-                        TicketListDTO result = new TicketListDTO();
-                        result.setTrainId(String.valueOf(trainDO.getId()));
-                        result.setTrainNumber(trainDO.getTrainNumber());
-                        result.setDepartureTime(convertDateToLocalTime(each.getDepartureTime(), "HH:mm"));
-                        result.setArrivalTime(convertDateToLocalTime(each.getArrivalTime(), "HH:mm"));
-                        result.setDuration(DateUtil.calculateHourDifference(each.getDepartureTime(), each.getArrivalTime()));
-                        result.setDeparture(each.getDeparture());
-                        result.setArrival(each.getArrival());
-                        result.setDepartureFlag(each.getDepartureFlag());
-                        result.setArrivalFlag(each.getArrivalFlag());
-                        result.setTrainType(trainDO.getTrainType());
-                        result.setTrainBrand(trainDO.getTrainBrand());
-                        if (StrUtil.isNotBlank(trainDO.getTrainTag())) {
-                            result.setTrainTags(StrUtil.split(trainDO.getTrainTag(), ","));
-                        }
-                        long betweenDay = cn.hutool.core.date.DateUtil.betweenDay(each.getDepartureTime(), each.getArrivalTime(), false);
-                        result.setDaysArrived((int) betweenDay);
-                        result.setSaleStatus(new Date().after(trainDO.getSaleTime()) ? 0 : 1);
-                        result.setSaleTime(convertDateToLocalTime(trainDO.getSaleTime(), "MM-dd HH:mm"));
-                        seatResults.add(result);
-                        regionTrainStationAllMap.put(CacheUtil.buildKey(String.valueOf(each.getTrainId()), each.getDeparture(), each.getArrival()), JSON.toJSONString(result));
-                    }
-                    stringRedisTemplate.opsForHash().putAll(buildRegionTrainStationHashKey, regionTrainStationAllMap);
-                }
-            } finally {
-                lock.unlock();
-            }
-        }
-//        此时得到所有的 从 北京到杭州的所有的车次的信息是一个列表，然后每一个实体属于一个列车的信息
-        seatResults = CollUtil.isEmpty(seatResults)
-                ? regionTrainStationAllMap.values().stream().map(each -> JSON.parseObject(each.toString(), TicketListDTO.class)).toList()
-                : seatResults;
-//      根据时间进行排序的操作
-        seatResults = seatResults.stream().sorted(new TimeStringComparator()).toList();
+        List<Object> stationDetails = getStationRegionDetails(stringRedisTemplate, requestParam);
+        List<TicketListDTO> seatResults = regionTrainStationIndex.listRegionTrainStation(stationDetails.get(0).toString(), stationDetails.get(1).toString());
 
 //        获得所有的起始站点和终止站点相同的车次列表吧之后
 //        遍历每一个车次的集合进行查询
@@ -297,7 +231,7 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
 //                          这里返回的就是我们的当前的车此次的车票的类型的信息；
                         });
 //                根据车次+起始站点+种植站点+车票类型确定每个车次的不同价格档次的票的数量
-                seatClassList.add(new SeatClassDTO(item.getSeatType(), quantity, new BigDecimal(item.getPrice()).divide(new BigDecimal("100"), 1, RoundingMode.HALF_UP), false));
+                seatClassList.add(new SeatClassDTO(item.getSeatType(), quantity, new BigDecimal(item.getPrice()).divide(new BigDecimal("100"), 1, RoundingMode.HALF_UP), isWaitlistCandidate(quantity)));
             });
             each.setSeatClassList(seatClassList);
         }
@@ -312,6 +246,39 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
                 .build();
     }
 
+    /**
+     * 获取出发站点和到达站点所属城市，缓存不存在时加锁从数据库加载
+     */
+    private List<Object> getStationRegionDetails(StringRedisTemplate stringRedisTemplate, TicketPageQueryReqDTO requestParam) {
+        List<Object> stationDetails = stringRedisTemplate.opsForHash()
+                .multiGet(REGION_TRAIN_STATION_MAPPING, Lists.newArrayList(requestParam.getFromStation(), requestParam.getToStation()));
+//        获取城市和站点的映射的关系，根据起始的站点信息拿到对应的具体城市的信息
+        long count = stationDetails.stream().filter(Objects::isNull).count();
+//        同样判断缓存中是否存在，如果当前缓存中不存在则取查询数据库
+        if (count > 0) {
+//            拿到对应的锁
+            RLock lock = redissonClient.getLock(LOCK_REGION_TRAIN_STATION_MAPPING);
+            lock.lock();
+            try {
+                stationDetails = stringRedisTemplate.opsForHash()
+                        .multiGet(REGION_TRAIN_STATION_MAPPING, Lists.newArrayList(requestParam.getFromStation(), requestParam.getToStation()));
+                count = stationDetails.stream().filter(Objects::isNull).count();
+                if (count > 0) {
+                    List<StationDO> stationDOList = stationMapper.selectList(Wrappers.emptyWrapper());
+                    Map<String, String> regionTrainStationMap = new HashMap<>();
+                    stationDOList.forEach(each -> regionTrainStationMap.put(each.getCode(), each.getRegionName()));
+                    stringRedisTemplate.opsForHash().putAll(REGION_TRAIN_STATION_MAPPING, regionTrainStationMap);
+                    stationDetails = new ArrayList<>();
+                    stationDetails.add(regionTrainStationMap.get(requestParam.getFromStation()));
+                    stationDetails.add(regionTrainStationMap.get(requestParam.getToStation()));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return stationDetails;
+    }
+
     @Override
     public TicketPageQueryRespDTO pageListTicketQueryV2(TicketPageQueryReqDTO requestParam) {
         // 责任链模式 验证城市名称是否存在、不存在加载缓存以及出发日期不能小于当前日期等等
@@ -364,7 +331,7 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
                         .type(trainStationPriceDO.getSeatType())
                         .quantity(Integer.parseInt(remainingTicket.get(i).toString()))
                         .price(new BigDecimal(trainStationPriceDO.getPrice()).divide(new BigDecimal("100"), 1, RoundingMode.HALF_UP))
-                        .candidate(false)
+                        .candidate(isWaitlistCandidate(Integer.parseInt(remainingTicket.get(i).toString())))
                         .build();
                 seatClassList.add(seatClassDTO);
             }
@@ -379,15 +346,122 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
                 .build();
     }
 
+    @Override
+    public TicketPageQueryRespDTO pageListTicketQueryV3(TicketPageQueryReqDTO requestParam) {
+        // 责任链模式 验证城市名称是否存在、不存在加载缓存以及出发日期不能小于当前日期等等
+        ticketPageQueryAbstractChainContext.handler(TicketChainMarkEnum.TRAIN_QUERY_FILTER.name(), requestParam);
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        // v3 版本在 v1 版本语义上批量化：站点城市、当日城市间车次索引、全部车次价格及余票共三次 Redis 网络往返
+        // 缓存缺失的价格以及余票分别只访问一次数据库，不再按车次逐个加载
+        List<Object> stationDetails = getStationRegionDetails(stringRedisTemplate, requestParam);
+        List<TicketListDTO> seatResults = regionTrainStationIndex.rangeRegionTrainStation(stationDetails.get(0).toString(), stationDetails.get(1).toString(),
+                requestParam.getDepartureDate(), requestParam.getDepartureTimeStart(), requestParam.getDepartureTimeEnd());
+        List<String> keySuffixList = seatResults.stream()
+                .map(each -> CacheUtil.buildKey(each.getTrainId(), each.getDeparture(), each.getArrival()))
+                .toList();
+        List<List<Object>> seatTypeFieldsList = seatResults.stream()
+                .map(each -> VehicleTypeEnum.findSeatTypesByCode(each.getTrainType()).stream().map(item -> (Object) String.valueOf(item)).toList())
+                .toList();
+        // 价格缓存值可能按 Key 前缀配置为二进制编码，按原始字节读取后统一由缓存值编码选择器解码
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) stringRedisTemplate.getKeySerializer();
+        List<Object> pipelinedResults = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < seatResults.size(); i++) {
+                TicketListDTO each = seatResults.get(i);
+                connection.stringCommands().get(keySerializer.serialize(String.format(TRAIN_STATION_PRICE, each.getTrainId(), each.getDeparture(), each.getArrival())));
+                connection.hashCommands().hMGet(keySerializer.serialize(TRAIN_STATION_REMAINING_TICKET + keySuffixList.get(i)),
+                        seatTypeFieldsList.get(i).stream().map(item -> item.toString().getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new));
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+        Map<String, List<TrainStationPriceDO>> trainStationPriceMap = new HashMap<>();
+        Map<String, Map<String, String>> trainStationRemainingTicketMap = new HashMap<>();
+        List<TicketListDTO> priceMissList = new ArrayList<>();
+        List<TicketListDTO> remainingTicketMissList = new ArrayList<>();
+        for (int i = 0; i < seatResults.size(); i++) {
+            TicketListDTO each = seatResults.get(i);
+            String trainStationPriceObj = cacheValueCodecSelector.decode((byte[]) pipelinedResults.get(i << 1), String.class);
+            if (CacheUtil.isNullOrBlank(trainStationPriceObj)) {
+                priceMissList.add(each);
+            } else {
+                trainStationPriceMap.put(keySuffixList.get(i), JSON.parseArray(trainStationPriceObj, TrainStationPriceDO.class));
+            }
+            List<?> remainingTicketObjs = (List<?>) pipelinedResults.get((i << 1) + 1);
+            if (remainingTicketObjs == null || remainingTicketObjs.stream().anyMatch(Objects::isNull)) {
+                remainingTicketMissList.add(each);
+                continue;
+            }
+            Map<String, String> trainStationRemainingTicket = new HashMap<>();
+            List<Object> seatTypeFields = seatTypeFieldsList.get(i);
+            for (int j = 0; j < seatTypeFields.size(); j++) {
+                trainStationRemainingTicket.put(seatTypeFields.get(j).toString(), new String((byte[]) remainingTicketObjs.get(j), StandardCharsets.UTF_8));
+            }
+            trainStationRemainingTicketMap.put(keySuffixList.get(i), trainStationRemainingTicket);
+        }
+        trainStationPriceMap.putAll(loadTrainStationPriceBatch(stringRedisTemplate, priceMissList));
+        trainStationRemainingTicketMap.putAll(seatMarginCacheLoader.loadBatch(remainingTicketMissList));
+        for (int i = 0; i < seatResults.size(); i++) {
+            Map<String, String> trainStationRemainingTicket = trainStationRemainingTicketMap.getOrDefault(keySuffixList.get(i), Map.of());
+            List<SeatClassDTO> seatClassList = new ArrayList<>();
+            trainStationPriceMap.getOrDefault(keySuffixList.get(i), List.of()).forEach(item -> {
+                int quantity = Optional.ofNullable(trainStationRemainingTicket.get(String.valueOf(item.getSeatType())))
+                        .map(Integer::parseInt)
+                        .orElse(0);
+                seatClassList.add(new SeatClassDTO(item.getSeatType(), quantity, new BigDecimal(item.getPrice()).divide(new BigDecimal("100"), 1, RoundingMode.HALF_UP), isWaitlistCandidate(quantity)));
+            });
+            seatResults.get(i).setSeatClassList(seatClassList);
+        }
+        return TicketPageQueryRespDTO.builder()
+                .trainList(seatResults)
+                .departureStationList(buildDepartureStationList(seatResults))
+                .arrivalStationList(buildArrivalStationList(seatResults))
+                .trainBrandList(buildTrainBrandList(seatResults))
+                .seatClassTypeList(buildSeatClassList(seatResults))
+                .build();
+    }
+
+    /**
+     * 批量加载缓存缺失的列车站点价格，一次查询数据库并通过管道回写缓存
+     */
+    private Map<String, List<TrainStationPriceDO>> loadTrainStationPriceBatch(StringRedisTemplate stringRedisTemplate, List<TicketListDTO> trainList) {
+        Map<String, List<TrainStationPriceDO>> trainStationPriceMap = new HashMap<>();
+        if (CollUtil.isEmpty(trainList)) {
+            return trainStationPriceMap;
+        }
+        trainList.forEach(each -> trainStationPriceMap.put(CacheUtil.buildKey(each.getTrainId(), each.getDeparture(), each.getArrival()), new ArrayList<>()));
+        LambdaQueryWrapper<TrainStationPriceDO> queryWrapper = Wrappers.lambdaQuery(TrainStationPriceDO.class)
+                .and(wrapper -> trainList.forEach(each -> wrapper.or(item -> item
+                        .eq(TrainStationPriceDO::getTrainId, each.getTrainId())
+                        .eq(TrainStationPriceDO::getDeparture, each.getDeparture())
+                        .eq(TrainStationPriceDO::getArrival, each.getArrival()))));
+        trainStationPriceMapper.selectList(queryWrapper).forEach(each -> Optional
+                .ofNullable(trainStationPriceMap.get(CacheUtil.buildKey(String.valueOf(each.getTrainId()), each.getDeparture(), each.getArrival())))
+                .ifPresent(item -> item.add(each)));
+        // 与 DistributedCache 写入格式保持一致，按 Key 前缀选择缓存值编码
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) stringRedisTemplate.getKeySerializer();
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            trainList.forEach(each -> {
+                String key = String.format(TRAIN_STATION_PRICE, each.getTrainId(), each.getDeparture(), each.getArrival());
+                connection.stringCommands().set(
+                        keySerializer.serialize(key),
+                        cacheValueCodecSelector.encode(key, trainStationPriceMap.get(CacheUtil.buildKey(each.getTrainId(), each.getDeparture(), each.getArrival()))),
+                        Expiration.from(ADVANCE_TICKET_DAY, TimeUnit.DAYS),
+                        RedisStringCommands.SetOption.upsert());
+            });
+            return null;
+        });
+        return trainStationPriceMap;
+    }
+
     @Override
     public TicketPurchaseRespDTO purchaseTicketsV1(PurchaseTicketReqDTO requestParam) {
         // 责任链模式，验证 1：参数必填 2：参数正确性 3：乘客是否已买当前车次等...
-        purchaseTicketAbstractChainContext.handler(TicketChainMarkEnum.TRAIN_PURCHASE_TICKET_FILTER.name(), requestParam);
+        PurchaseTicketStageMetrics.StageTags stageTags = purchaseTicketStageMetrics.recordChainFilter(requestParam,
+                () -> purchaseTicketAbstractChainContext.handler(TicketChainMarkEnum.TRAIN_PURCHASE_TICKET_FILTER.name(), requestParam));
         // v1 版本购票存在 4 个较为严重的问题，v2 版本相比较 v1 版本更具有业务特点以及性能，整体提升较大
         // 写了详细的 v2 版本购票升级指南，详情查看：https://nageoffer.com/12306/question
         String lockKey = environment.resolvePlaceholders(String.format(LOCK_PURCHASE_TICKETS, requestParam.getTrainId()));
         RLock lock = redissonClient.getLock(lockKey);
-        lock.lock();
+        purchaseTicketStageMetrics.record(PurchaseTicketStageEnum.DISTRIBUTED_LOCK_WAIT, stageTags, () -> lock.lock());
         try {
             return ticketService.executePurchaseTickets(requestParam);
         } finally {
@@ -409,10 +483,13 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
 //        列车的ID  乘车人  选择的坐席的类型 出发和终止的车站 最后到达的车站
         // 责任链模式，验证 1：参数必填 2：参数正确性 3：乘客是否已买当前车次等...
 //      通过责任链的方式实现对我们的当前的下单的请求的一个条件的过滤
-        purchaseTicketAbstractChainContext.handler(TicketChainMarkEnum.TRAIN_PURCHASE_TICKET_FILTER.name(), requestParam);
+        PurchaseTicketStageMetrics.StageTags stageTags = purchaseTicketStageMetrics.recordChainFilter(requestParam,
+                () -> purchaseTicketAbstractChainContext.handler(TicketChainMarkEnum.TRAIN_PURCHASE_TICKET_FILTER.name(), requestParam));
         // 为什么需要令牌限流？余票缓存限流不可以么？详情查看：https://nageoffer.com/12306/question
-        TokenResultDTO tokenResult = ticketAvailabilityTokenBucket.takeTokenFromBucket(requestParam);
+        TokenResultDTO tokenResult = purchaseTicketStageMetrics.record(PurchaseTicketStageEnum.TOKEN_BUCKET, stageTags,
+                () -> ticketAvailabilityTokenBucket.takeTokenFromBucket(requestParam));
         if (tokenResult.getTokenIsNull()) {
+            ticketSoldOutRegistry.markSoldOut(requestParam, tokenResult);
             Object ifPresentObj = tokenTicketsRefreshMap.getIfPresent(requestParam.getTrainId());
             if (ifPresentObj == null) {
                 synchronized (TicketService.class) {
@@ -436,6 +513,10 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
         List<RLock> distributedLockList = new ArrayList<>();
         Map<Integer, List<PurchaseTicketPassengerDetailDTO>> seatTypeMap = requestParam.getPassengers().stream()
                 .collect(Collectors.groupingBy(PurchaseTicketPassengerDetailDTO::getSeatType));
+        // 单一座位类型的请求合并至同列车同座位类型批次，一次加锁、一次事务完成多笔购票
+        if (purchaseTicketBatchDispatcher.isEnabled() && seatTypeMap.size() == 1) {
+            return purchaseTicketBatchDispatcher.purchaseTickets(requestParam);
+        }
         seatTypeMap.forEach((searType, count) -> {
 //           对当前的列车的座位的类型的进行上锁，细化锁的粒度
             String lockKey = environment.resolvePlaceholders(String.format(LOCK_PURCHASE_TICKETS_V2, requestParam.getTrainId(), searType));
@@ -456,9 +537,9 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
         try {
 //         当我们需要同时下单多张票的时候，比如不同i类型的多张票的时候，我们需要分别对每一个类型的票进行加锁的操作
 //            这里先让其进行本地锁的轮询获取，只有拿到当前的下单的票的所有的锁，才能完成对当前的订票的部分的功能
-            localLockList.forEach(ReentrantLock::lock);
+            purchaseTicketStageMetrics.record(PurchaseTicketStageEnum.LOCAL_LOCK_WAIT, stageTags, () -> localLockList.forEach(ReentrantLock::lock));
 //            先拿到对应的本地锁，然后在让其去获取对饮的分布式锁的
-            distributedLockList.forEach(RLock::lock);
+            purchaseTicketStageMetrics.record(PurchaseTicketStageEnum.DISTRIBUTED_LOCK_WAIT, stageTags, () -> distributedLockList.forEach(RLock::lock));
 
             return ticketService.executePurchaseTickets(requestParam);
         } finally {
@@ -491,67 +572,22 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
                 TimeUnit.DAYS);
 //        拿到当前的列车的实体去进行选座位,确定当前的座位被锁定
         List<TrainPurchaseTicketRespDTO> trainPurchaseTicketResults = trainSeatTypeSelector.select(trainDO.getTrainType(), requestParam);
-//
-        List<TicketDO> ticketDOList = trainPurchaseTicketResults.stream()
-                .map(each -> TicketDO.builder()
-                        .username(UserContext.getUsername())
-                        .trainId(Long.parseLong(requestParam.getTrainId()))
-                        .carriageNumber(each.getCarriageNumber())
-                        .seatNumber(each.getSeatNumber())
-                        .passengerId(each.getPassengerId())
-                        .ticketStatus(TicketStatusEnum.UNPAID.getCode())
-                        .build())
-                .toList();
 //        更新车票表,此时车票表中的车票的状态为未支付
-        saveBatch(ticketDOList);
+        PurchaseTicketStageMetrics.StageTags stageTags = purchaseTicketStageMetrics.tags(trainDO.getTrainType(), requestParam.getPassengers());
+        purchaseTicketStageMetrics.record(PurchaseTicketStageEnum.TICKET_SAVE, stageTags,
+                () -> saveBatch(buildTicketDOList(UserContext.getUsername(), trainId, trainPurchaseTicketResults)));
+        TicketOrderCreateRemoteReqDTO orderCreateRemoteReqDTO = buildTicketOrderCreateRemoteReqDTO(requestParam, trainDO,
+                getTrainStationRelation(trainId, requestParam.getDeparture(), requestParam.getArrival()),
+                UserContext.getUserId(), UserContext.getUsername(), trainPurchaseTicketResults, ticketOrderDetailResults);
+        // 异步创建订单模式下仅保存待创建订单，订单服务调用不再计入购票锁持有时间
+        if (isAsyncOrderCreate()) {
+            String orderSn = ticketOrderPendingService.createPendingOrders(List.of(orderCreateRemoteReqDTO)).get(0);
+            return new TicketPurchaseRespDTO(orderSn, ticketOrderDetailResults);
+        }
         Result<String> ticketOrderResult;
         try {
-            List<TicketOrderItemCreateRemoteReqDTO> orderItemCreateRemoteReqDTOList = new ArrayList<>();
-            trainPurchaseTicketResults.forEach(each -> {
-                TicketOrderItemCreateRemoteReqDTO orderItemCreateRemoteReqDTO = TicketOrderItemCreateRemoteReqDTO.builder()
-                        .amount(each.getAmount())
-                        .carriageNumber(each.getCarriageNumber())
-                        .seatNumber(each.getSeatNumber())
-                        .idCard(each.getIdCard())
-                        .idType(each.getIdType())
-                        .phone(each.getPhone())
-                        .seatType(each.getSeatType())
-                        .ticketType(each.getUserType())
-                        .realName(each.getRealName())
-                        .build();
-                TicketOrderDetailRespDTO ticketOrderDetailRespDTO = TicketOrderDetailRespDTO.builder()
-                        .amount(each.getAmount())
-                        .carriageNumber(each.getCarriageNumber())
-                        .seatNumber(each.getSeatNumber())
-                        .idCard(each.getIdCard())
-                        .idType(each.getIdType())
-                        .seatType(each.getSeatType())
-                        .ticketType(each.getUserType())
-                        .realName(each.getRealName())
-                        .build();
-                orderItemCreateRemoteReqDTOList.add(orderItemCreateRemoteReqDTO);
-                ticketOrderDetailResults.add(ticketOrderDetailRespDTO);
-            });
-            LambdaQueryWrapper<TrainStationRelationDO> queryWrapper = Wrappers.lambdaQuery(TrainStationRelationDO.class)
-                    .eq(TrainStationRelationDO::getTrainId, trainId)
-                    .eq(TrainStationRelationDO::getDeparture, requestParam.getDeparture())
-                    .eq(TrainStationRelationDO::getArrival, requestParam.getArrival());
-            TrainStationRelationDO trainStationRelationDO = trainStationRelationMapper.selectOne(queryWrapper);
-            TicketOrderCreateRemoteReqDTO orderCreateRemoteReqDTO = TicketOrderCreateRemoteReqDTO.builder()
-                    .departure(requestParam.getDeparture())
-                    .arrival(requestParam.getArrival())
-                    .orderTime(new Date())
-                    .source(SourceEnum.INTERNET.getCode())
-                    .trainNumber(trainDO.getTrainNumber())
-                    .departureTime(trainStationRelationDO.getDepartureTime())
-                    .arrivalTime(trainStationRelationDO.getArrivalTime())
-                    .ridingDate(trainStationRelationDO.getDepartureTime())
-                    .userId(UserContext.getUserId())
-                    .username(UserContext.getUsername())
-                    .trainId(Long.parseLong(requestParam.getTrainId()))
-                    .ticketOrderItems(orderItemCreateRemoteReqDTOList)
-                    .build();
-            ticketOrderResult = ticketOrderRemoteService.createTicketOrder(orderCreateRemoteReqDTO);
+            ticketOrderResult = purchaseTicketStageMetrics.record(PurchaseTicketStageEnum.ORDER_CREATE, stageTags,
+                    () -> ticketOrderRemoteService.createTicketOrder(orderCreateRemoteReqDTO));
             if (!ticketOrderResult.isSuccess() || StrUtil.isBlank(ticketOrderResult.getData())) {
                 log.error("订单服务调用失败，返回结果：{}", ticketOrderResult.getMessage());
                 throw new ServiceException("订单服务调用失败");
@@ -563,6 +599,169 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
         return new TicketPurchaseRespDTO(ticketOrderResult.getData(), ticketOrderDetailResults);
     }
 
+    @Override
+    @Transactional(rollbackFor = Throwable.class)
+    public void executePurchaseTicketsBatch(List<PurchaseTicketBatchItemDTO> batchItems) {
+        String trainId = batchItems.get(0).getRequestParam().getTrainId();
+        TrainDO trainDO = distributedCache.safeGet(
+                TRAIN_INFO + trainId,
+                TrainDO.class,
+                () -> trainMapper.selectById(trainId),
+                ADVANCE_TICKET_DAY,
+                TimeUnit.DAYS);
+        // 同批次请求共享车厢可用座位快照，每个站点区间只查询一次可用座位
+        CarriageSeatSnapshot seatSnapshot = new CarriageSeatSnapshot(trainStationService.getTrainRouteIndex(trainId));
+        List<PurchaseTicketBatchItemDTO> allocatedItems = new ArrayList<>(batchItems.size());
+        List<List<TrainPurchaseTicketRespDTO>> allocatedSeatLists = new ArrayList<>(batchItems.size());
+        for (PurchaseTicketBatchItemDTO each : batchItems) {
+            UserContext.setUser(each.getUser());
+            try {
+                allocatedSeatLists.add(trainSeatTypeSelector.allocate(trainDO.getTrainType(), each.getRequestParam(), seatSnapshot));
+                allocatedItems.add(each);
+            } catch (Throwable ex) {
+                each.setError(ex);
+            } finally {
+                UserContext.removeUser();
+            }
+        }
+        if (allocatedItems.isEmpty()) {
+            return;
+        }
+        List<TicketDO> ticketDOList = new ArrayList<>();
+        List<PurchaseTicketBatchItemDTO> lockedItems = new ArrayList<>(allocatedItems.size());
+        List<TicketOrderCreateRemoteReqDTO> orderCreateRemoteReqDTOList = new ArrayList<>(allocatedItems.size());
+        List<List<TicketOrderDetailRespDTO>> ticketOrderDetailLists = new ArrayList<>(allocatedItems.size());
+        Map<String, TrainStationRelationDO> trainStationRelationMap = new HashMap<>();
+        TransactionStatus transactionStatus = TransactionAspectSupport.currentTransactionStatus();
+        for (int i = 0; i < allocatedItems.size(); i++) {
+            PurchaseTicketBatchItemDTO item = allocatedItems.get(i);
+            List<TrainPurchaseTicketRespDTO> seatList = allocatedSeatLists.get(i);
+            PurchaseTicketReqDTO requestParam = item.getRequestParam();
+            // 单笔锁座失败仅回滚至该笔请求的保存点，不影响同批次其它请求
+            Object savepoint = transactionStatus.createSavepoint();
+            try {
+                seatService.lockSeat(trainId, requestParam.getDeparture(), requestParam.getArrival(), seatList);
+                transactionStatus.releaseSavepoint(savepoint);
+            } catch (Throwable ex) {
+                transactionStatus.rollbackToSavepoint(savepoint);
+                item.setError(ex);
+                continue;
+            }
+            lockedItems.add(item);
+            ticketDOList.addAll(buildTicketDOList(item.getUser().getUsername(), trainId, seatList));
+            TrainStationRelationDO trainStationRelationDO = trainStationRelationMap.computeIfAbsent(
+                    requestParam.getDeparture() + "_" + requestParam.getArrival(),
+                    key -> getTrainStationRelation(trainId, requestParam.getDeparture(), requestParam.getArrival()));
+            List<TicketOrderDetailRespDTO> ticketOrderDetailResults = new ArrayList<>();
+            orderCreateRemoteReqDTOList.add(buildTicketOrderCreateRemoteReqDTO(requestParam, trainDO, trainStationRelationDO,
+                    item.getUser().getUserId(), item.getUser().getUsername(), seatList, ticketOrderDetailResults));
+            ticketOrderDetailLists.add(ticketOrderDetailResults);
+        }
+        if (lockedItems.isEmpty()) {
+            return;
+        }
+        saveBatch(ticketDOList);
+        if (isAsyncOrderCreate()) {
+            List<String> orderSnList = ticketOrderPendingService.createPendingOrders(orderCreateRemoteReqDTOList);
+            for (int i = 0; i < lockedItems.size(); i++) {
+                lockedItems.get(i).setResult(new TicketPurchaseRespDTO(orderSnList.get(i), ticketOrderDetailLists.get(i)));
+            }
+            return;
+        }
+        Result<List<String>> ticketOrderResult;
+        try {
+            ticketOrderResult = ticketOrderRemoteService.createTicketOrderBatch(orderCreateRemoteReqDTOList);
+            if (!ticketOrderResult.isSuccess() || CollUtil.size(ticketOrderResult.getData()) != orderCreateRemoteReqDTOList.size()) {
+                log.error("订单服务批量创建订单失败，返回结果：{}", ticketOrderResult.getMessage());
+                throw new ServiceException("订单服务调用失败");
+            }
+        } catch (Throwable ex) {
+            log.error("远程调用订单服务批量创建订单错误，列车ID：{}，订单数量：{}", trainId, orderCreateRemoteReqDTOList.size(), ex);
+            throw ex;
+        }
+        for (int i = 0; i < lockedItems.size(); i++) {
+            lockedItems.get(i).setResult(new TicketPurchaseRespDTO(ticketOrderResult.getData().get(i), ticketOrderDetailLists.get(i)));
+        }
+    }
+
+    /**
+     * 开启候补购票时，余票为 0 的座位类型可登记候补
+     */
+    private boolean isWaitlistCandidate(int quantity) {
+        return quantity <= 0 && ticketWaitlistMatcher.isEnabled();
+    }
+
+    private boolean isAsyncOrderCreate() {
+        return StrUtil.equals(ticketOrderCreateType, "async");
+    }
+
+    private List<TicketDO> buildTicketDOList(String username, String trainId, List<TrainPurchaseTicketRespDTO> trainPurchaseTicketResults) {
+        return trainPurchaseTicketResults.stream()
+                .map(each -> TicketDO.builder()
+                        .username(username)
+                        .trainId(Long.parseLong(trainId))
+                        .carriageNumber(each.getCarriageNumber())
+                        .seatNumber(each.getSeatNumber())
+                        .passengerId(each.getPassengerId())
+                        .ticketStatus(TicketStatusEnum.UNPAID.getCode())
+                        .build())
+                .toList();
+    }
+
+    private TrainStationRelationDO getTrainStationRelation(String trainId, String departure, String arrival) {
+        LambdaQueryWrapper<TrainStationRelationDO> queryWrapper = Wrappers.lambdaQuery(TrainStationRelationDO.class)
+                .eq(TrainStationRelationDO::getTrainId, trainId)
+                .eq(TrainStationRelationDO::getDeparture, departure)
+                .eq(TrainStationRelationDO::getArrival, arrival);
+        return trainStationRelationMapper.selectOne(queryWrapper);
+    }
+
+    private TicketOrderCreateRemoteReqDTO buildTicketOrderCreateRemoteReqDTO(PurchaseTicketReqDTO requestParam, TrainDO trainDO,
+                                                                             TrainStationRelationDO trainStationRelationDO, String userId, String username,
+                                                                             List<TrainPurchaseTicketRespDTO> trainPurchaseTicketResults,
+                                                                             List<TicketOrderDetailRespDTO> ticketOrderDetailResults) {
+        List<TicketOrderItemCreateRemoteReqDTO> orderItemCreateRemoteReqDTOList = new ArrayList<>();
+        trainPurchaseTicketResults.forEach(each -> {
+            TicketOrderItemCreateRemoteReqDTO orderItemCreateRemoteReqDTO = TicketOrderItemCreateRemoteReqDTO.builder()
+                    .amount(each.getAmount())
+                    .carriageNumber(each.getCarriageNumber())
+                    .seatNumber(each.getSeatNumber())
+                    .idCard(each.getIdCard())
+                    .idType(each.getIdType())
+                    .phone(each.getPhone())
+                    .seatType(each.getSeatType())
+                    .ticketType(each.getUserType())
+                    .realName(each.getRealName())
+                    .build();
+            TicketOrderDetailRespDTO ticketOrderDetailRespDTO = TicketOrderDetailRespDTO.builder()
+                    .amount(each.getAmount())
+                    .carriageNumber(each.getCarriageNumber())
+                    .seatNumber(each.getSeatNumber())
+                    .idCard(each.getIdCard())
+                    .idType(each.getIdType())
+                    .seatType(each.getSeatType())
+                    .ticketType(each.getUserType())
+                    .realName(each.getRealName())
+                    .build();
+            orderItemCreateRemoteReqDTOList.add(orderItemCreateRemoteReqDTO);
+            ticketOrderDetailResults.add(ticketOrderDetailRespDTO);
+        });
+        return TicketOrderCreateRemoteReqDTO.builder()
+                .departure(requestParam.getDeparture())
+                .arrival(requestParam.getArrival())
+                .orderTime(new Date())
+                .source(SourceEnum.INTERNET.getCode())
+                .trainNumber(trainDO.getTrainNumber())
+                .departureTime(trainStationRelationDO.getDepartureTime())
+                .arrivalTime(trainStationRelationDO.getArrivalTime())
+                .ridingDate(trainStationRelationDO.getDepartureTime())
+                .userId(userId)
+                .username(username)
+                .trainId(Long.parseLong(requestParam.getTrainId()))
+                .ticketOrderItems(orderItemCreateRemoteReqDTOList)
+                .build();
+    }
+
     @Override
     public PayInfoRespDTO getPayInfo(String orderSn) {
         return payRemoteService.getPayInfo(orderSn).getData();
@@ -601,6 +800,7 @@ public class TicketServiceImpl extends ServiceImpl<TicketMapper, TicketDO> imple
                 log.error("[取消关闭订单] 订单号：{} 回滚列车Cache余票失败", requestParam.getOrderSn(), ex);
                 throw ex;
             }
+            ticketWaitlistMatcher.signal(trainId, trainPurchaseTicketResults.stream().map(TicketOrderPassengerDetailRespDTO::getSeatType).toList());
         }
     }
 
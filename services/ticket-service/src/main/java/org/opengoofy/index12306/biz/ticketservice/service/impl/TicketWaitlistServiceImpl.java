@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.biz.ticketservice.service.impl;
+
+import com.alibaba.fastjson2.JSON;
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.TicketChainMarkEnum;
+import org.opengoofy.index12306.biz.ticketservice.common.enums.TicketWaitlistStatusEnum;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.TicketWaitlistDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.TicketWaitlistCancelReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.TicketWaitlistReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.resp.TicketWaitlistRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.TicketWaitlistService;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.waitlist.TicketWaitlistMatcher;
+import org.opengoofy.index12306.framework.starter.cache.DistributedCache;
+import org.opengoofy.index12306.framework.starter.common.toolkit.BeanUtil;
+import org.opengoofy.index12306.framework.starter.convention.exception.ClientException;
+import org.opengoofy.index12306.framework.starter.designpattern.chain.AbstractChainContext;
+import org.opengoofy.index12306.framework.starter.distributedid.toolkit.SnowflakeIdUtil;
+import org.opengoofy.index12306.frameworks.starter.user.core.UserContext;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.Index12306Constant.ADVANCE_TICKET_DAY;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.LOCK_TICKET_WAITLIST_MATCH;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TICKET_WAITLIST_ENTRY;
+import static org.opengoofy.index12306.biz.ticketservice.common.constant.RedisKeyConstant.TICKET_WAITLIST_QUEUE;
+
+/**
+ * 候补购票接口实现
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Service
+@RequiredArgsConstructor
+public class TicketWaitlistServiceImpl implements TicketWaitlistService {
+
+    private final DistributedCache distributedCache;
+    private final RedissonClient redissonClient;
+    private final TicketWaitlistMatcher ticketWaitlistMatcher;
+    private final AbstractChainContext<TicketWaitlistReqDTO> ticketWaitlistAbstractChainContext;
+
+    @Override
+    public String registerWaitlist(TicketWaitlistReqDTO requestParam) {
+        if (!ticketWaitlistMatcher.isEnabled()) {
+            throw new ClientException("候补购票暂未开放");
+        }
+        // 责任链模式，验证 1：参数必填 2：车次、站点以及座位类型是否有效
+        ticketWaitlistAbstractChainContext.handler(TicketChainMarkEnum.TRAIN_WAITLIST_TICKET_FILTER.name(), requestParam);
+        TicketWaitlistDTO entry = TicketWaitlistDTO.builder()
+                .waitlistId(SnowflakeIdUtil.nextIdStr())
+                .trainId(requestParam.getTrainId())
+                .departure(requestParam.getDeparture())
+                .arrival(requestParam.getArrival())
+                .seatType(requestParam.getSeatType())
+                .passengers(requestParam.getPassengers().stream().distinct().toList())
+                .status(TicketWaitlistStatusEnum.WAITING.getCode())
+                .userId(UserContext.getUserId())
+                .username(UserContext.getUsername())
+                .realName(UserContext.getRealName())
+                .createTime(System.currentTimeMillis())
+                .build();
+        String queueKey = TICKET_WAITLIST_QUEUE + entry.getTrainId() + "_" + entry.getSeatType();
+        StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                RedisOperations<String, String> redisOperations = (RedisOperations<String, String>) operations;
+                redisOperations.opsForValue().set(TICKET_WAITLIST_ENTRY + entry.getWaitlistId(), JSON.toJSONString(entry), ADVANCE_TICKET_DAY, TimeUnit.DAYS);
+                redisOperations.opsForZSet().add(queueKey, entry.getWaitlistId(), entry.getCreateTime());
+                return null;
+            }
+        });
+        // 登记时可能已有释放的余票，主动触发一次兑现
+        ticketWaitlistMatcher.signal(entry.getTrainId(), List.of(entry.getSeatType()));
+        return entry.getWaitlistId();
+    }
+
+    @Override
+    public TicketWaitlistRespDTO queryWaitlist(String waitlistId) {
+        return BeanUtil.convert(getSelfWaitlist(waitlistId), TicketWaitlistRespDTO.class);
+    }
+
+    @Override
+    public void cancelWaitlist(TicketWaitlistCancelReqDTO requestParam) {
+        TicketWaitlistDTO entry = getSelfWaitlist(requestParam.getWaitlistId());
+        // 与兑现共用同一把锁，避免候补兑现的同时被取消
+        RLock matchLock = redissonClient.getLock(String.format(LOCK_TICKET_WAITLIST_MATCH, entry.getTrainId(), entry.getSeatType()));
+        matchLock.lock();
+        try {
+            entry = getSelfWaitlist(requestParam.getWaitlistId());
+            if (!Objects.equals(entry.getStatus(), TicketWaitlistStatusEnum.WAITING.getCode())) {
+                throw new ClientException("候补购票已兑现或已取消");
+            }
+            entry.setStatus(TicketWaitlistStatusEnum.CANCELLED.getCode());
+            StringRedisTemplate stringRedisTemplate = (StringRedisTemplate) distributedCache.getInstance();
+            stringRedisTemplate.opsForValue().set(TICKET_WAITLIST_ENTRY + entry.getWaitlistId(), JSON.toJSONString(entry), ADVANCE_TICKET_DAY, TimeUnit.DAYS);
+            stringRedisTemplate.opsForZSet().remove(TICKET_WAITLIST_QUEUE + entry.getTrainId() + "_" + entry.getSeatType(), entry.getWaitlistId());
+        } finally {
+            matchLock.unlock();
+        }
+    }
+
+    private TicketWaitlistDTO getSelfWaitlist(String waitlistId) {
+        TicketWaitlistDTO entry = distributedCache.get(TICKET_WAITLIST_ENTRY + waitlistId, TicketWaitlistDTO.class);
+        if (entry == null || !Objects.equals(entry.getUsername(), UserContext.getUsername())) {
+            throw new ClientException("候补购票不存在");
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,10 @@
+-- KEYS[1] 延迟关闭订单队列分片
+-- ARGV[1] 当前时间戳，ARGV[2] 单批最大弹出数量，ARGV[3] 未确认时重新可见的时间戳
+-- 弹出的订单号不直接删除而是推迟到期时间，处理成功后再移除，节点宕机时由其它节点重新处理
+local members = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'limit', 0, tonumber(ARGV[2]))
+
+for _, member in ipairs(members) do
+    redis.call('zadd', KEYS[1], ARGV[3], member)
+end
+
+return members
@@ -0,0 +1,7 @@
+-- KEYS[1]: 城市间车次出发日期索引 ZSET，KEYS[2]: 城市间车次详情 Hash
+-- ARGV[1]: 出发时刻下限（分钟），ARGV[2]: 出发时刻上限（分钟）
+local members = redis.call('zrangebyscore', KEYS[1], ARGV[1], ARGV[2])
+if #members == 0 then
+    return {}
+end
+return redis.call('hmget', KEYS[2], unpack(members))
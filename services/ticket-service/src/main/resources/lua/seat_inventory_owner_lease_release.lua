@@ -0,0 +1,7 @@
+-- KEYS[1] 座位内存库存所有权租约
+-- ARGV[1] 当前节点标识
+-- 仅当租约仍由当前节点持有时释放，避免删除其它节点已获取的租约
+if redis.call('get', KEYS[1]) == ARGV[1] then
+    return redis.call('del', KEYS[1])
+end
+return 0
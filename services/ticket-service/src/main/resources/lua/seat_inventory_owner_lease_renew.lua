@@ -0,0 +1,7 @@
+-- KEYS[1] 座位内存库存所有权租约
+-- ARGV[1] 当前节点标识，ARGV[2] 租约时长（毫秒）
+-- 仅当租约仍由当前节点持有时续期，返回 1 表示续期成功，0 表示租约已丢失
+if redis.call('get', KEYS[1]) == ARGV[1] then
+    return redis.call('pexpire', KEYS[1], ARGV[2])
+end
+return 0
@@ -0,0 +1,21 @@
+-- KEYS[1] 分段令牌桶，ARGV[1] 出发站序号，ARGV[2] 到达站序号，其后为座位类型与回滚数量交替排列
+-- 令牌桶已被删除时不做处理，避免写入残缺的令牌桶
+if redis.call('exists', KEYS[1]) == 0 then
+    return 0
+end
+
+local startOrdinal = tonumber(ARGV[1])
+local endOrdinal = tonumber(ARGV[2]) - 1
+
+for i = 3, #ARGV, 2 do
+    local seatType = ARGV[i]
+    local count = tonumber(ARGV[i + 1])
+    for ordinal = startOrdinal, endOrdinal do
+        local field = seatType .. "_" .. ordinal
+        if redis.call('hexists', KEYS[1], field) == 1 then
+            redis.call('hincrby', KEYS[1], field, count)
+        end
+    end
+end
+
+return 0
@@ -0,0 +1,43 @@
+-- KEYS[1] 分段令牌桶，Field 为 座位类型_原子区间序号，原子区间 k 表示第 k 站到第 k + 1 站
+-- ARGV[1] 出发站序号，ARGV[2] 到达站序号，其后为座位类型与购票数量交替排列
+local startOrdinal = tonumber(ARGV[1])
+local endOrdinal = tonumber(ARGV[2]) - 1
+
+local result = {}
+local tokenIsNull = false
+local tokenIsNullSeatTypeCounts = {}
+
+-- 区间内各原子区间余量的最小值即为区间可购余量
+for i = 3, #ARGV, 2 do
+    local seatType = ARGV[i]
+    local count = tonumber(ARGV[i + 1])
+    local fields = {}
+    for ordinal = startOrdinal, endOrdinal do
+        table.insert(fields, seatType .. "_" .. ordinal)
+    end
+    local tokenValues = redis.call('hmget', KEYS[1], unpack(fields))
+    for index = 1, #tokenValues do
+        local tokenValue = tonumber(tokenValues[index])
+        if tokenValue == nil or tokenValue < count then
+            tokenIsNull = true
+            table.insert(tokenIsNullSeatTypeCounts, seatType .. "_" .. count)
+            break
+        end
+    end
+end
+
+result['tokenIsNull'] = tokenIsNull
+if tokenIsNull then
+    result['tokenIsNullSeatTypeCounts'] = tokenIsNullSeatTypeCounts
+    return cjson.encode(result)
+end
+
+for i = 3, #ARGV, 2 do
+    local seatType = ARGV[i]
+    local count = tonumber(ARGV[i + 1])
+    for ordinal = startOrdinal, endOrdinal do
+        redis.call('hincrby', KEYS[1], seatType .. "_" .. ordinal, -count)
+    end
+end
+
+return cjson.encode(result)
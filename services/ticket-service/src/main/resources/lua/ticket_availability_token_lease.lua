@@ -0,0 +1,39 @@
+-- KEYS[1] 分段令牌桶，Field 为 座位类型_原子区间序号
+-- ARGV 为 Field、最少领取数量、期望领取数量 三元组，任一 Field 余量低于最少领取数量时不做扣减
+local result = {}
+local tokenIsNullFields = {}
+local tokenValues = {}
+
+for i = 1, #ARGV, 3 do
+    local tokenValue = tonumber(redis.call('hget', KEYS[1], ARGV[i]))
+    if tokenValue == nil or tokenValue < tonumber(ARGV[i + 1]) then
+        table.insert(tokenIsNullFields, ARGV[i])
+        tokenValue = 0
+    end
+    table.insert(tokenValues, tokenValue)
+end
+
+if #tokenIsNullFields > 0 then
+    result['tokenIsNull'] = true
+    result['tokenIsNullFields'] = tokenIsNullFields
+    return cjson.encode(result)
+end
+
+-- 余量不足期望数量时仅领取最少领取数量，剩余令牌留给其他节点
+local granted = {}
+for i = 1, #ARGV, 3 do
+    local grant = tonumber(ARGV[i + 2])
+    if tokenValues[(i + 2) / 3] < grant then
+        grant = tonumber(ARGV[i + 1])
+    end
+    if grant > 0 then
+        redis.call('hincrby', KEYS[1], ARGV[i], -grant)
+    else
+        grant = 0
+    end
+    table.insert(granted, grant)
+end
+
+result['tokenIsNull'] = false
+result['granted'] = granted
+return cjson.encode(result)
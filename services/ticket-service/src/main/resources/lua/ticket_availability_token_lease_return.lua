@@ -0,0 +1,13 @@
+-- KEYS[1] 分段令牌桶，ARGV 为 Field、归还数量 二元组
+-- 令牌桶已被删除重建时不做处理，重建后的令牌已按数据库实际余量计算
+if redis.call('exists', KEYS[1]) == 0 then
+    return 0
+end
+
+for i = 1, #ARGV, 2 do
+    if redis.call('hexists', KEYS[1], ARGV[i]) == 1 then
+        redis.call('hincrby', KEYS[1], ARGV[i], tonumber(ARGV[i + 1]))
+    end
+end
+
+return 0
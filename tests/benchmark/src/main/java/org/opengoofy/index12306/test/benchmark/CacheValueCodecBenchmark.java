@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.test.benchmark;
+
+import org.opengoofy.index12306.biz.ticketservice.dao.entity.TrainDO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.SeatClassDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.TicketListDTO;
+import org.opengoofy.index12306.framework.starter.cache.codec.CacheValueCodecSelector;
+import org.opengoofy.index12306.framework.starter.cache.codec.JsonbCacheValueCodec;
+import org.opengoofy.index12306.framework.starter.cache.config.RedisDistributedProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存值编码基准，对比 JSON 字符串与 JSONB 二进制编码的编解码吞吐量
+ * 编码后字节数在初始化时输出，近似对应 Redis 中单个缓存值占用的内存
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheValueCodecBenchmark {
+
+    private static final String KEY_PREFIX = "benchmark:";
+
+    @Param({"json", "jsonb"})
+    private String codec;
+
+    @Param({"train", "ticketList"})
+    private String payload;
+
+    private CacheValueCodecSelector cacheValueCodecSelector;
+    private String key;
+    private Object value;
+    private Class<?> valueType;
+    private byte[] encodedValue;
+
+    @Setup
+    public void setUp() {
+        RedisDistributedProperties.Codec codecProperties = new RedisDistributedProperties.Codec();
+        if (JsonbCacheValueCodec.NAME.equals(codec)) {
+            RedisDistributedProperties.CodecKeyPrefix keyPrefix = new RedisDistributedProperties.CodecKeyPrefix();
+            keyPrefix.setPrefix(KEY_PREFIX);
+            keyPrefix.setCodec(codec);
+            codecProperties.getKeyPrefixes().add(keyPrefix);
+        }
+        cacheValueCodecSelector = new CacheValueCodecSelector(List.of(new JsonbCacheValueCodec()), codecProperties);
+        key = KEY_PREFIX + payload;
+        if ("train".equals(payload)) {
+            value = train();
+            valueType = TrainDO.class;
+        } else {
+            value = ticketList(20);
+            valueType = TicketListDTO[].class;
+        }
+        encodedValue = cacheValueCodecSelector.encode(key, value);
+        System.out.printf("%n编码：%s，缓存值：%s，编码后字节数：%d%n", codec, payload, encodedValue.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return cacheValueCodecSelector.encode(key, value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return cacheValueCodecSelector.decode(encodedValue, valueType);
+    }
+
+    private static TrainDO train() {
+        TrainDO result = new TrainDO();
+        result.setId(1L);
+        result.setTrainNumber("G35");
+        result.setTrainType(0);
+        result.setTrainTag("0,1");
+        result.setTrainBrand("0");
+        result.setStartStation("北京南");
+        result.setEndStation("杭州东");
+        result.setStartRegion("北京");
+        result.setEndRegion("杭州");
+        result.setSaleTime(new Date(1700000000000L));
+        result.setSaleStatus(0);
+        result.setDepartureTime(new Date(1700003600000L));
+        result.setArrivalTime(new Date(1700024000000L));
+        result.setCreateTime(new Date(1700000000000L));
+        result.setUpdateTime(new Date(1700000000000L));
+        result.setDelFlag(0);
+        return result;
+    }
+
+    private static TicketListDTO[] ticketList(int size) {
+        Random random = new Random(12306L);
+        TicketListDTO[] result = new TicketListDTO[size];
+        for (int i = 0; i < size; i++) {
+            TicketListDTO ticket = new TicketListDTO();
+            ticket.setTrainId(String.valueOf(i + 1));
+            ticket.setTrainNumber("G" + (100 + i));
+            ticket.setDepartureTime(String.format("%02d:%02d", 6 + i % 16, random.nextInt(60)));
+            ticket.setArrivalTime(String.format("%02d:%02d", 10 + i % 12, random.nextInt(60)));
+            ticket.setDuration(String.format("%02d:%02d", 4, random.nextInt(60)));
+            ticket.setDaysArrived(0);
+            ticket.setDeparture("北京南");
+            ticket.setArrival("杭州东");
+            ticket.setDepartureFlag(true);
+            ticket.setArrivalFlag(true);
+            ticket.setTrainType(0);
+            ticket.setSaleStatus(0);
+            ticket.setTrainTags(List.of("0", "1"));
+            ticket.setTrainBrand("0");
+            List<SeatClassDTO> seatClassList = new ArrayList<>();
+            for (int seatType = 0; seatType < 3; seatType++) {
+                seatClassList.add(new SeatClassDTO(seatType, random.nextInt(500), BigDecimal.valueOf(50000 + random.nextInt(100000), 2), false));
+            }
+            ticket.setSeatClassList(seatClassList);
+            result[i] = ticket;
+        }
+        return result;
+    }
+}
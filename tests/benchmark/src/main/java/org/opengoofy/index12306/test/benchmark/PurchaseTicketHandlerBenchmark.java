@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.test.benchmark;
+
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.PurchaseTicketPassengerDetailDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.PurchaseTicketReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.SeatService;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.TrainBusinessClassPurchaseTicketHandler;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.TrainFirstClassPurchaseTicketHandler;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.TrainSecondClassPurchaseTicketHandler;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.SelectSeatDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select.CarriageSeatLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 各座位类型购票组件完整内存选座基准，车厢可用座位由桩 {@link SeatService} 返回合成数据，不访问数据库与缓存
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PurchaseTicketHandlerBenchmark {
+
+    @Param({"BUSINESS_CLASS", "FIRST_CLASS", "SECOND_CLASS"})
+    private CarriageSeatLayout layout;
+
+    @Param({"0.3", "0.9"})
+    private double occupancy;
+
+    @Param({"2", "5"})
+    private int passengerCount;
+
+    private Function<SelectSeatDTO, List<TrainPurchaseTicketRespDTO>> selector;
+    private SelectSeatDTO selectSeatDTO;
+
+    @Setup
+    public void setUp() {
+        Map<String, List<String>> carriageAvailableSeatMap = SyntheticCarriageState.carriageAvailableSeatMap(layout, 8, occupancy);
+        SeatService seatService = (SeatService) Proxy.newProxyInstance(SeatService.class.getClassLoader(), new Class<?>[]{SeatService.class}, (proxy, method, args) -> {
+            if ("listAvailableSeatGroupByCarriage".equals(method.getName())) {
+                return carriageAvailableSeatMap;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+        selector = switch (layout) {
+            case BUSINESS_CLASS -> new BusinessClassHandler(seatService)::select;
+            case FIRST_CLASS -> new FirstClassHandler(seatService)::select;
+            case SECOND_CLASS -> new SecondClassHandler(seatService)::select;
+        };
+        List<PurchaseTicketPassengerDetailDTO> passengers = new ArrayList<>(passengerCount);
+        for (int i = 0; i < passengerCount; i++) {
+            PurchaseTicketPassengerDetailDTO passenger = new PurchaseTicketPassengerDetailDTO();
+            passenger.setPassengerId(String.valueOf(i));
+            passenger.setSeatType(layout.getSeatType());
+            passengers.add(passenger);
+        }
+        PurchaseTicketReqDTO requestParam = new PurchaseTicketReqDTO();
+        requestParam.setTrainId("1");
+        requestParam.setDeparture("北京南");
+        requestParam.setArrival("杭州东");
+        requestParam.setPassengers(passengers);
+        selectSeatDTO = SelectSeatDTO.builder()
+                .seatType(layout.getSeatType())
+                .passengerSeatDetails(passengers)
+                .requestParam(requestParam)
+                .build();
+    }
+
+    @Benchmark
+    public List<TrainPurchaseTicketRespDTO> selectSeats() {
+        return selector.apply(selectSeatDTO);
+    }
+
+    private static final class BusinessClassHandler extends TrainBusinessClassPurchaseTicketHandler {
+
+        BusinessClassHandler(SeatService seatService) {
+            super(seatService);
+        }
+
+        List<TrainPurchaseTicketRespDTO> select(SelectSeatDTO requestParam) {
+            return selectSeats(requestParam);
+        }
+    }
+
+    private static final class FirstClassHandler extends TrainFirstClassPurchaseTicketHandler {
+
+        FirstClassHandler(SeatService seatService) {
+            super(seatService);
+        }
+
+        List<TrainPurchaseTicketRespDTO> select(SelectSeatDTO requestParam) {
+            return selectSeats(requestParam);
+        }
+    }
+
+    private static final class SecondClassHandler extends TrainSecondClassPurchaseTicketHandler {
+
+        SecondClassHandler(SeatService seatService) {
+            super(seatService);
+        }
+
+        List<TrainPurchaseTicketRespDTO> select(SelectSeatDTO requestParam) {
+            return selectSeats(requestParam);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.test.benchmark;
+
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.PurchaseTicketPassengerDetailDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.dto.TrainPurchaseTicketRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select.CarriageSeatBitmap;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select.CarriageSeatLayout;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select.SeatSelection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 选座位图算法基准：邻座、非邻座、选座匹配、位图构建以及完整选座流程
+ * 原 SeatSelection.adjacent/nonAdjacent 与车厢空余座位计算已由 {@link CarriageSeatBitmap} 承担，基准直接覆盖位图实现
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeatSelectionBenchmark {
+
+    @Param({"BUSINESS_CLASS", "FIRST_CLASS", "SECOND_CLASS"})
+    private CarriageSeatLayout layout;
+
+    /**
+     * 已售座位比例，高占用率下邻座匹配更容易失败并降级
+     */
+    @Param({"0.3", "0.9"})
+    private double occupancy;
+
+    @Param({"2", "5"})
+    private int passengerCount;
+
+    private Map<String, List<String>> carriageAvailableSeatMap;
+    private List<CarriageSeatBitmap> carriageSeatBitmaps;
+    private List<PurchaseTicketPassengerDetailDTO> passengers;
+    private List<String> chooseSeats;
+
+    @Setup
+    public void setUp() {
+        carriageAvailableSeatMap = SyntheticCarriageState.carriageAvailableSeatMap(layout, 8, occupancy);
+        carriageSeatBitmaps = new ArrayList<>(carriageAvailableSeatMap.size());
+        carriageAvailableSeatMap.forEach((carriageNumber, availableSeats) -> carriageSeatBitmaps.add(CarriageSeatBitmap.of(layout, carriageNumber, availableSeats)));
+        passengers = new ArrayList<>(passengerCount);
+        for (int i = 0; i < passengerCount; i++) {
+            PurchaseTicketPassengerDetailDTO passenger = new PurchaseTicketPassengerDetailDTO();
+            passenger.setPassengerId(String.valueOf(i));
+            passenger.setSeatType(layout.getSeatType());
+            passengers.add(passenger);
+        }
+        chooseSeats = layout == CarriageSeatLayout.SECOND_CLASS ? List.of("A1", "C1") : List.of("A1", "F1");
+    }
+
+    @Benchmark
+    public void buildBitmap(Blackhole blackhole) {
+        carriageAvailableSeatMap.forEach((carriageNumber, availableSeats) -> blackhole.consume(CarriageSeatBitmap.of(layout, carriageNumber, availableSeats)));
+    }
+
+    @Benchmark
+    public void adjacent(Blackhole blackhole) {
+        int numSeats = Math.min(passengerCount, layout.getColumns());
+        for (CarriageSeatBitmap each : carriageSeatBitmaps) {
+            blackhole.consume(each.adjacent(numSeats));
+        }
+    }
+
+    @Benchmark
+    public void nonAdjacent(Blackhole blackhole) {
+        for (CarriageSeatBitmap each : carriageSeatBitmaps) {
+            blackhole.consume(each.nonAdjacent(passengerCount));
+        }
+    }
+
+    @Benchmark
+    public void matchChooseSeats(Blackhole blackhole) {
+        for (CarriageSeatBitmap each : carriageSeatBitmaps) {
+            blackhole.consume(each.matchChooseSeats(chooseSeats));
+        }
+    }
+
+    @Benchmark
+    public List<TrainPurchaseTicketRespDTO> select() {
+        return SeatSelection.select(carriageSeatBitmaps, passengers, null, 6, 3);
+    }
+
+    @Benchmark
+    public List<TrainPurchaseTicketRespDTO> selectWithChooseSeats() {
+        return SeatSelection.select(carriageSeatBitmaps, passengers, chooseSeats, 6, 3);
+    }
+}
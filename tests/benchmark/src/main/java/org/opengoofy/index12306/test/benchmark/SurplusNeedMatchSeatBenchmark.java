@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.test.benchmark;
+
+import cn.hutool.core.lang.Pair;
+import org.opengoofy.index12306.biz.ticketservice.toolkit.SurplusNeedMatchSeatUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 剩余座位匹配基准，被测方法会消费空余座位队列，每次调用前复制一份队列，复制开销计入结果
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SurplusNeedMatchSeatBenchmark {
+
+    /**
+     * 空余座位分组数量，每组为同排连续空余座位
+     */
+    @Param({"16", "90"})
+    private int vacantGroupCount;
+
+    @Param({"2", "5"})
+    private int chooseSeatSize;
+
+    private PriorityQueue<List<Pair<Integer, Integer>>> vacantSeatQueue;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(12306L);
+        vacantSeatQueue = new PriorityQueue<>(Comparator.comparingInt(List::size));
+        for (int row = 0; row < vacantGroupCount; row++) {
+            int groupSize = 1 + random.nextInt(3);
+            List<Pair<Integer, Integer>> group = new ArrayList<>(groupSize);
+            for (int column = 0; column < groupSize; column++) {
+                group.add(new Pair<>(row, column));
+            }
+            vacantSeatQueue.add(group);
+        }
+    }
+
+    @Benchmark
+    public List<Pair<Integer, Integer>> getSurplusNeedMatchSeat() {
+        return SurplusNeedMatchSeatUtil.getSurplusNeedMatchSeat(chooseSeatSize, new PriorityQueue<>(vacantSeatQueue));
+    }
+}
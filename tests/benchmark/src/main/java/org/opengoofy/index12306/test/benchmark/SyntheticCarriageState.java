@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.test.benchmark;
+
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select.CarriageSeatLayout;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 合成车厢座位状态，按固定随机种子生成，保证每次运行的基准输入一致
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public final class SyntheticCarriageState {
+
+    private static final long SEED = 12306L;
+
+    private SyntheticCarriageState() {
+    }
+
+    /**
+     * 生成车厢可售座位
+     *
+     * @param layout        车厢座位布局
+     * @param carriageCount 车厢数量
+     * @param occupancy     已售座位比例，0 到 1 之间
+     * @return Key：车厢号，Value：可售座位号集合
+     */
+    public static Map<String, List<String>> carriageAvailableSeatMap(CarriageSeatLayout layout, int carriageCount, double occupancy) {
+        Random random = new Random(SEED);
+        int seatCount = layout.getRows() * layout.getColumns();
+        Map<String, List<String>> result = new LinkedHashMap<>(carriageCount << 1);
+        for (int carriage = 1; carriage <= carriageCount; carriage++) {
+            List<String> availableSeats = new ArrayList<>(seatCount);
+            for (int seatIndex = 0; seatIndex < seatCount; seatIndex++) {
+                if (random.nextDouble() >= occupancy) {
+                    availableSeats.add(layout.seatNumber(seatIndex));
+                }
+            }
+            result.put(String.format("%02d", carriage), availableSeats);
+        }
+        return result;
+    }
+
+    /**
+     * 生成列车途经站点，站点名按序号命名
+     *
+     * @param stationCount 站点数量
+     * @return 途经站点集合
+     */
+    public static List<String> stations(int stationCount) {
+        List<String> result = new ArrayList<>(stationCount);
+        for (int i = 0; i < stationCount; i++) {
+            result.add("站点" + i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.test.load;
+
+import lombok.RequiredArgsConstructor;
+import org.opengoofy.index12306.biz.ticketservice.service.handler.ticket.select.CarriageSeatLayout;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热门车次压测数据初始化与超卖校验
+ * 每个车次经停三站，所有座位均为二等座，座位表按任意两站区间各一条记录，购票区间为始发站至终点站
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@RequiredArgsConstructor
+public class HotTrainDataInitializer {
+
+    public static final String DEPARTURE = "北京南";
+    public static final String ARRIVAL = "杭州东";
+
+    private static final String[] STATIONS = {DEPARTURE, "南京南", ARRIVAL};
+    private static final String[] REGIONS = {"北京", "南京", "杭州"};
+    private static final CarriageSeatLayout LAYOUT = CarriageSeatLayout.SECOND_CLASS;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 初始化热门车次
+     *
+     * @param trainId       列车 ID
+     * @param carriageCount 二等座车厢数量
+     * @return 始发站至终点站可售座位数量
+     */
+    public int initialize(long trainId, int carriageCount) {
+        LocalDateTime departureTime = LocalDateTime.now().plusDays(1);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("insert into t_train (id, train_number, train_type, train_tag, train_brand, start_station, end_station, start_region, end_region, "
+                        + "sale_time, sale_status, departure_time, arrival_time, create_time, update_time, del_flag) values (?, ?, 0, '0', '0', ?, ?, ?, ?, ?, 0, ?, ?, ?, ?, 0)",
+                trainId, "G" + trainId, DEPARTURE, ARRIVAL, REGIONS[0], REGIONS[2], Timestamp.valueOf(LocalDateTime.now().minusDays(1)),
+                Timestamp.valueOf(departureTime), Timestamp.valueOf(departureTime.plusHours(5)), now, now);
+        for (int i = 0; i < STATIONS.length; i++) {
+            boolean last = i == STATIONS.length - 1;
+            jdbcTemplate.update("insert into t_train_station (id, train_id, station_id, sequence, departure, arrival, start_region, end_region, "
+                            + "arrival_time, departure_time, stopover_time, create_time, update_time, del_flag) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 2, ?, ?, 0)",
+                    trainId * 100 + i, trainId, i + 1, String.format("%02d", i + 1), STATIONS[i], last ? null : STATIONS[i + 1], REGIONS[i], last ? null : REGIONS[i + 1],
+                    Timestamp.valueOf(departureTime.plusHours(2L * i)), Timestamp.valueOf(departureTime.plusHours(2L * i).plusMinutes(2)), now, now);
+        }
+        for (int i = 0; i < STATIONS.length; i++) {
+            for (int j = i + 1; j < STATIONS.length; j++) {
+                jdbcTemplate.update("insert into t_train_station_relation (id, train_id, departure, arrival, start_region, end_region, departure_flag, arrival_flag, "
+                                + "departure_time, arrival_time, create_time, update_time, del_flag) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)",
+                        trainId * 100 + i * 10 + j, trainId, STATIONS[i], STATIONS[j], REGIONS[i], REGIONS[j], i == 0 ? 1 : 0, j == STATIONS.length - 1 ? 1 : 0,
+                        Timestamp.valueOf(departureTime.plusHours(2L * i)), Timestamp.valueOf(departureTime.plusHours(2L * j)), now, now);
+                jdbcTemplate.update("insert into t_train_station_price (id, train_id, departure, arrival, seat_type, price, create_time, update_time, del_flag) "
+                                + "values (?, ?, ?, ?, ?, ?, ?, ?, 0)",
+                        trainId * 100 + i * 10 + j, trainId, STATIONS[i], STATIONS[j], LAYOUT.getSeatType(), 10000 * (j - i), now, now);
+            }
+        }
+        List<Object[]> seatArgs = new ArrayList<>();
+        int seatCount = LAYOUT.getRows() * LAYOUT.getColumns();
+        for (int carriage = 1; carriage <= carriageCount; carriage++) {
+            String carriageNumber = String.format("%02d", carriage);
+            jdbcTemplate.update("insert into t_carriage (id, train_id, carriage_number, carriage_type, seat_count, create_time, update_time, del_flag) values (?, ?, ?, ?, ?, ?, ?, 0)",
+                    trainId * 100 + carriage, trainId, carriageNumber, LAYOUT.getSeatType(), seatCount, now, now);
+            for (int seatIndex = 0; seatIndex < seatCount; seatIndex++) {
+                for (int i = 0; i < STATIONS.length; i++) {
+                    for (int j = i + 1; j < STATIONS.length; j++) {
+                        seatArgs.add(new Object[]{trainId, carriageNumber, LAYOUT.seatNumber(seatIndex), LAYOUT.getSeatType(), STATIONS[i], STATIONS[j], 10000 * (j - i), now, now});
+                    }
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into t_seat (train_id, carriage_number, seat_number, seat_type, start_station, end_station, price, seat_status, "
+                + "create_time, update_time, del_flag) values (?, ?, ?, ?, ?, ?, ?, 0, ?, ?, 0)", seatArgs);
+        return carriageCount * seatCount;
+    }
+
+    /**
+     * 校验车次是否超卖，返回违规描述，无违规时返回空集合
+     *
+     * @param trainId      列车 ID
+     * @param capacity     始发站至终点站可售座位数量
+     * @param successCount 购票成功乘车人数量
+     * @return 违规描述集合
+     */
+    public List<String> verifyNoOversell(long trainId, int capacity, long successCount) {
+        List<String> violations = new ArrayList<>();
+        Integer ticketCount = jdbcTemplate.queryForObject("select count(*) from t_ticket where train_id = ? and del_flag = 0", Integer.class, trainId);
+        if (ticketCount == null || ticketCount != successCount) {
+            violations.add(String.format("车票记录数 %s 与购票成功数 %d 不一致", ticketCount, successCount));
+        }
+        if (ticketCount != null && ticketCount > capacity) {
+            violations.add(String.format("车票记录数 %d 超出可售座位数 %d", ticketCount, capacity));
+        }
+        List<Map<String, Object>> duplicateSeats = jdbcTemplate.queryForList("select carriage_number, seat_number, count(*) as sold from t_ticket "
+                + "where train_id = ? and del_flag = 0 group by carriage_number, seat_number having count(*) > 1", trainId);
+        duplicateSeats.forEach(each -> violations.add(String.format("座位 %s 车 %s 重复出票 %s 次", each.get("carriage_number"), each.get("seat_number"), each.get("sold"))));
+        Integer unlockedSoldSeats = jdbcTemplate.queryForObject("select count(*) from t_ticket t inner join t_seat s on t.train_id = s.train_id "
+                + "and t.carriage_number = s.carriage_number and t.seat_number = s.seat_number "
+                + "where t.train_id = ? and t.del_flag = 0 and s.start_station = ? and s.end_station = ? and s.seat_status = 0", Integer.class, trainId, DEPARTURE, ARRIVAL);
+        if (unlockedSoldSeats != null && unlockedSoldSeats > 0) {
+            violations.add(String.format("座位表存在 %d 个已出票但仍可售的座位", unlockedSoldSeats));
+        }
+        Integer lockedSeats = jdbcTemplate.queryForObject("select count(*) from t_seat where train_id = ? and start_station = ? and end_station = ? and seat_status != 0",
+                Integer.class, trainId, DEPARTURE, ARRIVAL);
+        if (lockedSeats == null || lockedSeats != successCount) {
+            violations.add(String.format("座位表已锁定座位数 %s 与购票成功数 %d 不一致", lockedSeats, successCount));
+        }
+        return violations;
+    }
+}
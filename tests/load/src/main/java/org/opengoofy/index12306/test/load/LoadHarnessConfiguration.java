@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.test.load;
+
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.opengoofy.index12306.biz.ticketservice.remote.TicketOrderRemoteService;
+import org.opengoofy.index12306.biz.ticketservice.remote.UserRemoteService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+/**
+ * 压测环境配置，远程服务替换为本地桩，移除依赖消息队列的组件
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Configuration
+public class LoadHarnessConfiguration {
+
+    /**
+     * Feign 客户端默认注册为 primary，取消后由本地桩作为唯一的 primary 实现；压测环境不部署 RocketMQ，移除消息消费者
+     */
+    @Bean
+    public static BeanFactoryPostProcessor remoteStandInPostProcessor() {
+        List<String> stubbedClients = List.of(TicketOrderRemoteService.class.getName(), UserRemoteService.class.getName());
+        return beanFactory -> {
+            BeanDefinitionRegistry registry = (BeanDefinitionRegistry) beanFactory;
+            for (String each : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition beanDefinition = beanFactory.getBeanDefinition(each);
+                if (stubbedClients.contains(each)) {
+                    beanDefinition.setPrimary(false);
+                } else if (isRocketMQListener(beanDefinition.getBeanClassName())) {
+                    registry.removeBeanDefinition(each);
+                }
+            }
+        };
+    }
+
+    private static boolean isRocketMQListener(String beanClassName) {
+        if (beanClassName == null) {
+            return false;
+        }
+        Class<?> beanClass = ClassUtils.resolveClassName(beanClassName, LoadHarnessConfiguration.class.getClassLoader());
+        return beanClass.isAnnotationPresent(RocketMQMessageListener.class);
+    }
+
+    @Bean
+    @Primary
+    public StubTicketOrderRemoteService stubTicketOrderRemoteService(@Value("${load.order-latency-millis:0}") long latencyMillis) {
+        return new StubTicketOrderRemoteService(latencyMillis);
+    }
+
+    @Bean
+    @Primary
+    public UserRemoteService stubUserRemoteService() {
+        return new StubUserRemoteService();
+    }
+
+    @Bean
+    public LockWaitRecorder lockWaitRecorder() {
+        return new LockWaitRecorder();
+    }
+
+    @Bean
+    public HotTrainDataInitializer hotTrainDataInitializer(JdbcTemplate jdbcTemplate) {
+        return new HotTrainDataInitializer(jdbcTemplate);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.test.load;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测结果统计
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public final class LoadReport {
+
+    private LoadReport() {
+    }
+
+    /**
+     * 打印压测结果
+     *
+     * @param mode           购票接口版本
+     * @param elapsedNanos   压测总耗时
+     * @param latencies      每次购票耗时，单位纳秒
+     * @param lockWaits      每次购票锁等待耗时，单位纳秒，未进入加锁区域为 -1
+     * @param successCount   购票成功乘车人数量
+     * @param rejectedCounts 业务拒绝，如余票不足，Key：拒绝原因，Value：次数
+     * @param errorCounts    其它异常，Key：异常描述，Value：次数
+     */
+    public static void print(String mode, long elapsedNanos, long[] latencies, long[] lockWaits,
+                             long successCount, Map<String, Long> rejectedCounts, Map<String, Long> errorCounts) {
+        double elapsedSeconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        long rejectedCount = rejectedCounts.values().stream().mapToLong(Long::longValue).sum();
+        long errorCount = errorCounts.values().stream().mapToLong(Long::longValue).sum();
+        long[] sortedLatencies = latencies.clone();
+        Arrays.sort(sortedLatencies);
+        long[] sortedLockWaits = Arrays.stream(lockWaits).filter(each -> each >= 0L).sorted().toArray();
+        StringBuilder report = new StringBuilder(512)
+                .append(System.lineSeparator()).append("========== 购票压测结果：").append(mode).append(" ==========").append(System.lineSeparator())
+                .append(String.format("请求数：%d，成功：%d，余票不足等业务拒绝：%d，异常：%d%n", latencies.length, successCount, rejectedCount, errorCount))
+                .append(String.format("耗时：%.2f s，吞吐量：%.1f req/s，成功吞吐量：%.1f ticket/s%n",
+                        elapsedSeconds, latencies.length / elapsedSeconds, successCount / elapsedSeconds))
+                .append(String.format("响应耗时 ms：p50 %.2f，p99 %.2f，p999 %.2f，max %.2f%n",
+                        percentileMillis(sortedLatencies, 0.5D), percentileMillis(sortedLatencies, 0.99D),
+                        percentileMillis(sortedLatencies, 0.999D), percentileMillis(sortedLatencies, 1D)))
+                .append(String.format("锁等待耗时 ms（%d 次进入加锁区域）：p50 %.2f，p99 %.2f，p999 %.2f，max %.2f%n", sortedLockWaits.length,
+                        percentileMillis(sortedLockWaits, 0.5D), percentileMillis(sortedLockWaits, 0.99D),
+                        percentileMillis(sortedLockWaits, 0.999D), percentileMillis(sortedLockWaits, 1D)));
+        rejectedCounts.forEach((message, count) -> report.append(String.format("业务拒绝：%s，次数：%d%n", message, count)));
+        errorCounts.forEach((message, count) -> report.append(String.format("异常：%s，次数：%d%n", message, count)));
+        System.out.println(report);
+    }
+
+    private static double percentileMillis(long[] sortedValues, double percentile) {
+        if (sortedValues.length == 0) {
+            return 0D;
+        }
+        int index = (int) Math.ceil(percentile * sortedValues.length) - 1;
+        return sortedValues[Math.max(index, 0)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.test.load;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * 购票锁等待耗时记录器
+ * 压测线程发起购票前记录开始时间，进入加锁后执行的 executePurchaseTickets 时计算等待耗时，包含责任链校验与令牌获取
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Aspect
+public class LockWaitRecorder {
+
+    private static final ThreadLocal<long[]> PURCHASE_TIMING = ThreadLocal.withInitial(() -> new long[2]);
+
+    /**
+     * 标记当前线程开始购票
+     */
+    public static void begin() {
+        long[] timing = PURCHASE_TIMING.get();
+        timing[0] = System.nanoTime();
+        timing[1] = -1L;
+    }
+
+    /**
+     * 获取当前线程本次购票的锁等待耗时
+     *
+     * @return 锁等待耗时，单位纳秒，未进入加锁区域时返回 -1
+     */
+    public static long end() {
+        return PURCHASE_TIMING.get()[1];
+    }
+
+    @Around("execution(* org.opengoofy.index12306.biz.ticketservice.service.TicketService.executePurchaseTickets(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        long[] timing = PURCHASE_TIMING.get();
+        if (timing[0] > 0L) {
+            timing[1] = System.nanoTime() - timing[0];
+        }
+        return joinPoint.proceed();
+    }
+}
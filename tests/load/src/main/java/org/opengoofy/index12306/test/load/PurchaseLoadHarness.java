@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.test.load;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.opengoofy.index12306.biz.ticketservice.TicketServiceApplication;
+import org.opengoofy.index12306.biz.ticketservice.dto.domain.PurchaseTicketPassengerDetailDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.PurchaseTicketReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.service.TicketService;
+import org.opengoofy.index12306.framework.starter.convention.exception.AbstractException;
+import org.opengoofy.index12306.frameworks.starter.user.core.UserContext;
+import org.opengoofy.index12306.frameworks.starter.user.core.UserInfoDTO;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 购票端到端压测
+ * <p>
+ * 以内嵌 Redis、H2（MySQL 兼容模式）以及订单服务、用户服务桩启动购票服务，大量并发用户同时抢购同一热门车次，
+ * 输出吞吐量、响应耗时与锁等待耗时分位数，并对座位表与车票表做超卖校验，存在超卖时进程以非零状态码退出
+ * <p>
+ * 压测参数（-D 或 --）：
+ * load.modes 压测接口版本，默认 v1,v2，每个版本使用独立的车次；
+ * load.buyers 购票用户数，默认 2000；
+ * load.concurrency 并发线程数，默认 200；
+ * load.carriages 二等座车厢数，默认 4，每节 90 座；
+ * load.order-latency-millis 订单服务桩模拟耗时，默认 0
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+@Slf4j
+public final class PurchaseLoadHarness {
+
+    private PurchaseLoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int redisPort = findFreePort();
+        RedisServer redisServer = RedisServer.newRedisServer()
+                .port(redisPort)
+                .setting("requirepass 123456")
+                .setting("save \"\"")
+                .build();
+        redisServer.start();
+        System.setProperty("spring.data.redis.port", String.valueOf(redisPort));
+        boolean oversold = false;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TicketServiceApplication.class, LoadHarnessConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .profiles("load")
+                .run(args)) {
+            Environment environment = context.getEnvironment();
+            int buyers = environment.getProperty("load.buyers", Integer.class, 2000);
+            int concurrency = environment.getProperty("load.concurrency", Integer.class, 200);
+            int carriages = environment.getProperty("load.carriages", Integer.class, 4);
+            List<String> modes = StrUtil.split(environment.getProperty("load.modes", "v1,v2"), ',', true, true);
+            TicketService ticketService = context.getBean(TicketService.class);
+            HotTrainDataInitializer dataInitializer = context.getBean(HotTrainDataInitializer.class);
+            for (int i = 0; i < modes.size(); i++) {
+                String mode = modes.get(i);
+                long trainId = i + 1L;
+                int capacity = dataInitializer.initialize(trainId, carriages);
+                long successCount = run(ticketService, mode, String.valueOf(trainId), buyers, concurrency);
+                List<String> violations = dataInitializer.verifyNoOversell(trainId, capacity, successCount);
+                if (violations.isEmpty()) {
+                    System.out.printf("超卖校验通过：%s，可售座位 %d，售出 %d%n", mode, capacity, successCount);
+                } else {
+                    oversold = true;
+                    violations.forEach(each -> System.out.printf("超卖校验失败：%s，%s%n", mode, each));
+                }
+            }
+        } finally {
+            redisServer.stop();
+        }
+        System.exit(oversold ? 1 : 0);
+    }
+
+    private static long run(TicketService ticketService, String mode, String trainId, int buyers, int concurrency) throws InterruptedException {
+        long[] latencies = new long[buyers];
+        long[] lockWaits = new long[buyers];
+        AtomicLong successCount = new AtomicLong();
+        Map<String, Long> rejectedCounts = new ConcurrentHashMap<>();
+        Map<String, Long> errorCounts = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        CountDownLatch finishSignal = new CountDownLatch(buyers);
+        for (int i = 0; i < buyers; i++) {
+            int buyer = i;
+            executor.execute(() -> {
+                PurchaseTicketReqDTO requestParam = buildPurchaseRequest(trainId, buyer);
+                UserContext.setUser(UserInfoDTO.builder()
+                        .userId(String.valueOf(buyer + 1))
+                        .username("load_user_" + buyer)
+                        .realName("压测用户" + buyer)
+                        .build());
+                try {
+                    startSignal.await();
+                    long start = System.nanoTime();
+                    LockWaitRecorder.begin();
+                    try {
+                        if ("v1".equalsIgnoreCase(mode)) {
+                            ticketService.purchaseTicketsV1(requestParam);
+                        } else {
+                            ticketService.purchaseTicketsV2(requestParam);
+                        }
+                        successCount.addAndGet(requestParam.getPassengers().size());
+                    } catch (AbstractException ex) {
+                        rejectedCounts.merge(ex.getMessage(), 1L, Long::sum);
+                    } catch (Throwable ex) {
+                        errorCounts.merge(ex.getClass().getSimpleName() + "：" + ex.getMessage(), 1L, Long::sum);
+                    } finally {
+                        latencies[buyer] = System.nanoTime() - start;
+                        lockWaits[buyer] = LockWaitRecorder.end();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    UserContext.removeUser();
+                    finishSignal.countDown();
+                }
+            });
+        }
+        long start = System.nanoTime();
+        startSignal.countDown();
+        finishSignal.await();
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        LoadReport.print(mode, elapsedNanos, latencies, lockWaits, successCount.get(), rejectedCounts, errorCounts);
+        return successCount.get();
+    }
+
+    private static PurchaseTicketReqDTO buildPurchaseRequest(String trainId, int buyer) {
+        PurchaseTicketPassengerDetailDTO passenger = new PurchaseTicketPassengerDetailDTO();
+        passenger.setPassengerId(String.valueOf(buyer + 1));
+        passenger.setSeatType(2);
+        List<PurchaseTicketPassengerDetailDTO> passengers = new ArrayList<>(1);
+        passengers.add(passenger);
+        PurchaseTicketReqDTO requestParam = new PurchaseTicketReqDTO();
+        requestParam.setTrainId(trainId);
+        requestParam.setDeparture(HotTrainDataInitializer.DEPARTURE);
+        requestParam.setArrival(HotTrainDataInitializer.ARRIVAL);
+        requestParam.setPassengers(passengers);
+        return requestParam;
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.test.load;
+
+import org.opengoofy.index12306.biz.ticketservice.dto.req.CancelTicketOrderReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.dto.req.TicketOrderItemQueryReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.remote.TicketOrderRemoteService;
+import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderCreateRemoteReqDTO;
+import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderDetailRespDTO;
+import org.opengoofy.index12306.biz.ticketservice.remote.dto.TicketOrderPassengerDetailRespDTO;
+import org.opengoofy.index12306.framework.starter.convention.result.Result;
+import org.opengoofy.index12306.framework.starter.distributedid.toolkit.SnowflakeIdUtil;
+import org.opengoofy.index12306.framework.starter.web.Results;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订单服务桩，创建订单直接返回订单号，可配置模拟远程调用耗时
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public class StubTicketOrderRemoteService implements TicketOrderRemoteService {
+
+    private final long latencyMillis;
+
+    private final AtomicLong createdOrderCount = new AtomicLong();
+
+    public StubTicketOrderRemoteService(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * 获取已创建订单数量
+     */
+    public long getCreatedOrderCount() {
+        return createdOrderCount.get();
+    }
+
+    @Override
+    public Result<TicketOrderDetailRespDTO> queryTicketOrderByOrderSn(String orderSn) {
+        return Results.success(null);
+    }
+
+    @Override
+    public Result<List<TicketOrderDetailRespDTO>> listTicketOrderByOrderSns(List<String> orderSns) {
+        return Results.success(Collections.emptyList());
+    }
+
+    @Override
+    public Result<List<TicketOrderPassengerDetailRespDTO>> queryTicketItemOrderById(TicketOrderItemQueryReqDTO requestParam) {
+        return Results.success(Collections.emptyList());
+    }
+
+    @Override
+    public Result<String> createTicketOrder(TicketOrderCreateRemoteReqDTO requestParam) {
+        simulateLatency();
+        createdOrderCount.incrementAndGet();
+        return Results.success(requestParam.getOrderSn() != null ? requestParam.getOrderSn() : SnowflakeIdUtil.nextIdStr());
+    }
+
+    @Override
+    public Result<List<String>> createTicketOrderBatch(List<TicketOrderCreateRemoteReqDTO> requestParams) {
+        simulateLatency();
+        createdOrderCount.addAndGet(requestParams.size());
+        List<String> orderSns = new ArrayList<>(requestParams.size());
+        requestParams.forEach(each -> orderSns.add(each.getOrderSn() != null ? each.getOrderSn() : SnowflakeIdUtil.nextIdStr()));
+        return Results.success(orderSns);
+    }
+
+    @Override
+    public Result<Boolean> closeTickOrder(CancelTicketOrderReqDTO requestParam) {
+        return Results.success(Boolean.FALSE);
+    }
+
+    @Override
+    public Result<List<String>> closeTickOrderBatch(List<String> orderSns) {
+        return Results.success(Collections.emptyList());
+    }
+
+    @Override
+    public Result<Void> cancelTicketOrder(CancelTicketOrderReqDTO requestParam) {
+        return Results.success();
+    }
+
+    private void simulateLatency() {
+        if (latencyMillis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(latencyMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
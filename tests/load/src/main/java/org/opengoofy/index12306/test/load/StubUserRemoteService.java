@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.opengoofy.index12306.test.load;
+
+import org.opengoofy.index12306.biz.ticketservice.remote.UserRemoteService;
+import org.opengoofy.index12306.biz.ticketservice.remote.dto.PassengerRespDTO;
+import org.opengoofy.index12306.framework.starter.convention.result.Result;
+import org.opengoofy.index12306.framework.starter.web.Results;
+
+import java.util.List;
+
+/**
+ * 用户服务桩，按乘车人 ID 生成乘车人信息
+ * 公众号：马丁玩编程，回复：加群，添加马哥微信（备注：12306）获取项目资料
+ */
+public class StubUserRemoteService implements UserRemoteService {
+
+    @Override
+    public Result<List<PassengerRespDTO>> listPassengerQueryByIds(String username, List<String> ids) {
+        List<PassengerRespDTO> passengers = ids.stream().map(each -> {
+            PassengerRespDTO passenger = new PassengerRespDTO();
+            passenger.setId(each);
+            passenger.setUsername(username);
+            passenger.setRealName("压测乘车人" + each);
+            passenger.setIdType(0);
+            passenger.setIdCard(String.format("110101199001%06d", Long.parseLong(each) % 1000000));
+            passenger.setDiscountType(0);
+            passenger.setPhone(String.format("138%08d", Long.parseLong(each) % 100000000));
+            return passenger;
+        }).toList();
+        return Results.success(passengers);
+    }
+}
@@ -0,0 +1,141 @@
+-- 购票服务压测表结构，由 resources/db/12306-springcloud-ticket.sql 精简而来，兼容 H2 MySQL 模式
+
+CREATE TABLE t_carriage
+(
+    id bigint NOT NULL AUTO_INCREMENT,
+    train_id bigint DEFAULT NULL,
+    carriage_number varchar(64) DEFAULT NULL,
+    carriage_type int DEFAULT NULL,
+    seat_count int DEFAULT NULL,
+    create_time datetime DEFAULT NULL,
+    update_time datetime DEFAULT NULL,
+    del_flag tinyint DEFAULT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE t_seat
+(
+    id bigint NOT NULL AUTO_INCREMENT,
+    train_id bigint DEFAULT NULL,
+    carriage_number varchar(64) DEFAULT NULL,
+    seat_number varchar(64) DEFAULT NULL,
+    seat_type int DEFAULT NULL,
+    start_station varchar(256) DEFAULT NULL,
+    end_station varchar(256) DEFAULT NULL,
+    price int DEFAULT NULL,
+    seat_status int DEFAULT NULL,
+    create_time datetime DEFAULT NULL,
+    update_time datetime DEFAULT NULL,
+    del_flag tinyint DEFAULT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE t_ticket
+(
+    id bigint NOT NULL AUTO_INCREMENT,
+    username varchar(256) DEFAULT NULL,
+    train_id bigint DEFAULT NULL,
+    carriage_number varchar(64) DEFAULT NULL,
+    seat_number varchar(64) DEFAULT NULL,
+    passenger_id bigint DEFAULT NULL,
+    ticket_status int DEFAULT NULL,
+    create_time datetime DEFAULT NULL,
+    update_time datetime DEFAULT NULL,
+    del_flag tinyint DEFAULT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE t_ticket_order_pending
+(
+    id bigint NOT NULL AUTO_INCREMENT,
+    order_sn varchar(64) DEFAULT NULL,
+    user_id bigint DEFAULT NULL,
+    username varchar(256) DEFAULT NULL,
+    train_id bigint DEFAULT NULL,
+    order_payload text,
+    status int DEFAULT NULL,
+    create_time datetime DEFAULT NULL,
+    update_time datetime DEFAULT NULL,
+    del_flag tinyint DEFAULT NULL,
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_order_sn (order_sn)
+);
+
+CREATE TABLE t_train
+(
+    id bigint NOT NULL AUTO_INCREMENT,
+    train_number varchar(256) DEFAULT NULL,
+    train_type int DEFAULT NULL,
+    train_tag varchar(32) DEFAULT NULL,
+    train_brand varchar(32) DEFAULT NULL,
+    start_station varchar(256) DEFAULT NULL,
+    end_station varchar(256) DEFAULT NULL,
+    start_region varchar(256) DEFAULT NULL,
+    end_region varchar(256) DEFAULT NULL,
+    sale_time datetime DEFAULT NULL,
+    sale_status int DEFAULT NULL,
+    departure_time datetime DEFAULT NULL,
+    arrival_time datetime DEFAULT NULL,
+    create_time datetime DEFAULT NULL,
+    update_time datetime DEFAULT NULL,
+    del_flag tinyint DEFAULT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE t_train_station
+(
+    id bigint NOT NULL AUTO_INCREMENT,
+    train_id bigint DEFAULT NULL,
+    station_id bigint DEFAULT NULL,
+    sequence varchar(32) DEFAULT NULL,
+    departure varchar(64) DEFAULT NULL,
+    arrival varchar(64) DEFAULT NULL,
+    start_region varchar(256) DEFAULT NULL,
+    end_region varchar(256) DEFAULT NULL,
+    arrival_time datetime DEFAULT NULL,
+    departure_time datetime DEFAULT NULL,
+    stopover_time int DEFAULT NULL,
+    create_time datetime DEFAULT NULL,
+    update_time datetime DEFAULT NULL,
+    del_flag tinyint DEFAULT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE t_train_station_price
+(
+    id bigint NOT NULL AUTO_INCREMENT,
+    train_id bigint DEFAULT NULL,
+    departure varchar(64) DEFAULT NULL,
+    arrival varchar(64) DEFAULT NULL,
+    seat_type int DEFAULT NULL,
+    price int DEFAULT NULL,
+    create_time datetime DEFAULT NULL,
+    update_time datetime DEFAULT NULL,
+    del_flag tinyint DEFAULT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE t_train_station_relation
+(
+    id bigint NOT NULL AUTO_INCREMENT,
+    train_id bigint DEFAULT NULL,
+    departure varchar(64) DEFAULT NULL,
+    arrival varchar(64) DEFAULT NULL,
+    start_region varchar(256) DEFAULT NULL,
+    end_region varchar(256) DEFAULT NULL,
+    departure_flag tinyint DEFAULT NULL,
+    arrival_flag tinyint DEFAULT NULL,
+    departure_time datetime DEFAULT NULL,
+    arrival_time datetime DEFAULT NULL,
+    create_time datetime DEFAULT NULL,
+    update_time datetime DEFAULT NULL,
+    del_flag tinyint DEFAULT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_carriage_train_id ON t_carriage (train_id);
+CREATE INDEX idx_seat_train_id ON t_seat (train_id);
+CREATE INDEX idx_train_station_train_id ON t_train_station (train_id);
+CREATE INDEX idx_train_station_price_train_id ON t_train_station_price (train_id);
+CREATE INDEX idx_train_station_relation_train_id ON t_train_station_relation (train_id);
+CREATE INDEX idx_ticket_order_pending_status_update_time ON t_ticket_order_pending (status, update_time);